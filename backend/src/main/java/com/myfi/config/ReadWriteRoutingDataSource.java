@@ -0,0 +1,26 @@
+package com.myfi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections for {@code @Transactional(readOnly = true)} work to the
+ * SQLite reader pool and everything else to the single writer connection.
+ * <p>
+ * The lookup key is resolved when a connection is requested, so this must be
+ * wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy};
+ * otherwise the transaction manager fetches the connection before the
+ * read-only flag of the new transaction has been published.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        WRITER,
+        READER
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READER : Route.WRITER;
+    }
+}
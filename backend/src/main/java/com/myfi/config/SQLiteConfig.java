@@ -1,15 +1,21 @@
 package com.myfi.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.sqlite.SQLiteDataSource;
 
 import javax.sql.DataSource;
+import java.util.Map;
 import java.util.Properties;
 
 @Configuration
@@ -24,10 +30,86 @@ public class SQLiteConfig {
     @Value("${spring.jpa.show-sql}")
     private String showSql;
 
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    // Connection pool settings. Writes always go through a single connection.
+    @Value("${myfi.sqlite.read-pool.max-size:4}")
+    private int readPoolMaxSize;
+
+    @Value("${myfi.sqlite.pool.connection-timeout-ms:30000}")
+    private long poolConnectionTimeoutMs;
+
+    // Pragmas applied to every connection when it is opened
+    @Value("${myfi.sqlite.journal-mode:WAL}")
+    private String journalMode;
+
+    @Value("${myfi.sqlite.synchronous:NORMAL}")
+    private String synchronous;
+
+    @Value("${myfi.sqlite.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+
+    @Value("${myfi.sqlite.mmap-size:268435456}")
+    private long mmapSize;
+
+    @Value("${myfi.sqlite.cache-size:-16000}")
+    private int cacheSize;
+
+    /**
+     * The DataSource used by JPA. Read-only transactions are served from the
+     * reader pool, everything else is serialized through the writer connection.
+     */
     @Bean
+    @Primary
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.sqlite.JDBC");
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.WRITER, writerDataSource(),
+                ReadWriteRoutingDataSource.Route.READER, readerDataSource()));
+        routingDataSource.setDefaultTargetDataSource(writerDataSource());
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // Migrations run outside any Spring transaction, i.e. on the writer connection
+    @Bean(destroyMethod = "close")
+    @FlywayDataSource
+    public HikariDataSource writerDataSource() {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("myfi-sqlite-writer");
+        hikariConfig.setDataSource(sqliteDataSource());
+        hikariConfig.setMaximumPoolSize(1);
+        hikariConfig.setConnectionTimeout(poolConnectionTimeoutMs);
+        return new HikariDataSource(hikariConfig);
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readerDataSource() {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("myfi-sqlite-reader");
+        hikariConfig.setDataSource(sqliteDataSource());
+        hikariConfig.setMaximumPoolSize(readPoolMaxSize);
+        hikariConfig.setMinimumIdle(1);
+        hikariConfig.setConnectionTimeout(poolConnectionTimeoutMs);
+        // The driver refuses Connection#setReadOnly on an open connection, so enforce it with a pragma
+        hikariConfig.setConnectionInitSql("PRAGMA query_only = 1");
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * Builds the raw (unpooled) SQLite DataSource. The pragmas configured here are
+     * applied by the driver each time the pool opens a physical connection.
+     */
+    private SQLiteDataSource sqliteDataSource() {
+        org.sqlite.SQLiteConfig pragmas = new org.sqlite.SQLiteConfig();
+        pragmas.setJournalMode(org.sqlite.SQLiteConfig.JournalMode.valueOf(journalMode.toUpperCase()));
+        pragmas.setSynchronous(org.sqlite.SQLiteConfig.SynchronousMode.valueOf(synchronous.toUpperCase()));
+        pragmas.setBusyTimeout(busyTimeoutMs);
+        pragmas.setCacheSize(cacheSize);
+        pragmas.setPragma(org.sqlite.SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize));
+
+        SQLiteDataSource dataSource = new SQLiteDataSource(pragmas);
         dataSource.setUrl("jdbc:sqlite:" + databasePath);
         return dataSource;
     }
@@ -38,13 +120,17 @@ public class SQLiteConfig {
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.myfi");
         em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
-        
+
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect");
         properties.setProperty("hibernate.hbm2ddl.auto", ddlAuto);
         properties.setProperty("hibernate.show_sql", showSql);
+        // Group inserts/updates per entity so saveAll() and flushes go out as JDBC batches
+        properties.setProperty("hibernate.jdbc.batch_size", String.valueOf(jdbcBatchSize));
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
         em.setJpaProperties(properties);
-        
+
         return em;
     }
 
@@ -54,4 +140,4 @@ public class SQLiteConfig {
         transactionManager.setEntityManagerFactory(entityManagerFactory().getObject());
         return transactionManager;
     }
-} 
\ No newline at end of file
+}
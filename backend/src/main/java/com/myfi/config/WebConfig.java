@@ -1,15 +1,29 @@
 package com.myfi.config;
 
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig {
 
+    /**
+     * Spring Boot only creates its default {@code applicationTaskExecutor} when no other
+     * executor bean exists, and the Gmail sync pools suppress it. MVC async requests (the
+     * streamed transaction exports) would then run on a new thread each. Built with Boot's
+     * builder so the {@code spring.task.execution.*} settings still apply.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
     @Bean
     @Profile("dev")
     public WebMvcConfigurer corsConfigurer() {
@@ -1,13 +1,25 @@
 package com.myfi.controller;
 
+import com.myfi.dto.AccountBalanceAsOf;
+import com.myfi.dto.BalanceAsOfRequest;
+import com.myfi.dto.BalanceCandle;
+import com.myfi.dto.BalancePoint;
 import com.myfi.model.AccountHistory;
 import com.myfi.service.AccountHistoryService;
+import com.myfi.service.BalanceSeriesService;
+import com.myfi.service.BalanceSeriesService.Interval;
+import com.myfi.service.HistoryCompactionService;
+import com.myfi.service.HistoryCompactionService.CompactionReport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/account-histories")
@@ -16,6 +28,12 @@ public class AccountHistoryController {
     @Autowired
     private AccountHistoryService accountHistoryService;
 
+    @Autowired
+    private BalanceSeriesService balanceSeriesService;
+
+    @Autowired
+    private HistoryCompactionService historyCompactionService;
+
     // Create a new account history record
     @PostMapping
     public ResponseEntity<AccountHistory> createAccountHistory(@RequestBody AccountHistory accountHistory) {
@@ -38,6 +56,103 @@ public class AccountHistoryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Balance chart series for an account: the last balance per DAY/WEEK/MONTH bucket, or
+     * every record for RAW. {@code maxPoints} downsamples the result (LTTB).
+     */
+    @GetMapping("/account/{accountId}/series")
+    public ResponseEntity<?> getAccountBalanceSeries(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "DAY") Interval interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer maxPoints) {
+        try {
+            List<BalancePoint> series = balanceSeriesService.getAccountSeries(accountId, interval, from, to, maxPoints);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Open/high/low/close balance per DAY/WEEK/MONTH bucket for an account
+    @GetMapping("/account/{accountId}/ohlc")
+    public ResponseEntity<?> getAccountBalanceCandles(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "DAY") Interval interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            List<BalanceCandle> candles = balanceSeriesService.getAccountCandles(accountId, interval, from, to);
+            return ResponseEntity.ok(candles);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Same as the account series, for the net worth (sum of all root account balances)
+    @GetMapping("/net-worth/series")
+    public ResponseEntity<?> getNetWorthSeries(
+            @RequestParam(defaultValue = "DAY") Interval interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer maxPoints) {
+        try {
+            List<BalancePoint> series = balanceSeriesService.getNetWorthSeries(interval, from, to, maxPoints);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/net-worth/ohlc")
+    public ResponseEntity<?> getNetWorthCandles(
+            @RequestParam(defaultValue = "DAY") Interval interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            List<BalanceCandle> candles = balanceSeriesService.getNetWorthCandles(interval, from, to);
+            return ResponseEntity.ok(candles);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Balance of an account at a point in time (its last record at or before asOf)
+    @GetMapping("/account/{accountId}/balance")
+    public ResponseEntity<BigDecimal> getAccountBalanceAsOf(
+            @PathVariable Long accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return accountHistoryService.getBalanceAsOf(accountId, asOf)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Balances of all accounts at a point in time, by account id
+    @GetMapping("/balances")
+    public ResponseEntity<Map<Long, BigDecimal>> getBalancesAsOf(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return ResponseEntity.ok(accountHistoryService.getBalancesAsOf(asOf));
+    }
+
+    // Balances for many (account, time) pairs in one query
+    @PostMapping("/balances/as-of")
+    public ResponseEntity<?> getBalancesAsOf(@RequestBody List<BalanceAsOfRequest> requests) {
+        try {
+            List<AccountBalanceAsOf> balances = accountHistoryService.getBalancesAsOf(requests);
+            return ResponseEntity.ok(balances);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Collapse history older than the retention window to end-of-day snapshots; by default
+    // only reports the rows that would be removed
+    @PostMapping("/compaction")
+    public ResponseEntity<CompactionReport> compactHistory(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(historyCompactionService.compact(dryRun));
+    }
+
     // Get a specific account history record by its ID
     @GetMapping("/{id}")
     public ResponseEntity<AccountHistory> getAccountHistoryById(@PathVariable Long id) {
@@ -1,5 +1,7 @@
 package com.myfi.controller;
 
+import com.myfi.mailscraping.service.EmailDetailsExtractionService;
+import com.myfi.mailscraping.service.ExtractionCacheService;
 import com.myfi.service.SystemStatusService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +13,8 @@ import org.springframework.web.bind.annotation.*;
 public class SystemStatusController {
 
     private final SystemStatusService systemStatusService;
+    private final ExtractionCacheService extractionCacheService;
+    private final EmailDetailsExtractionService emailDetailsExtractionService;
 
     @GetMapping("/last-scrape-time")
     public ResponseEntity<Long> getLastScrapeTime() {
@@ -18,4 +22,14 @@ public class SystemStatusController {
                 .map(ResponseEntity::ok) // If present, wrap in 200 OK
                 .orElse(ResponseEntity.notFound().build()); // If empty, return 404 Not Found
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/extraction-cache")
+    public ResponseEntity<ExtractionCacheService.Stats> getExtractionCacheStats() {
+        return ResponseEntity.ok(extractionCacheService.getStats());
+    }
+
+    @GetMapping("/extractors")
+    public ResponseEntity<EmailDetailsExtractionService.Stats> getExtractorStats() {
+        return ResponseEntity.ok(emailDetailsExtractionService.getStats());
+    }
+}
@@ -1,20 +1,29 @@
 package com.myfi.controller;
 
+import com.myfi.dto.CursorPage;
+import com.myfi.dto.TransactionSummary;
 import com.myfi.model.Transaction;
+import com.myfi.service.TransactionExportService;
+import com.myfi.service.TransactionExportService.ExportFormat;
 import com.myfi.service.TransactionService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @Data
@@ -30,6 +39,7 @@ class SplitRequest {
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
 
     @GetMapping
     public ResponseEntity<Page<Transaction>> getAllTransactions(
@@ -38,6 +48,22 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
 
+    /**
+     * Cursor-paginated feed for infinite scrolling. Pass the returned {@code nextCursor}
+     * to fetch the following page; no total count is computed.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getTransactionFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<Transaction> page = transactionService.getTransactionFeed(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/account/{accountId}")
     public ResponseEntity<Page<Transaction>> getTransactionsByAccountId(
             @PathVariable Long accountId,
@@ -169,4 +195,59 @@ public class TransactionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/month/summary")
+    public ResponseEntity<List<TransactionSummary>> getTransactionSummariesForMonth(
+            @RequestParam int year,
+            @RequestParam int month) {
+        try {
+            return ResponseEntity.ok(transactionService.getTransactionSummariesForMonth(year, month));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping("/range/summary")
+    public ResponseEntity<List<TransactionSummary>> getTransactionSummariesForRange(
+            @RequestParam int startYear,
+            @RequestParam int startMonth,
+            @RequestParam int endYear,
+            @RequestParam int endMonth) {
+        try {
+            return ResponseEntity.ok(
+                    transactionService.getTransactionSummariesForRange(startYear, startMonth, endYear, endMonth));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid range specified: {}-{} to {}-{}", startYear, startMonth, endYear, endMonth, e);
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping(value = "/export/ndjson", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsAsNdjson(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return export(from, to, ExportFormat.NDJSON, "application/x-ndjson", "ndjson");
+    }
+
+    @GetMapping(value = "/export/csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsAsCsv(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return export(from, to, ExportFormat.CSV, "text/csv", "csv");
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(LocalDate from, LocalDate to, ExportFormat format,
+                                                         String contentType, String extension) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // The body is written after this method returns, on an async thread; the export
+        // service opens its own read-only transaction for the duration of the stream.
+        StreamingResponseBody body = outputStream -> transactionExportService.export(from, to, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions-" + from + "-to-" + to + "." + extension + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,11 @@
+package com.myfi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An account's balance at {@code asOf}: that of its last history record at or before that
+ * time, or {@code null} if the account had no history yet.
+ */
+public record AccountBalanceAsOf(Long accountId, LocalDateTime asOf, BigDecimal balance) {
+}
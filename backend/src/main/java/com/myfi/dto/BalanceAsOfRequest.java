@@ -0,0 +1,7 @@
+package com.myfi.dto;
+
+import java.time.LocalDateTime;
+
+/** One (account, time) pair of a batch as-of balance lookup. */
+public record BalanceAsOfRequest(Long accountId, LocalDateTime asOf) {
+}
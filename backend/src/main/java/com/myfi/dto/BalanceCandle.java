@@ -0,0 +1,16 @@
+package com.myfi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * First, highest, lowest and last balance recorded in the bucket (day, week or month)
+ * starting on {@code bucket}.
+ */
+public record BalanceCandle(
+        LocalDate bucket,
+        BigDecimal open,
+        BigDecimal high,
+        BigDecimal low,
+        BigDecimal close) {
+}
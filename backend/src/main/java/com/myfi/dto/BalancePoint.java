@@ -0,0 +1,11 @@
+package com.myfi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One point of a balance chart: the balance at {@code timestamp}, or for bucketed series
+ * the last balance of the bucket starting at {@code timestamp}.
+ */
+public record BalancePoint(LocalDateTime timestamp, BigDecimal balance) {
+}
@@ -0,0 +1,58 @@
+package com.myfi.dto;
+
+import com.myfi.model.Transaction;
+import com.myfi.model.Transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One line of a transaction export (NDJSON object or CSV record). Only scalar columns
+ * are included so writing a row never touches a lazy association.
+ */
+public record TransactionExportRow(
+        Long id,
+        LocalDateTime transactionDate,
+        BigDecimal amount,
+        TransactionType type,
+        String description,
+        String counterParty,
+        Long accountId,
+        Long tagId,
+        Long parentId,
+        BigDecimal originalAmount,
+        String currencyCode,
+        String notes,
+        Boolean excludeFromAccounting) {
+
+    public static final String[] CSV_HEADER = {
+            "id", "transactionDate", "amount", "type", "description", "counterParty", "accountId",
+            "tagId", "parentId", "originalAmount", "currencyCode", "notes", "excludeFromAccounting"
+    };
+
+    public static TransactionExportRow from(Transaction transaction) {
+        // getId() on an uninitialized account proxy does not hit the database
+        Long accountId = transaction.getAccount() != null ? transaction.getAccount().getId() : null;
+        return new TransactionExportRow(
+                transaction.getId(),
+                transaction.getTransactionDate(),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getDescription(),
+                transaction.getCounterParty(),
+                accountId,
+                transaction.getTagId(),
+                transaction.getParentId(),
+                transaction.getOriginalAmount(),
+                transaction.getCurrencyCode(),
+                transaction.getNotes(),
+                transaction.getExcludeFromAccounting());
+    }
+
+    public Object[] csvValues() {
+        return new Object[] {
+                id, transactionDate, amount, type, description, counterParty, accountId,
+                tagId, parentId, originalAmount, currencyCode, notes, excludeFromAccounting
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.myfi.dto;
+
+import com.myfi.model.Transaction.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only view of a transaction for list screens. Selected directly with a JPQL
+ * constructor expression, so no entity, account proxy or sub-transaction collection is
+ * loaded.
+ */
+public record TransactionSummary(
+        Long id,
+        BigDecimal amount,
+        TransactionType type,
+        LocalDateTime transactionDate,
+        String description,
+        String counterParty,
+        Long tagId,
+        Long accountId,
+        Long parentId,
+        Boolean excludeFromAccounting) {
+}
@@ -0,0 +1,50 @@
+package com.myfi.mailscraping.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Worker pools for the Gmail sync pipeline. Each stage gets its own pool so a slow
+ * stage (usually the LLM extraction) cannot starve the others. Persisting stays on the
+ * calling thread, which keeps all sync writes on a single writer.
+ */
+@Configuration
+public class GmailSyncConfig {
+
+    @Value("${myfi.gmail.sync.fetch-threads:8}")
+    private int fetchThreads;
+
+    @Value("${myfi.gmail.sync.parse-threads:2}")
+    private int parseThreads;
+
+    @Value("${myfi.gmail.sync.extract-threads:4}")
+    private int extractThreads;
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor gmailFetchExecutor() {
+        return executor("gmail-fetch-", fetchThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor gmailParseExecutor() {
+        return executor("gmail-parse-", parseThreads);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor gmailExtractExecutor() {
+        return executor("gmail-extract-", extractThreads);
+    }
+
+    // The queue is unbounded on purpose: GmailService caps the number of messages in flight
+    private ThreadPoolTaskExecutor executor(String threadNamePrefix, int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,80 @@
+package com.myfi.mailscraping.extractor;
+
+import com.myfi.mailscraping.constants.Constants;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Fixed alert templates of the supported banks. Each one is a precompiled
+ * {@link RegexTemplateExtractor} limited to the bank's sender addresses; mail that
+ * matches none of them (statements, new wording, failed transactions) goes to the LLM.
+ */
+@Configuration
+public class BankAlertTemplates {
+
+    private static final String AMOUNT = "(?<currency>Rs\\.?|INR|₹) ?(?<amount>[\\d,]+(?:\\.\\d{1,2})?)";
+
+    @Bean
+    public EmailDetailsExtractor hdfcCreditCardDebitTemplate() {
+        // "Rs.500.00 is debited from your HDFC Bank Credit Card ending 1234 towards AMAZON on 15 Jan, 2024 at 10:20:30."
+        return new RegexTemplateExtractor("hdfc-credit-card-debit",
+                Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.HDFC),
+                AMOUNT + " is debited from your HDFC Bank (?<pixel>Pixel )?Credit Card ending (?<account>\\d{4}) "
+                        + "towards (?<merchant>.+?) on (?<date>\\d{1,2} [A-Za-z]{3},? \\d{4})",
+                "DEBIT", List.of("d MMM, yyyy", "d MMM yyyy"));
+    }
+
+    @Bean
+    public EmailDetailsExtractor hdfcCreditCardLegacyTemplate() {
+        // "Thank you for using your HDFC Bank Credit Card ending 1234 for Rs 500.00 at AMAZON on 15-01-2024 10:20:30."
+        return new RegexTemplateExtractor("hdfc-credit-card-legacy",
+                Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.HDFC),
+                "HDFC Bank (?<pixel>Pixel )?Credit Card ending (?<account>\\d{4}) for " + AMOUNT
+                        + " at (?<merchant>.+?) on (?<date>\\d{2}-\\d{2}-\\d{4})",
+                "DEBIT", List.of("dd-MM-yyyy"));
+    }
+
+    @Bean
+    public EmailDetailsExtractor hdfcUpiDebitTemplate() {
+        // "Rs.250.00 has been debited from account **1234 to VPA shop@okaxis SHOP NAME on 15-01-24."
+        return new RegexTemplateExtractor("hdfc-upi-debit",
+                Constants.BANK_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.HDFC),
+                AMOUNT + " has been debited from (?:your )?(?:account|a/c) [*Xx]*(?<account>\\d{4}) "
+                        + "to VPA \\S+ (?<merchant>.+?) on (?<date>\\d{2}-\\d{2}-\\d{2,4})",
+                "DEBIT", List.of("dd-MM-yyyy", "dd-MM-yy"));
+    }
+
+    @Bean
+    public EmailDetailsExtractor hdfcUpiCreditTemplate() {
+        // "Rs. 1000.00 is successfully credited to your account **1234 by VPA payer@okicici PAYER NAME on 15-01-24."
+        return new RegexTemplateExtractor("hdfc-upi-credit",
+                Constants.BANK_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.HDFC),
+                AMOUNT + " is successfully credited to your (?:account|a/c) [*Xx]*(?<account>\\d{4}) "
+                        + "by VPA \\S+ (?<merchant>.+?) on (?<date>\\d{2}-\\d{2}-\\d{2,4})",
+                "CREDIT", List.of("dd-MM-yyyy", "dd-MM-yy"));
+    }
+
+    @Bean
+    public EmailDetailsExtractor iciciCreditCardTemplate() {
+        // "Your ICICI Bank Credit Card XX1234 has been used for a transaction of INR 500.00 on Jan 15, 2024 at 10:20:30. Info: AMAZON."
+        return new RegexTemplateExtractor("icici-credit-card",
+                Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.ICICI),
+                "ICICI Bank Credit Card [Xx*]*(?<account>\\d{4}) has been used for a transaction of "
+                        + "(?<currency>INR|USD|EUR|GBP|Rs\\.?) ?(?<amount>[\\d,]+(?:\\.\\d{1,2})?) "
+                        + "on (?<date>[A-Za-z]{3} \\d{1,2}, \\d{4}).*?Info: (?<merchant>[^.]+)",
+                "DEBIT", List.of("MMM d, yyyy"));
+    }
+
+    @Bean
+    public EmailDetailsExtractor oneCardDebitTemplate() {
+        // "₹500.00 spent on your OneCard ending in 1234 at AMAZON on 15 Jan 2024"
+        return new RegexTemplateExtractor("onecard-debit",
+                Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.ONE_CARD),
+                AMOUNT + " (?:was )?spent (?:on|using) your OneCard (?:ending (?:in )?)?[Xx*]*(?<account>\\d{4}) "
+                        + "at (?<merchant>.+?) on (?<date>\\d{1,2} [A-Za-z]{3},? \\d{4})",
+                "DEBIT", List.of("d MMM, yyyy", "d MMM yyyy"));
+    }
+}
@@ -0,0 +1,21 @@
+package com.myfi.mailscraping.extractor;
+
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+
+import java.util.Optional;
+
+/**
+ * A local extractor that can turn some emails into {@link ExtractedDetailsFromEmail}
+ * without calling the LLM. Extractors are tried in order for every email; returning
+ * empty means "not mine", and the next extractor (finally the LLM) gets the email.
+ */
+public interface EmailDetailsExtractor {
+
+    /** Stable name used in the hit-rate metrics. */
+    String getName();
+
+    /** Whether this extractor handles mail from the given From header value. */
+    boolean supportsSender(String from);
+
+    Optional<ExtractedDetailsFromEmail> extract(String emailText);
+}
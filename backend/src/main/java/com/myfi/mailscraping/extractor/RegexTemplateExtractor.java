@@ -0,0 +1,135 @@
+package com.myfi.mailscraping.extractor;
+
+import com.myfi.mailscraping.enums.EmailType;
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a transaction from one fixed alert template using a precompiled regex.
+ * <p>
+ * The pattern must define the named groups {@code amount}, {@code account} and
+ * {@code date}, and may define {@code merchant} and {@code currency}. A template that names
+ * the card variant defines {@code pixel}; the transaction is flagged as a Pixel card
+ * transaction only when that group matched. Patterns are written
+ * against text with whitespace collapsed to single spaces. Anything that does not parse
+ * cleanly is left to the next extractor rather than guessed.
+ */
+public class RegexTemplateExtractor implements EmailDetailsExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegexTemplateExtractor.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String name;
+    private final List<String> senders;
+    private final Pattern pattern;
+    private final String transactionType;
+    private final List<DateTimeFormatter> dateFormats;
+
+    public RegexTemplateExtractor(String name, List<String> senders, String regex, String transactionType,
+                                  List<String> datePatterns) {
+        this.name = name;
+        this.senders = senders.stream().map(sender -> sender.toLowerCase(Locale.ROOT)).toList();
+        this.pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        this.transactionType = transactionType;
+        this.dateFormats = datePatterns.stream()
+                .map(datePattern -> new DateTimeFormatterBuilder()
+                        .parseCaseInsensitive()
+                        .appendPattern(datePattern)
+                        .toFormatter(Locale.ENGLISH))
+                .toList();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean supportsSender(String from) {
+        if (from == null) {
+            return false;
+        }
+        String normalized = from.toLowerCase(Locale.ROOT);
+        return senders.stream().anyMatch(normalized::contains);
+    }
+
+    @Override
+    public Optional<ExtractedDetailsFromEmail> extract(String emailText) {
+        if (emailText == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = pattern.matcher(WHITESPACE.matcher(emailText).replaceAll(" "));
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+
+        Double amount = parseAmount(matcher.group("amount"));
+        LocalDate date = parseDate(matcher.group("date").trim());
+        String account = matcher.group("account").replaceAll("\\D", "");
+        if (amount == null || date == null || account.length() < 4) {
+            logger.debug("Template {} matched but could not parse amount/date/account", name);
+            return Optional.empty();
+        }
+
+        String merchant = optionalGroup(matcher, "merchant");
+        String currency = optionalGroup(matcher, "currency");
+        return Optional.of(ExtractedDetailsFromEmail.builder()
+                .amount(amount)
+                .currencyCode(currency == null ? "INR" : normalizeCurrency(currency))
+                .transactionDate(date)
+                .transactionType(transactionType)
+                .description(merchant == null ? "" : merchant.trim())
+                .accountNumber(account.substring(account.length() - 4))
+                .emailType(EmailType.TRANSACTION_INFORMATION)
+                .isTransactionSuccessful(true)
+                .isPixelCardTransaction(optionalGroup(matcher, "pixel") != null)
+                .build());
+    }
+
+    private static Double parseAmount(String value) {
+        try {
+            return Double.valueOf(value.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private LocalDate parseDate(String value) {
+        for (DateTimeFormatter format : dateFormats) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    private static String optionalGroup(Matcher matcher, String group) {
+        try {
+            return matcher.group(group);
+        } catch (IllegalArgumentException e) {
+            return null; // group not defined by this template
+        }
+    }
+
+    private static String normalizeCurrency(String currency) {
+        String upper = currency.toUpperCase(Locale.ROOT);
+        return switch (upper) {
+            case "RS", "RS.", "₹" -> "INR";
+            default -> upper;
+        };
+    }
+}
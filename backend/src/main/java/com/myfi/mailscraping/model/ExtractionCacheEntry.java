@@ -0,0 +1,33 @@
+package com.myfi.mailscraping.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "extraction_cache", indexes = {
+    @Index(name = "idx_extraction_cache_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionCacheEntry {
+
+    // SHA-256 (hex) of schema version, model and normalized email text
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "model", nullable = false)
+    private String model;
+
+    // Raw JSON returned by the model, parsed again on every hit
+    @Column(name = "response_json", nullable = false, columnDefinition = "TEXT")
+    private String responseJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.id.IncrementGenerator;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
@@ -21,7 +23,8 @@ import java.util.Set;
 public class ProcessedGmailMessage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "processed_gmail_messages_id")
+    @GenericGenerator(name = "processed_gmail_messages_id", type = IncrementGenerator.class)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -0,0 +1,27 @@
+package com.myfi.mailscraping.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.myfi.mailscraping.model.ExtractionCacheEntry;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ExtractionCacheRepository extends JpaRepository<ExtractionCacheEntry, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ExtractionCacheEntry e WHERE e.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Drops the given number of oldest entries
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM extraction_cache WHERE cache_key IN " +
+                   "(SELECT cache_key FROM extraction_cache ORDER BY created_at ASC LIMIT :count)", nativeQuery = true)
+    int deleteOldest(@Param("count") long count);
+}
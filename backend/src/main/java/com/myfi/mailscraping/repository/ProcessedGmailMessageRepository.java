@@ -1,14 +1,20 @@
 package com.myfi.mailscraping.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.myfi.mailscraping.model.ProcessedGmailMessage;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProcessedGmailMessageRepository extends JpaRepository<ProcessedGmailMessage, Long> {
@@ -23,6 +29,22 @@ public interface ProcessedGmailMessageRepository extends JpaRepository<Processed
            "WHERE p.messageId = :messageId AND :accountNumber MEMBER OF p.processedAccountNumbers")
     boolean isMessageProcessedForAccount(@Param("messageId") String messageId, @Param("accountNumber") String accountNumber);
 
+    // (messageId, accountNumber) pairs for all processed accounts of the given messages
+    @Query("SELECT p.messageId, a FROM ProcessedGmailMessage p JOIN p.processedAccountNumbers a " +
+           "WHERE p.messageId IN :messageIds")
+    List<Object[]> findProcessedAccountNumbersByMessageIdIn(@Param("messageIds") Collection<String> messageIds);
+
+    // All (messageId, accountNumber) pairs, read in fetch-size steps to build the in-memory
+    // processed index. Must be consumed inside a transaction and closed.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.messageId, a FROM ProcessedGmailMessage p JOIN p.processedAccountNumbers a")
+    Stream<Object[]> streamAllProcessedAccountNumbers();
+
+    // Records with their account numbers in one query, for batched updates
+    @Query("SELECT DISTINCT p FROM ProcessedGmailMessage p LEFT JOIN FETCH p.processedAccountNumbers " +
+           "WHERE p.messageId IN :messageIds")
+    List<ProcessedGmailMessage> findWithAccountsByMessageIdIn(@Param("messageIds") Collection<String> messageIds);
+
     // Find the latest message date for any account
     @Query("SELECT MAX(p.messageDateTime) FROM ProcessedGmailMessage p")
     Optional<LocalDateTime> findLatestMessageDateTime();
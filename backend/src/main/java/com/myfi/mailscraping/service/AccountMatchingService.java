@@ -8,7 +8,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,6 +17,11 @@ public class AccountMatchingService {
 
     private static final Logger logger = LoggerFactory.getLogger(AccountMatchingService.class);
 
+    // A handful of account sets are in use at once (all supported accounts, single-account checks)
+    private static final int MATCHER_CACHE_SIZE = 16;
+
+    private final Map<List<String>, AccountNumberMatcher> matcherCache = new ConcurrentHashMap<>();
+
     /**
      * Finds all accounts that match the given email content.
      * Uses multiple matching strategies to identify relevant accounts.
@@ -25,13 +31,26 @@ public class AccountMatchingService {
      * @return List of matching accounts
      */
     public List<Account> findMatchingAccounts(String emailContent, List<Account> accounts) {
+        return findMatchingAccounts(emailContent == null ? null : NormalizedEmailText.of(emailContent), accounts);
+    }
+
+    /**
+     * Finds all accounts that match the given, already normalized email text, see
+     * {@link EmailParser#extractNormalizedText}. Matching only reads its lower-cased form.
+     *
+     * @param emailText The normalized email text to analyze
+     * @param accounts List of all accounts to match against
+     * @return List of matching accounts
+     */
+    public List<Account> findMatchingAccounts(NormalizedEmailText emailText, List<Account> accounts) {
         List<Account> matchingAccounts = new ArrayList<>();
 
-        if (emailContent == null || emailContent.isBlank() || accounts == null || accounts.isEmpty()) {
+        if (emailText == null || emailText.isBlank() || accounts == null || accounts.isEmpty()) {
             logger.warn("Invalid input for account matching: emailContent={}, accounts size={}", 
-                emailContent != null ? "provided" : "null", accounts != null ? accounts.size() : 0);
+                emailText != null ? "provided" : "null", accounts != null ? accounts.size() : 0);
             return matchingAccounts;
         }
+        String emailContent = emailText.getLowerCaseText();
 
         // Strategy 1: Match by account numbers (primary strategy)
         List<Account> accountNumberMatches = findAccountsByNumbers(emailContent, accounts);
@@ -57,6 +76,8 @@ public class AccountMatchingService {
     /**
      * Matches accounts by finding account numbers in the email content.
      * Looks for last 4 digits of account numbers as commonly used in notifications.
+     * All accounts' patterns are found in a single pass over the email by an automaton
+     * compiled once per set of accounts.
      *
      * @param emailContent The email content to search
      * @param accounts List of accounts to match against
@@ -64,41 +85,44 @@ public class AccountMatchingService {
      */
     public List<Account> findAccountsByNumbers(String emailContent, List<Account> accounts) {
         List<Account> matches = new ArrayList<>();
-        String cleanContent = emailContent.toLowerCase().replaceAll("\\s+", " ");
+        AccountNumberMatcher matcher = matcherFor(accounts);
+        for (int index : matcher.findAccounts(emailContent)) {
+            Account account = accounts.get(index);
+            matches.add(account);
+            logger.debug("Account {} matched by account number", account.getName());
+        }
 
-        for (Account account : accounts) {
-            if (account.getAccountNumber() == null || account.getAccountNumber().length() < 4) {
+        logger.debug("Found {} accounts by account number matching", matches.size());
+        return matches;
+    }
+
+    /**
+     * Returns the automaton for this set of accounts, compiling it on first use. The key is
+     * the list of account numbers, so an account being added, removed or renumbered
+     * produces a new version of the set and a fresh automaton.
+     */
+    private AccountNumberMatcher matcherFor(List<Account> accounts) {
+        List<String> accountNumbers = accounts.stream().map(Account::getAccountNumber).collect(Collectors.toList());
+        AccountNumberMatcher matcher = matcherCache.get(accountNumbers);
+        if (matcher != null) {
+            return matcher;
+        }
+        List<List<String>> patternsByAccount = new ArrayList<>(accountNumbers.size());
+        for (String accountNumber : accountNumbers) {
+            if (accountNumber == null || accountNumber.length() < 4) {
+                patternsByAccount.add(List.of());
                 continue;
             }
-
-            String accountNumber = account.getAccountNumber();
             String lastFourDigits = accountNumber.substring(accountNumber.length() - 4);
-            
-            // Look for various patterns of account number representation
-            List<String> patterns = generateAccountNumberPatterns(accountNumber, lastFourDigits);
-            
-            boolean found = false;
-            for (String pattern : patterns) {
-                if (cleanContent.contains(pattern.toLowerCase())) {
-                    matches.add(account);
-                    logger.debug("Account {} matched by pattern: {}", account.getName(), pattern);
-                    found = true;
-                    break;
-                }
-            }
-            
-            if (!found) {
-                // Also try regex pattern for masked account numbers like XXXX1234
-                Pattern maskedPattern = Pattern.compile("x{4,}" + Pattern.quote(lastFourDigits), Pattern.CASE_INSENSITIVE);
-                if (maskedPattern.matcher(cleanContent).find()) {
-                    matches.add(account);
-                    logger.debug("Account {} matched by masked pattern", account.getName());
-                }
-            }
+            patternsByAccount.add(generateAccountNumberPatterns(accountNumber, lastFourDigits));
         }
-
-        logger.debug("Found {} accounts by account number matching", matches.size());
-        return matches;
+        matcher = AccountNumberMatcher.compile(patternsByAccount);
+        if (matcherCache.size() >= MATCHER_CACHE_SIZE) {
+            matcherCache.clear();
+        }
+        matcherCache.put(accountNumbers, matcher);
+        logger.debug("Compiled account number matcher for {} accounts ({} states)", accounts.size(), matcher.getStateCount());
+        return matcher;
     }
 
     /**
@@ -152,7 +176,7 @@ public class AccountMatchingService {
         patterns.add("ends with " + lastFourDigits);
         patterns.add("ending " + lastFourDigits);
         
-        // Masked formats: XXXX1234, ****1234
+        // Masked formats: XXXX1234, ****1234 (longer masks like XXXXXXXX1234 contain these too)
         patterns.add("xxxx" + lastFourDigits);
         patterns.add("****" + lastFourDigits);
         
@@ -0,0 +1,158 @@
+package com.myfi.mailscraping.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho–Corasick automaton over the account number patterns of a set of accounts. Finds
+ * every account with at least one pattern in the text in a single pass, independent of the
+ * number of accounts and patterns.
+ * <p>
+ * The text is normalized while it is scanned, the same way the matching service always
+ * compared it: lower-cased, with each run of whitespace ({@code \s}) collapsed to one space.
+ * Patterns are only lower-cased. Instances are immutable and safe to share between threads.
+ */
+final class AccountNumberMatcher {
+
+    private static final int ROOT = 0;
+
+    // Dense DFA: next state for (state, character class); class 0 is "not in any pattern"
+    private final int[][] transitions;
+    // Accounts (by index) with a pattern ending in each state, including via failure links
+    private final int[][] outputs;
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int accountCount;
+
+    private AccountNumberMatcher(int[][] transitions, int[][] outputs, Map<Character, Integer> characterClasses, int accountCount) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.accountCount = accountCount;
+        characterClasses.forEach((c, characterClass) -> {
+            if (c < asciiClasses.length) {
+                asciiClasses[c] = characterClass;
+            } else {
+                otherClasses.put(c, characterClass);
+            }
+        });
+    }
+
+    /**
+     * @param patternsByAccount the patterns of each account; result indexes refer to this list
+     */
+    static AccountNumberMatcher compile(List<List<String>> patternsByAccount) {
+        Map<Character, Integer> characterClasses = new HashMap<>();
+        List<Map<Integer, Integer>> trie = new ArrayList<>();
+        List<BitSet> trieOutputs = new ArrayList<>();
+        trie.add(new HashMap<>());
+        trieOutputs.add(new BitSet());
+
+        for (int account = 0; account < patternsByAccount.size(); account++) {
+            for (String pattern : patternsByAccount.get(account)) {
+                if (pattern == null || pattern.isEmpty()) {
+                    continue;
+                }
+                int state = ROOT;
+                for (char c : pattern.toLowerCase().toCharArray()) {
+                    int characterClass = characterClasses.computeIfAbsent(c, key -> characterClasses.size() + 1);
+                    Integer next = trie.get(state).get(characterClass);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        trieOutputs.add(new BitSet());
+                        trie.get(state).put(characterClass, next);
+                    }
+                    state = next;
+                }
+                trieOutputs.get(state).set(account);
+            }
+        }
+
+        // Breadth-first: fill in failure transitions and merge outputs along failure links
+        int classCount = characterClasses.size() + 1;
+        int[][] transitions = new int[trie.size()][classCount];
+        int[] failure = new int[trie.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int characterClass = 0; characterClass < classCount; characterClass++) {
+            Integer child = trie.get(ROOT).get(characterClass);
+            transitions[ROOT][characterClass] = child == null ? ROOT : child;
+            if (child != null) {
+                failure[child] = ROOT;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            trieOutputs.get(state).or(trieOutputs.get(failure[state]));
+            for (int characterClass = 0; characterClass < classCount; characterClass++) {
+                Integer child = trie.get(state).get(characterClass);
+                if (child == null) {
+                    transitions[state][characterClass] = transitions[failure[state]][characterClass];
+                } else {
+                    transitions[state][characterClass] = child;
+                    failure[child] = transitions[failure[state]][characterClass];
+                    queue.add(child);
+                }
+            }
+        }
+
+        int[][] outputs = new int[trie.size()][];
+        for (int state = 0; state < trie.size(); state++) {
+            outputs[state] = trieOutputs.get(state).stream().toArray();
+        }
+        return new AccountNumberMatcher(transitions, outputs, characterClasses, patternsByAccount.size());
+    }
+
+    /** Indexes (ascending) of the accounts with at least one pattern in {@code text}. */
+    int[] findAccounts(String text) {
+        BitSet found = new BitSet(accountCount);
+        int foundCount = 0;
+        int state = ROOT;
+        boolean previousWasSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isRegexWhitespace(c)) {
+                if (previousWasSpace) {
+                    continue;
+                }
+                previousWasSpace = true;
+                c = ' ';
+            } else {
+                previousWasSpace = false;
+                c = Character.toLowerCase(c);
+            }
+            state = transitions[state][characterClass(c)];
+            for (int account : outputs[state]) {
+                if (!found.get(account)) {
+                    found.set(account);
+                    foundCount++;
+                }
+            }
+            if (foundCount == accountCount) {
+                break;
+            }
+        }
+        return found.stream().toArray();
+    }
+
+    int getStateCount() {
+        return transitions.length;
+    }
+
+    private int characterClass(char c) {
+        if (c < asciiClasses.length) {
+            return asciiClasses[c];
+        }
+        return otherClasses.getOrDefault(c, 0);
+    }
+
+    // The characters matched by \s without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
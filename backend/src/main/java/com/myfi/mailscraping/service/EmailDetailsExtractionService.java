@@ -0,0 +1,140 @@
+package com.myfi.mailscraping.service;
+
+import com.myfi.mailscraping.extractor.EmailDetailsExtractor;
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Extracts transaction details from an email by trying the local
+ * {@link EmailDetailsExtractor}s registered for its sender first and only calling
+ * {@link OpenAIService} when none of them recognises the email. Keeps per-extractor
+ * hit counts so it is visible how much traffic is served without the LLM.
+ */
+@Service
+public class EmailDetailsExtractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailDetailsExtractionService.class);
+
+    @Autowired
+    private OpenAIService openAIService;
+
+    @Autowired(required = false)
+    private List<EmailDetailsExtractor> extractors = new ArrayList<>();
+
+    @Value("${myfi.template-extractors.enabled:true}")
+    private boolean templateExtractorsEnabled = true;
+
+    private final Map<String, LongAdder> attemptsByExtractor = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hitsByExtractor = new ConcurrentHashMap<>();
+    private final LongAdder emails = new LongAdder();
+    private final LongAdder llmFallbacks = new LongAdder();
+
+    public record ExtractorStats(String name, long attempts, long hits, double hitRate) {
+    }
+
+    public record Stats(long emails, long servedLocally, long llmFallbacks, double localRate,
+                        List<ExtractorStats> extractors) {
+    }
+
+    /** An email to extract: the From header, used to pick the candidate extractors, and the text. */
+    public record EmailText(String from, String text) {
+    }
+
+    /**
+     * @param from the email's From header, used to pick the candidate extractors
+     */
+    public Optional<ExtractedDetailsFromEmail> extractDetails(String from, String emailText) throws Exception {
+        emails.increment();
+        Optional<ExtractedDetailsFromEmail> details = extractLocally(from, emailText);
+        if (details.isPresent()) {
+            return details;
+        }
+        llmFallbacks.increment();
+        return openAIService.extractDetailsFromEmail(emailText);
+    }
+
+    /**
+     * Extracts several emails at once, returning one result per email in the same order.
+     * Emails the templates don't recognise go to the LLM together so they can share batch
+     * requests (see {@link OpenAIService#extractDetailsFromEmails(List)}).
+     */
+    public List<Optional<ExtractedDetailsFromEmail>> extractDetails(List<EmailText> emailTexts) throws Exception {
+        List<Optional<ExtractedDetailsFromEmail>> results = new ArrayList<>(emailTexts.size());
+        List<Integer> llmIndexes = new ArrayList<>();
+        for (EmailText email : emailTexts) {
+            emails.increment();
+            Optional<ExtractedDetailsFromEmail> details = extractLocally(email.from(), email.text());
+            if (details.isEmpty()) {
+                llmIndexes.add(results.size());
+            }
+            results.add(details);
+        }
+        if (!llmIndexes.isEmpty()) {
+            llmFallbacks.add(llmIndexes.size());
+            List<Optional<ExtractedDetailsFromEmail>> llmResults = openAIService.extractDetailsFromEmails(
+                    llmIndexes.stream().map(i -> emailTexts.get(i).text()).toList());
+            for (int i = 0; i < llmIndexes.size(); i++) {
+                results.set(llmIndexes.get(i), llmResults.get(i));
+            }
+        }
+        return results;
+    }
+
+    /** Whether callers should hand emails over in groups, see {@link #extractDetails(List)}. */
+    public boolean isBatchExtractionEnabled() {
+        return openAIService.isBatchExtractionEnabled();
+    }
+
+    private Optional<ExtractedDetailsFromEmail> extractLocally(String from, String emailText) {
+        if (!templateExtractorsEnabled) {
+            return Optional.empty();
+        }
+        for (EmailDetailsExtractor extractor : extractors) {
+            if (!extractor.supportsSender(from)) {
+                continue;
+            }
+            counter(attemptsByExtractor, extractor.getName()).increment();
+            Optional<ExtractedDetailsFromEmail> details = extractor.extract(emailText);
+            if (details.isPresent()) {
+                counter(hitsByExtractor, extractor.getName()).increment();
+                logger.debug("Extracted details locally with {}", extractor.getName());
+                return details;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Stats getStats() {
+        List<ExtractorStats> extractorStats = new ArrayList<>();
+        long servedLocally = 0;
+        for (EmailDetailsExtractor extractor : extractors) {
+            long attempts = count(attemptsByExtractor, extractor.getName());
+            long hits = count(hitsByExtractor, extractor.getName());
+            servedLocally += hits;
+            extractorStats.add(new ExtractorStats(extractor.getName(), attempts, hits, attempts == 0 ? 0.0 : (double) hits / attempts));
+        }
+        long total = emails.sum();
+        return new Stats(total, servedLocally, llmFallbacks.sum(), total == 0 ? 0.0 : (double) servedLocally / total, extractorStats);
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    private static long count(Map<String, LongAdder> counters, String name) {
+        LongAdder adder = counters.get(name);
+        return adder == null ? 0 : adder.sum();
+    }
+}
@@ -2,55 +2,92 @@ package com.myfi.mailscraping.service;
 
 import com.google.api.services.gmail.model.Message;
 import com.google.api.services.gmail.model.MessagePart;
-import org.jsoup.Jsoup;
-import org.jsoup.safety.Safelist;
+import org.jsoup.nodes.Entities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Base64;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class EmailParser {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailParser.class);
 
+    // Elements whose content is never visible text
+    private static final Set<String> SKIPPED_ELEMENTS = Set.of("script", "style", "head");
+    // Elements that don't separate words; every other tag counts as whitespace
+    private static final Set<String> INLINE_ELEMENTS = Set.of("a", "abbr", "b", "big", "em", "font", "i", "small",
+            "span", "strong", "sub", "sup", "u");
+    private static final int MAX_ENTITY_LENGTH = 32;
+
+    private static final int[] BASE64_URL_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE64_URL_VALUES, -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_URL_VALUES[alphabet.charAt(i)] = i;
+        }
+    }
+
+    // Parsing runs on a small fixed pool, so each thread keeps its buffers between emails
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
     /**
      * Extracts clean text content from a Gmail message.
-     * It prioritizes HTML content and cleans it using Jsoup, falling back to plain text.
+     * It prioritizes HTML content, falling back to plain text.
      *
      * @param message The Gmail Message object.
      * @return The extracted plain text, or null if no suitable content is found or decoding fails.
      */
     public String extractTextFromMessage(Message message) {
+        NormalizedEmailText text = extractNormalizedText(message);
+        return text == null ? null : text.getText();
+    }
+
+    /**
+     * Extracts the normalized text of a Gmail message in one pass per body part: the
+     * base64url data is decoded, markup and entities are stripped, whitespace is collapsed
+     * and the lower-cased copy is built, all within reusable per-thread buffers. Prefers the
+     * HTML parts and falls back to the plain text parts.
+     *
+     * @param message The Gmail Message object.
+     * @return The normalized text, or null if no suitable content is found or decoding fails.
+     */
+    public NormalizedEmailText extractNormalizedText(Message message) {
         MessagePart payload = message.getPayload();
         if (payload == null) {
             logger.warn("Message payload is null for message ID: {}", message.getId());
             return null;
         }
 
-        String htmlBody = findBodyByMimeType(payload, "text/html");
-        if (htmlBody != null) {
-            String decodedHtml = decodeBase64Url(htmlBody);
-            if (decodedHtml != null) {
+        List<String> htmlParts = new ArrayList<>();
+        findBodiesByMimeType(payload, "text/html", htmlParts);
+        if (!htmlParts.isEmpty()) {
+            NormalizedEmailText text = normalize(htmlParts, true);
+            if (text != null) {
                 logger.debug("Found HTML body for message ID: {}", message.getId());
-                // Use Jsoup to clean the HTML and get text
-                // Safelist.none() removes all HTML tags
-                String plainText = Jsoup.clean(decodedHtml, Safelist.none());
-                // Optional: Basic whitespace cleanup if needed
-                return plainText.replaceAll("\s+", " ").trim();
+                return text;
             }
         }
 
-        String plainTextBody = findBodyByMimeType(payload, "text/plain");
-        if (plainTextBody != null) {
-            String decodedText = decodeBase64Url(plainTextBody);
-            if (decodedText != null) {
-                 logger.debug("Found Plain Text body for message ID: {}", message.getId());
-                 return decodedText.trim(); // Return decoded plain text directly
+        List<String> plainTextParts = new ArrayList<>();
+        findBodiesByMimeType(payload, "text/plain", plainTextParts);
+        if (!plainTextParts.isEmpty()) {
+            NormalizedEmailText text = normalize(plainTextParts, false);
+            if (text != null) {
+                logger.debug("Found Plain Text body for message ID: {}", message.getId());
+                return text;
             }
         }
 
@@ -59,60 +96,304 @@ public class EmailParser {
     }
 
     /**
-     * Recursively searches message parts for the first part matching the given MIME type.
+     * Recursively collects the Base64 encoded data of the message parts matching the given
+     * MIME type. A matching part's own sub-parts are not searched.
      *
      * @param part     The current MessagePart to search within.
      * @param mimeType The desired MIME type (e.g., "text/plain", "text/html").
-     * @return The Base64 encoded data of the found part, or null if not found.
+     * @param found    Receives the data of the matching parts, in document order.
      */
-    private String findBodyByMimeType(MessagePart part, String mimeType) {
-        // Check if current part matches the requested MIME type
+    private void findBodiesByMimeType(MessagePart part, String mimeType, List<String> found) {
         if (mimeType.equals(part.getMimeType()) && part.getBody() != null && part.getBody().getData() != null) {
-            return part.getBody().getData();
+            found.add(part.getBody().getData());
+            return;
         }
-
-        // If this part has sub-parts, search through them
         if (part.getParts() != null) {
-            // Collect all matching parts
-            List<String> matchingParts = new ArrayList<>();
-            
             for (MessagePart subPart : part.getParts()) {
-                String foundData = findBodyByMimeType(subPart, mimeType);
-                if (foundData != null) {
-                    matchingParts.add(foundData);
-                }
+                findBodiesByMimeType(subPart, mimeType, found);
+            }
+        }
+    }
+
+    /**
+     * Decodes and normalizes the given parts as one text, parts separated by whitespace.
+     *
+     * @return the normalized text, or null if a part is not valid Base64Url
+     */
+    private NormalizedEmailText normalize(List<String> base64UrlParts, boolean html) {
+        Buffers buffer = buffers.get();
+        buffer.reset();
+        for (String part : base64UrlParts) {
+            int length = decodeBase64Url(part, buffer);
+            if (length < 0) {
+                logger.error("Failed to decode Base64Url string: illegal character or length");
+                return null;
             }
-            
-            // If we found multiple matching parts, concatenate them
-            if (!matchingParts.isEmpty()) {
-                if (matchingParts.size() == 1) {
-                    return matchingParts.get(0);
-                } else {
-                    logger.debug("Found {} parts with MIME type {}, concatenating them", matchingParts.size(), mimeType);
-                    return String.join("\n", matchingParts);
+            CharBuffer chars = buffer.decodeUtf8(length);
+            if (html) {
+                appendHtmlText(chars, buffer);
+            } else {
+                for (int i = chars.position(); i < chars.limit(); i++) {
+                    buffer.append(chars.get(i));
                 }
             }
+            buffer.appendSpace();
         }
-        return null;
+        return buffer.toNormalizedText();
     }
 
-
     /**
-     * Decodes a Base64Url encoded string.
+     * Decodes Base64Url (padding optional) into {@code buffer.bytes}.
      *
-     * @param base64UrlString The Base64Url encoded string.
-     * @return The decoded string, or null if input is null or decoding fails.
+     * @return the number of decoded bytes, or -1 if the input is not valid Base64Url
      */
-    private String decodeBase64Url(String base64UrlString) {
-        if (base64UrlString == null) {
-            return null;
+    private static int decodeBase64Url(String data, Buffers buffer) {
+        int end = data.length();
+        while (end > 0 && data.charAt(end - 1) == '=') {
+            end--;
+        }
+        if (end % 4 == 1) {
+            return -1;
         }
+        byte[] bytes = buffer.bytesFor(end / 4 * 3 + 2);
+        int length = 0;
+        int accumulator = 0;
+        int bits = 0;
+        for (int i = 0; i < end; i++) {
+            char c = data.charAt(i);
+            int value = c < 128 ? BASE64_URL_VALUES[c] : -1;
+            if (value < 0) {
+                return -1;
+            }
+            accumulator = (accumulator << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                bytes[length++] = (byte) (accumulator >> bits);
+                accumulator &= (1 << bits) - 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Appends the visible text of an HTML document: tags and comments are dropped (block
+     * level tags become whitespace), the content of script/style/head is skipped and
+     * character references are decoded.
+     */
+    private static void appendHtmlText(CharBuffer html, Buffers out) {
+        int limit = html.limit();
+        int i = html.position();
+        while (i < limit) {
+            char c = html.get(i);
+            if (c == '<') {
+                i = skipMarkup(html, i, limit, out);
+            } else if (c == '&') {
+                i = appendCharacterReference(html, i, limit, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+    }
+
+    /** Skips the tag or comment starting at {@code start}; returns the index after it. */
+    private static int skipMarkup(CharBuffer html, int start, int limit, Buffers out) {
+        if (startsWith(html, start, limit, "<!--")) {
+            int end = indexOf(html, start + 4, limit, "-->");
+            return end < 0 ? limit : end + 3;
+        }
+        int i = start + 1;
+        boolean closing = i < limit && html.get(i) == '/';
+        if (closing) {
+            i++;
+        }
+        if (i >= limit || !(Character.isLetter(html.get(i)) || html.get(i) == '!' || html.get(i) == '?')) {
+            out.append('<'); // not a tag, e.g. "a < b"
+            return start + 1;
+        }
+        int nameStart = i;
+        while (i < limit && (Character.isLetterOrDigit(html.get(i)) || html.get(i) == '-')) {
+            i++;
+        }
+        String name = html.subSequence(nameStart - html.position(), i - html.position()).toString().toLowerCase();
+
+        // Find the end of the tag, ignoring '>' inside quoted attribute values
+        char quote = 0;
+        boolean selfClosing = false;
+        while (i < limit) {
+            char c = html.get(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                selfClosing = html.get(i - 1) == '/';
+                break;
+            }
+            i++;
+        }
+        int afterTag = Math.min(limit, i + 1);
+
+        if (!closing && !selfClosing && SKIPPED_ELEMENTS.contains(name)) {
+            int end = indexOfIgnoreCase(html, afterTag, limit, "</" + name);
+            if (end < 0) {
+                return limit;
+            }
+            int close = indexOf(html, end, limit, ">");
+            afterTag = close < 0 ? limit : close + 1;
+        }
+        if (!INLINE_ELEMENTS.contains(name)) {
+            out.appendSpace();
+        }
+        return afterTag;
+    }
+
+    /** Decodes the character reference at {@code start} if there is one; returns the index after it. */
+    private static int appendCharacterReference(CharBuffer html, int start, int limit, Buffers out) {
+        int semicolon = -1;
+        for (int i = start + 1; i < limit && i <= start + MAX_ENTITY_LENGTH; i++) {
+            char c = html.get(i);
+            if (c == ';') {
+                semicolon = i;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                break;
+            }
+        }
+        if (semicolon > start + 1) {
+            String reference = html.subSequence(start + 1 - html.position(), semicolon - html.position()).toString();
+            String decoded = decodeCharacterReference(reference);
+            if (decoded != null) {
+                for (int i = 0; i < decoded.length(); i++) {
+                    out.append(decoded.charAt(i));
+                }
+                return semicolon + 1;
+            }
+        }
+        out.append('&');
+        return start + 1;
+    }
+
+    private static String decodeCharacterReference(String reference) {
         try {
-            byte[] decodedBytes = Base64.getUrlDecoder().decode(base64UrlString);
-            return new String(decodedBytes, StandardCharsets.UTF_8);
+            if (reference.startsWith("#x") || reference.startsWith("#X")) {
+                return Character.toString(Integer.parseInt(reference.substring(2), 16));
+            }
+            if (reference.startsWith("#")) {
+                return Character.toString(Integer.parseInt(reference.substring(1)));
+            }
         } catch (IllegalArgumentException e) {
-            logger.error("Failed to decode Base64Url string: {}", e.getMessage());
             return null;
         }
+        String named = Entities.getByName(reference);
+        return named.isEmpty() ? null : named;
+    }
+
+    private static boolean startsWith(CharBuffer chars, int index, int limit, String prefix) {
+        if (index + prefix.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars.get(index + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(CharBuffer chars, int from, int limit, String target) {
+        for (int i = from; i + target.length() <= limit; i++) {
+            if (startsWith(chars, i, limit, target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfIgnoreCase(CharBuffer chars, int from, int limit, String lowerCaseTarget) {
+        outer:
+        for (int i = from; i + lowerCaseTarget.length() <= limit; i++) {
+            for (int j = 0; j < lowerCaseTarget.length(); j++) {
+                if (Character.toLowerCase(chars.get(i + j)) != lowerCaseTarget.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Per-thread scratch space: the decoded bytes and chars of the current part and the
+     * normalized output (original case and lower case) built up across parts.
+     */
+    private static final class Buffers {
+        private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] bytes = new byte[8192];
+        private char[] chars = new char[8192];
+        private char[] text = new char[8192];
+        private char[] lowerCaseText = new char[8192];
+        private int length;
+        private boolean pendingSpace;
+
+        void reset() {
+            length = 0;
+            pendingSpace = false;
+        }
+
+        byte[] bytesFor(int size) {
+            if (bytes.length < size) {
+                bytes = new byte[size];
+            }
+            return bytes;
+        }
+
+        CharBuffer decodeUtf8(int byteLength) {
+            // UTF-8 never produces more chars than bytes
+            if (chars.length < byteLength) {
+                chars = new char[byteLength];
+            }
+            CharBuffer out = CharBuffer.wrap(chars);
+            utf8.reset();
+            CoderResult result = utf8.decode(ByteBuffer.wrap(bytes, 0, byteLength), out, true);
+            if (!result.isError()) {
+                utf8.flush(out);
+            }
+            out.flip();
+            return out;
+        }
+
+        void append(char c) {
+            if (NormalizedEmailText.isWhitespace(c)) {
+                appendSpace();
+                return;
+            }
+            if (length + 2 > text.length) {
+                text = Arrays.copyOf(text, text.length * 2);
+                lowerCaseText = Arrays.copyOf(lowerCaseText, lowerCaseText.length * 2);
+            }
+            if (pendingSpace) {
+                text[length] = ' ';
+                lowerCaseText[length++] = ' ';
+                pendingSpace = false;
+            }
+            text[length] = c;
+            lowerCaseText[length++] = Character.toLowerCase(c);
+        }
+
+        // Collapses runs and trims: a space is only written before the next visible char
+        void appendSpace() {
+            pendingSpace = length > 0;
+        }
+
+        NormalizedEmailText toNormalizedText() {
+            return new NormalizedEmailText(new String(text, 0, length), new String(lowerCaseText, 0, length));
+        }
     }
 }
@@ -0,0 +1,178 @@
+package com.myfi.mailscraping.service;
+
+import com.myfi.mailscraping.model.ExtractionCacheEntry;
+import com.myfi.mailscraping.repository.ExtractionCacheRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier cache of LLM extraction results: a bounded in-memory LRU in front of the
+ * {@code extraction_cache} table. Entries are keyed by the content of the email, so
+ * re-syncing mail that was already extracted (e.g. after a forced lookback) does not
+ * call the model again. Failures of the database tier are logged and treated as misses.
+ */
+@Service
+public class ExtractionCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCacheService.class);
+
+    @Autowired
+    private ExtractionCacheRepository repository;
+
+    @Value("${myfi.extraction-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${myfi.extraction-cache.memory-max-entries:2000}")
+    private int memoryMaxEntries = 2000;
+
+    @Value("${myfi.extraction-cache.max-entries:50000}")
+    private long maxEntries = 50000;
+
+    @Value("${myfi.extraction-cache.ttl-days:180}")
+    private int ttlDays = 180;
+
+    private final Map<String, ExtractionCacheEntry> memory = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ExtractionCacheEntry> eldest) {
+            return size() > Math.max(0, memoryMaxEntries);
+        }
+    };
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public record Stats(boolean enabled, long memoryHits, long databaseHits, long misses, double hitRate,
+                        int memoryEntries, long databaseEntries, long evictions) {
+    }
+
+    /**
+     * Builds the cache key for an extraction. Whitespace is collapsed so formatting-only
+     * differences in the same email map to the same entry.
+     */
+    public static String cacheKey(String schemaVersion, String model, String emailText) {
+        String normalized = emailText == null ? "" : emailText.replaceAll("\\s+", " ").trim();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(schemaVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Optional<String> get(String cacheKey) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ExtractionCacheEntry entry;
+        synchronized (memory) {
+            entry = memory.get(cacheKey);
+        }
+        if (entry != null && !isExpired(entry)) {
+            memoryHits.incrementAndGet();
+            return Optional.of(entry.getResponseJson());
+        }
+
+        try {
+            Optional<ExtractionCacheEntry> stored = repository.findById(cacheKey).filter(e -> !isExpired(e));
+            if (stored.isPresent()) {
+                databaseHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(cacheKey, stored.get());
+                }
+                return Optional.of(stored.get().getResponseJson());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read extraction cache entry {}: {}", cacheKey, e.getMessage());
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public void put(String cacheKey, String model, String responseJson) {
+        if (!enabled) {
+            return;
+        }
+        ExtractionCacheEntry entry = new ExtractionCacheEntry(cacheKey, model, responseJson, LocalDateTime.now());
+        synchronized (memory) {
+            memory.put(cacheKey, entry);
+        }
+        try {
+            repository.save(entry);
+        } catch (Exception e) {
+            logger.warn("Could not store extraction cache entry {}: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops entries older than the TTL, then the oldest entries above the size limit.
+     */
+    @Scheduled(fixedDelayString = "${myfi.extraction-cache.eviction-interval-ms:3600000}",
+               initialDelayString = "${myfi.extraction-cache.eviction-initial-delay-ms:300000}")
+    public void evictExpiredEntries() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ttlDays);
+        synchronized (memory) {
+            memory.values().removeIf(entry -> entry.getCreatedAt().isBefore(cutoff));
+        }
+        try {
+            long removed = repository.deleteByCreatedAtBefore(cutoff);
+            long excess = repository.count() - maxEntries;
+            if (excess > 0) {
+                removed += repository.deleteOldest(excess);
+            }
+            if (removed > 0) {
+                evictions.addAndGet(removed);
+                logger.info("Evicted {} extraction cache entries", removed);
+            }
+        } catch (Exception e) {
+            logger.warn("Extraction cache eviction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Stats getStats() {
+        long memoryHitCount = memoryHits.get();
+        long databaseHitCount = databaseHits.get();
+        long missCount = misses.get();
+        long lookups = memoryHitCount + databaseHitCount + missCount;
+        int memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        long databaseEntries = -1;
+        try {
+            databaseEntries = repository.count();
+        } catch (Exception e) {
+            logger.warn("Could not count extraction cache entries: {}", e.getMessage());
+        }
+        double hitRate = lookups == 0 ? 0.0 : (double) (memoryHitCount + databaseHitCount) / lookups;
+        return new Stats(enabled, memoryHitCount, databaseHitCount, missCount, hitRate,
+                memoryEntries, databaseEntries, evictions.get());
+    }
+
+    private boolean isExpired(ExtractionCacheEntry entry) {
+        return entry.getCreatedAt() != null && entry.getCreatedAt().isBefore(LocalDateTime.now().minusDays(ttlDays));
+    }
+}
@@ -0,0 +1,163 @@
+package com.myfi.mailscraping.service;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fetches Gmail messages through HTTP batch requests (many {@code messages.get} calls
+ * per round trip) instead of one request per message.
+ * <p>
+ * Entries that fail with a transient error (rate limiting, 5xx) are collected and
+ * re-sent in a follow-up batch with exponential backoff; permanent failures such as a
+ * deleted message (404) are logged and left out of the result.
+ */
+@Component
+public class GmailMessageBatchFetcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(GmailMessageBatchFetcher.class);
+	private static final String USER_ID = "me";
+	// Headers requested when only metadata is fetched: the sender and subject checked by the
+	// pre-filter (the snippet comes with every metadata response)
+	private static final List<String> METADATA_HEADERS = List.of("From", "Subject");
+
+	// Gmail accepts up to 100 calls per batch but starts rate limiting above ~50
+	@Value("${myfi.gmail.sync.fetch-batch-size:50}")
+	private int batchSize = 50;
+
+	@Value("${myfi.gmail.sync.fetch-max-attempts:3}")
+	private int maxAttempts = 3;
+
+	@Value("${myfi.gmail.sync.fetch-retry-backoff-ms:500}")
+	private long retryBackoffMs = 500;
+
+	public int getBatchSize() {
+		return Math.max(1, Math.min(batchSize, 100));
+	}
+
+	/**
+	 * @return the fetched messages keyed by id, in request order. Ids that could not be
+	 *         fetched after all attempts are missing from the map.
+	 */
+	public Map<String, Message> fetchMessages(Gmail service, List<String> messageIds, String format) {
+		return fetch(service, messageIds, format, null, new HashSet<>());
+	}
+
+	/**
+	 * Fetches only ids, labels, snippet, internalDate and the From/Subject headers,
+	 * which is a small fraction of the full payload.
+	 */
+	public Map<String, Message> fetchMetadata(Gmail service, List<String> messageIds) {
+		return fetchMetadata(service, messageIds, new HashSet<>());
+	}
+
+	/**
+	 * Same as {@link #fetchMetadata(Gmail, List)}, additionally collecting into
+	 * {@code notFound} the ids Gmail reported as deleted (404). Any other id missing from
+	 * the result failed transiently and may still exist.
+	 */
+	public Map<String, Message> fetchMetadata(Gmail service, List<String> messageIds, Set<String> notFound) {
+		return fetch(service, messageIds, "metadata", METADATA_HEADERS, notFound);
+	}
+
+	private Map<String, Message> fetch(Gmail service, List<String> messageIds, String format, List<String> metadataHeaders,
+			Set<String> notFound) {
+		Map<String, Message> fetched = new LinkedHashMap<>();
+		List<String> remaining = new ArrayList<>(new LinkedHashSet<>(messageIds));
+
+		for (int attempt = 1; attempt <= Math.max(1, maxAttempts) && !remaining.isEmpty(); attempt++) {
+			if (attempt > 1) {
+				long backoff = retryBackoffMs * (1L << (attempt - 2));
+				logger.info("Retrying {} Gmail message fetches in {} ms (attempt {})", remaining.size(), backoff, attempt);
+				if (!sleep(backoff)) {
+					break;
+				}
+			}
+
+			Set<String> retry = new LinkedHashSet<>();
+			for (int from = 0; from < remaining.size(); from += getBatchSize()) {
+				List<String> chunk = remaining.subList(from, Math.min(from + getBatchSize(), remaining.size()));
+				try {
+					executeBatch(service, chunk, format, metadataHeaders, fetched, retry, notFound);
+				} catch (IOException e) {
+					logger.warn("Gmail batch request for {} messages failed: {}", chunk.size(), e.getMessage());
+					chunk.stream().filter(id -> !fetched.containsKey(id)).forEach(retry::add);
+				}
+			}
+			remaining = new ArrayList<>(retry);
+		}
+
+		if (!remaining.isEmpty()) {
+			logger.error("Giving up on {} Gmail messages after {} attempts: {}", remaining.size(), maxAttempts, remaining);
+		}
+		Map<String, Message> ordered = new LinkedHashMap<>();
+		messageIds.stream().filter(fetched::containsKey).forEach(id -> ordered.put(id, fetched.get(id)));
+		return ordered;
+	}
+
+	private void executeBatch(Gmail service, List<String> messageIds, String format, List<String> metadataHeaders,
+			Map<String, Message> fetched, Set<String> retry, Set<String> notFound) throws IOException {
+		BatchRequest batch = service.batch();
+		for (String messageId : messageIds) {
+			Gmail.Users.Messages.Get request = service.users().messages().get(USER_ID, messageId).setFormat(format);
+			if (metadataHeaders != null) {
+				request.setMetadataHeaders(metadataHeaders);
+			}
+			request.queue(batch, new JsonBatchCallback<Message>() {
+					@Override
+					public void onSuccess(Message message, HttpHeaders responseHeaders) {
+						fetched.put(messageId, message);
+					}
+
+					@Override
+					public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+						if (isRetryable(error)) {
+							retry.add(messageId);
+						} else {
+							if (error.getCode() == 404) {
+								notFound.add(messageId);
+							}
+							logger.warn("Could not fetch Gmail message {}: {} {}", messageId, error.getCode(), error.getMessage());
+						}
+					}
+				});
+		}
+		batch.execute();
+	}
+
+	static boolean isRetryable(GoogleJsonError error) {
+		int code = error.getCode();
+		if (code == 429 || code >= 500) {
+			return true;
+		}
+		// Per-user rate limits are reported as 403 with a specific reason
+		return code == 403 && error.getErrors() != null && error.getErrors().stream()
+				.anyMatch(info -> "rateLimitExceeded".equals(info.getReason()) || "userRateLimitExceeded".equals(info.getReason()));
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+}
@@ -1,11 +1,16 @@
 package com.myfi.mailscraping.service;
 
 import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.History;
+import com.google.api.services.gmail.model.HistoryMessageAdded;
+import com.google.api.services.gmail.model.ListHistoryResponse;
 import com.google.api.services.gmail.model.ListMessagesResponse;
 import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePartHeader;
 import com.myfi.mailscraping.constants.Constants;
 import com.myfi.mailscraping.enums.EmailType;
 
@@ -13,6 +18,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.myfi.model.Account;
@@ -26,14 +33,20 @@ import com.myfi.service.SystemStatusService;
 import com.myfi.service.TransactionService;
 import com.myfi.service.CurrencyConversionService;
 import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+import com.myfi.mailscraping.service.ProcessedGmailMessagesTrackerService.ProcessedMark;
 import com.myfi.credentials.service.CredentialsService;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.time.LocalDateTime;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,6 +55,12 @@ public class GmailService {
 	private static final Logger logger = LoggerFactory.getLogger(GmailService.class);
 	private static final String APPLICATION_NAME = "MyFi";
 	private static final String USER_ID = "me";
+	// Subject/snippet wording of transaction alerts and statements, used by the metadata pre-filter
+	private static final Pattern TRANSACTION_WORDING = Pattern.compile(
+			"\\b(debited|credited|spent|transaction|txn|purchase|payment|paid|withdrawn|withdrawal|deposited"
+					+ "|transferred|refund|reversal|upi|neft|imps|rtgs|statement|balance|a/c|alert)\\b"
+					+ "|(\\brs\\.?|\\binr|₹)\\s?\\d",
+			Pattern.CASE_INSENSITIVE);
 
 	@Autowired
 	private GoogleAuthService googleAuthService;
@@ -53,7 +72,7 @@ public class GmailService {
 	private JsonFactory jsonFactory;
 
 	@Autowired
-	private OpenAIService openAIService;
+	private EmailDetailsExtractionService emailDetailsExtractionService;
 
 	@Autowired
 	private EmailParser emailParser;
@@ -85,6 +104,37 @@ public class GmailService {
 	@Autowired
 	private CredentialsService credentialsService;
 
+	@Autowired
+	private GmailMessageBatchFetcher messageBatchFetcher;
+
+	@Autowired
+	@Qualifier("gmailFetchExecutor")
+	private Executor gmailFetchExecutor;
+
+	@Autowired
+	@Qualifier("gmailParseExecutor")
+	private Executor gmailParseExecutor;
+
+	@Autowired
+	@Qualifier("gmailExtractExecutor")
+	private Executor gmailExtractExecutor;
+
+	// Emails being fetched/parsed/extracted ahead of the persist stage
+	@Value("${myfi.gmail.sync.max-in-flight:32}")
+	private int syncMaxInFlight;
+
+	// Transactions collected before the persist stage issues a bulk insert
+	@Value("${myfi.gmail.sync.persist-batch-size:25}")
+	private int syncPersistBatchSize;
+
+	// Use users.history.list from the last stored historyId instead of re-running the date-window query
+	@Value("${myfi.gmail.sync.incremental-history:true}")
+	private boolean incrementalHistoryEnabled = true;
+
+	// Point at a local stand-in (e.g. for benchmarks) instead of the real API
+	@Value("${myfi.gmail.root-url:" + Gmail.DEFAULT_ROOT_URL + "}")
+	private String gmailRootUrl = Gmail.DEFAULT_ROOT_URL;
+
 	public List<String> syncAndProcessEmails() {
 		return syncAndProcessEmailsNewImplementation();
 	}
@@ -126,6 +176,7 @@ public class GmailService {
 				credential = googleAuthService.getCredentials();
 				service = new Gmail.Builder(httpTransport, jsonFactory, credential)
 						.setApplicationName(APPLICATION_NAME)
+						.setRootUrl(gmailRootUrl)
 						.build();
 				refreshTrackingService.updateOperationState(RefreshType.GMAIL_SYNC, operationId,
 						RefreshJobStatus.LOGIN_SUCCESS, "Google authentication successful");
@@ -138,11 +189,18 @@ public class GmailService {
 
 			// Step 2: Fetch all relevant emails
 			List<Message> allEmails;
+			BigInteger syncedHistoryId;
 			try {
 				refreshTrackingService.updateOperationState(RefreshType.GMAIL_SYNC, operationId,
 						RefreshJobStatus.PROCESSING_STARTED, "Fetching emails from all supported senders");
-				allEmails = fetchAllRelevantEmails(service, supportedAccounts);
-				logger.info("Fetched {} emails from all supported senders", allEmails.size());
+				NewEmails newEmails = fetchNewEmails(service, supportedAccounts);
+				syncedHistoryId = newEmails.historyId();
+				if (!newEmails.messages().isEmpty()) {
+					// Answer "already processed?" from memory for the rest of the sync
+					processedGmailMessagesTrackerService.loadProcessedIndex();
+				}
+				allEmails = prefilterByMetadata(service, newEmails.messages(), supportedAccounts);
+				logger.info("Fetched {} emails from all supported senders ({} listed)", allEmails.size(), newEmails.messages().size());
 			} catch (Exception e) {
 				logger.error("Failed to fetch emails: {}", e.getMessage(), e);
 				refreshTrackingService.failOperation(RefreshType.GMAIL_SYNC, operationId,
@@ -152,63 +210,27 @@ public class GmailService {
 
 			if (allEmails.isEmpty()) {
 				logger.info("No new emails found to process");
+				saveLastHistoryId(syncedHistoryId);
 				refreshTrackingService.completeOperationSuccessfully(RefreshType.GMAIL_SYNC, operationId,
 						"No new emails found to process");
 				systemStatusService.updateLastScrapeTime();
 				return allSuccessfullyProcessedMessageIds;
 			}
 
-			// Step 3: Process each email against all accounts
+			// Step 3: Run each email through the fetch/parse/extract pipeline and persist results in order
 			int totalEmails = allEmails.size();
-			int processedEmails = 0;
-			int totalTransactionsCreated = 0;
-
 			refreshTrackingService.updateOperationProgress(RefreshType.GMAIL_SYNC, operationId,
 					RefreshJobStatus.PROCESSING_IN_PROGRESS,
 					"Processing " + totalEmails + " emails", 0, Optional.of(totalEmails));
 
-			for (Message emailSummary : allEmails) {
-				String messageId = emailSummary.getId();
-				logger.info("Processing email {}", messageId);
-				processedEmails++;
-
-				try {
-					// Check if email was already processed globally
-					// if (processedGmailMessagesTrackerService.isEmailProcessed(messageId)) {
-					// 	// Check if there are any unprocessed accounts for this email
-					// 	Set<String> allAccountNumbers = supportedAccounts.stream()
-					// 			.map(Account::getAccountNumber)
-					// 			.collect(Collectors.toSet());
-					// 	Set<String> unprocessedAccounts = processedGmailMessagesTrackerService
-					// 			.getUnprocessedAccountsForEmail(messageId, allAccountNumbers);
-
-					// 	if (unprocessedAccounts.isEmpty()) {
-					// 		logger.debug("Email {} already fully processed for all accounts", messageId);
-					// 		continue;
-					// 	} else {
-					// 		logger.info("Email {} partially processed, processing for {} remaining accounts",
-					// 				messageId, unprocessedAccounts.size());
-					// 	}
-					// }
-
-					// Process this email
-					int transactionsFromEmail = processEmailForAllSupportedAccounts(service, emailSummary, supportedAccounts, operationId);
-					totalTransactionsCreated += transactionsFromEmail;
-
-					if (transactionsFromEmail > 0) {
-						allSuccessfullyProcessedMessageIds.add(messageId);
-					}
-
-				} catch (Exception e) {
-					logger.error("Error processing email {}: {}", messageId, e.getMessage(), e);
-					// Continue processing other emails
-				}
-
-				// Update progress
-				refreshTrackingService.updateOperationProgress(RefreshType.GMAIL_SYNC, operationId,
-						RefreshJobStatus.PROCESSING_IN_PROGRESS,
-						"Processed email " + processedEmails + "/" + totalEmails + " (" + totalTransactionsCreated + " transactions created)",
-						processedEmails, Optional.of(totalEmails));
+			List<String> retryMessageIds = new ArrayList<>();
+			int totalTransactionsCreated = processEmails(service, allEmails, supportedAccounts, operationId,
+					allSuccessfullyProcessedMessageIds, retryMessageIds);
+			if (retryMessageIds.isEmpty()) {
+				saveLastHistoryId(syncedHistoryId);
+			} else {
+				// Keep the old history checkpoint so these emails are listed again next sync
+				logger.warn("{} emails could not be processed and will be retried: {}", retryMessageIds.size(), retryMessageIds);
 			}
 
 			String completionMessage = String.format(
@@ -222,11 +244,205 @@ public class GmailService {
 			logger.error("Unexpected error during Gmail sync: {}", e.getMessage(), e);
 			refreshTrackingService.failOperation(RefreshType.GMAIL_SYNC, operationId,
 					"Unexpected error: " + e.getMessage());
+		} finally {
+			processedGmailMessagesTrackerService.releaseProcessedIndex();
 		}
 
 		return allSuccessfullyProcessedMessageIds;
 	}
 
+	/** Emails to process (oldest first) and the mailbox historyId they are current up to. */
+	record NewEmails(List<Message> messages, BigInteger historyId) {
+	}
+
+	/**
+	 * Lists the emails that still need processing. When a historyId from a previous sync is
+	 * stored, only messages added since then are listed via {@code users.history.list}; a
+	 * sync with nothing new is then a single API call. Without a stored id, when a forced
+	 * lookback is pending, or when Gmail no longer has the history (404), the date-window
+	 * query is used instead.
+	 */
+	NewEmails fetchNewEmails(Gmail service, List<Account> supportedAccounts) throws IOException {
+		BigInteger startHistoryId = incrementalHistoryEnabled ? readLastHistoryId() : null;
+		if (startHistoryId != null) {
+			try {
+				return fetchEmailsAddedSince(service, startHistoryId, supportedAccounts);
+			} catch (GoogleJsonResponseException e) {
+				if (e.getStatusCode() != 404) {
+					throw e;
+				}
+				logger.info("Gmail history from id {} has expired, falling back to a full query", startHistoryId);
+			}
+		}
+		// Read the checkpoint before listing so nothing that arrives meanwhile is skipped next time
+		BigInteger historyId = incrementalHistoryEnabled ? service.users().getProfile(USER_ID).execute().getHistoryId() : null;
+		return new NewEmails(fetchAllRelevantEmails(service, supportedAccounts), historyId);
+	}
+
+	private NewEmails fetchEmailsAddedSince(Gmail service, BigInteger startHistoryId, List<Account> supportedAccounts) throws IOException {
+		logger.info("Listing Gmail history since id {}", startHistoryId);
+		Set<String> addedMessageIds = new LinkedHashSet<>();
+		BigInteger latestHistoryId = startHistoryId;
+		String nextPageToken = null;
+		do {
+			ListHistoryResponse response = service.users().history().list(USER_ID)
+					.setStartHistoryId(startHistoryId)
+					.setHistoryTypes(List.of("messageAdded"))
+					.setPageToken(nextPageToken)
+					.execute();
+			if (response.getHistory() != null) {
+				for (History history : response.getHistory()) {
+					if (history.getMessagesAdded() == null) {
+						continue;
+					}
+					history.getMessagesAdded().stream()
+							.map(HistoryMessageAdded::getMessage)
+							.filter(message -> message != null && message.getId() != null)
+							.forEach(message -> addedMessageIds.add(message.getId()));
+				}
+			}
+			if (response.getHistoryId() != null) {
+				latestHistoryId = response.getHistoryId();
+			}
+			nextPageToken = response.getNextPageToken();
+		} while (nextPageToken != null);
+
+		if (addedMessageIds.isEmpty()) {
+			return new NewEmails(new ArrayList<>(), latestHistoryId);
+		}
+
+		// History entries carry no headers; keep only messages from the supported senders
+		Set<String> senderEmails = collectSenderEmails(supportedAccounts);
+		Set<String> deletedIds = new HashSet<>();
+		Map<String, Message> metadata = messageBatchFetcher.fetchMetadata(service, new ArrayList<>(addedMessageIds), deletedIds);
+		List<Message> relevantMessages = new ArrayList<>();
+		for (String messageId : addedMessageIds) {
+			Message message = metadata.get(messageId);
+			if (message == null) {
+				// The metadata fetch failed transiently: keep the id so the pre-filter and the
+				// full fetch decide, rather than skipping it past the history checkpoint
+				if (!deletedIds.contains(messageId)) {
+					relevantMessages.add(new Message().setId(messageId));
+				}
+			} else if (isFromAnySender(message, senderEmails)) {
+				relevantMessages.add(message);
+			}
+		}
+		logger.info("{} of {} messages added since history id {} are from supported senders",
+				relevantMessages.size(), addedMessageIds.size(), startHistoryId);
+		// History is returned in chronological order, which is already oldest first
+		return new NewEmails(relevantMessages, latestHistoryId);
+	}
+
+	/**
+	 * Cheap first phase of the fetch: drops emails already processed for every supported
+	 * account (one tracker query per chunk of ids) and emails that do not look like a
+	 * transaction alert or statement. The sender is already filtered by the listing (the
+	 * {@code from:} query, or the header check of the history path); this phase uses the
+	 * Subject header and the snippet of the metadata-format message to drop promotional
+	 * mail from those same senders before it is downloaded in full. Emails whose metadata
+	 * could not be fetched are kept so the full fetch decides; only emails Gmail reports
+	 * as deleted are dropped.
+	 */
+	List<Message> prefilterByMetadata(Gmail service, List<Message> emails, List<Account> supportedAccounts) {
+		if (emails.isEmpty()) {
+			return emails;
+		}
+		Set<String> accountNumbers = supportedAccounts.stream().map(Account::getAccountNumber).collect(Collectors.toSet());
+		Set<String> alreadyProcessed = processedGmailMessagesTrackerService.findMessagesProcessedForAllAccounts(
+				emails.stream().map(Message::getId).collect(Collectors.toList()), accountNumbers);
+		List<Message> unprocessed = emails.stream()
+				.filter(message -> !alreadyProcessed.contains(message.getId()))
+				.collect(Collectors.toList());
+
+		// Messages listed from history already carry their headers and snippet
+		List<String> idsWithoutHeaders = unprocessed.stream()
+				.filter(message -> message.getPayload() == null || message.getPayload().getHeaders() == null)
+				.map(Message::getId)
+				.collect(Collectors.toList());
+		Set<String> deletedIds = new HashSet<>();
+		Map<String, Message> metadata = idsWithoutHeaders.isEmpty()
+				? Collections.emptyMap()
+				: messageBatchFetcher.fetchMetadata(service, idsWithoutHeaders, deletedIds);
+
+		List<Message> relevant = new ArrayList<>(unprocessed.size());
+		for (Message message : unprocessed) {
+			if (deletedIds.contains(message.getId())) {
+				continue;
+			}
+			Message withHeaders = metadata.getOrDefault(message.getId(), message);
+			if (mayBeTransactionAlert(withHeaders, supportedAccounts)) {
+				relevant.add(withHeaders);
+			}
+		}
+		logger.info("Metadata pre-filter kept {} of {} emails ({} already processed, {} not transaction alerts)",
+				relevant.size(), emails.size(), emails.size() - unprocessed.size(), unprocessed.size() - relevant.size());
+		return relevant;
+	}
+
+	/**
+	 * Relevance rule of the metadata pre-filter: an email is kept when its subject or
+	 * snippet has transaction or alert wording, or mentions one of the supported account
+	 * numbers. Emails without a subject and snippet (e.g. metadata that could not be
+	 * fetched) are kept, since there is nothing to decide on.
+	 */
+	private boolean mayBeTransactionAlert(Message message, List<Account> supportedAccounts) {
+		String subject = headerValue(message, "Subject");
+		String snippet = message.getSnippet();
+		if ((subject == null || subject.isBlank()) && (snippet == null || snippet.isBlank())) {
+			return true;
+		}
+		String text = (subject != null ? subject : "") + " " + (snippet != null ? snippet : "");
+		return TRANSACTION_WORDING.matcher(text).find()
+				|| !accountMatchingService.findAccountsByNumbers(text, supportedAccounts).isEmpty();
+	}
+
+	private static boolean isFromAnySender(Message message, Set<String> senderEmails) {
+		String from = headerValue(message, "From");
+		if (from == null) {
+			return false;
+		}
+		String normalizedFrom = from.toLowerCase(Locale.ROOT);
+		return senderEmails.stream().anyMatch(sender -> normalizedFrom.contains(sender.toLowerCase(Locale.ROOT)));
+	}
+
+	private static String headerValue(Message message, String name) {
+		if (message.getPayload() == null || message.getPayload().getHeaders() == null) {
+			return null;
+		}
+		return message.getPayload().getHeaders().stream()
+				.filter(header -> name.equalsIgnoreCase(header.getName()))
+				.map(MessagePartHeader::getValue)
+				.filter(Objects::nonNull)
+				.findFirst()
+				.orElse(null);
+	}
+
+	private BigInteger readLastHistoryId() {
+		try {
+			// A pending forced lookback needs the date-window query
+			if (credentialsService.getCredential(Constants.FORCE_GMAIL_LOOKBACK_UNTIL_DATE_KEY) != null) {
+				return null;
+			}
+			String value = credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY);
+			return StringUtils.isBlank(value) ? null : new BigInteger(value.trim());
+		} catch (Exception e) {
+			logger.warn("Could not read the last Gmail history id, using a full query: {}", e.getMessage());
+			return null;
+		}
+	}
+
+	private void saveLastHistoryId(BigInteger historyId) {
+		if (historyId == null) {
+			return;
+		}
+		try {
+			credentialsService.saveCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY, historyId.toString());
+		} catch (Exception e) {
+			logger.warn("Could not store Gmail history id {}: {}", historyId, e.getMessage());
+		}
+	}
+
 	/**
 	 * Fetches all relevant emails from Gmail using a unified query.
 	 * This reduces the number of Gmail API calls compared to the account-based approach.
@@ -256,12 +472,10 @@ public class GmailService {
 	}
 
 	/**
-	 * Builds a unified Gmail query that includes all supported email senders.
+	 * Collects all unique sender emails of the supported accounts.
 	 */
-	private String buildUnifiedGmailQuery(List<Account> supportedAccounts) {
+	private Set<String> collectSenderEmails(List<Account> supportedAccounts) {
 		Set<String> allSenderEmails = new HashSet<>();
-
-		// Collect all unique sender emails from all accounts
 		for (Account account : supportedAccounts) {
 			List<String> senderEmails = Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(account.getName());
 			if (senderEmails != null) {
@@ -273,6 +487,14 @@ public class GmailService {
 				allSenderEmails.addAll(bankEmails);
 			}
 		}
+		return allSenderEmails;
+	}
+
+	/**
+	 * Builds a unified Gmail query that includes all supported email senders.
+	 */
+	private String buildUnifiedGmailQuery(List<Account> supportedAccounts) {
+		Set<String> allSenderEmails = collectSenderEmails(supportedAccounts);
 
 		StringBuilder queryBuilder = new StringBuilder("from:{");
 		queryBuilder.append(String.join(" OR ", allSenderEmails));
@@ -320,168 +542,493 @@ public class GmailService {
 	}
 
 	/**
-	 * Processes a single email against all relevant accounts.
-	 * This is the core method of the new email-based approach.
+	 * Pushes the emails (oldest first) through the staged pipeline: fetch, parse/match and
+	 * extract run concurrently on their own pools, while the persist stage runs on the
+	 * calling thread and consumes results strictly in the original order. At most
+	 * {@code myfi.gmail.sync.max-in-flight} emails are being prepared at any time, which
+	 * bounds memory and keeps the pools from racing too far ahead of the writer.
+	 *
+	 * @return the number of transactions created
 	 */
-	private int processEmailForAllSupportedAccounts(Gmail service, Message emailSummary, List<Account> supportedAccounts, String operationId) {
-		String messageId = emailSummary.getId();
-		int transactionsCreated = 0;
-		Set<String> processedAccountNumbers = new HashSet<>();
+	int processEmails(Gmail service, List<Message> emails, List<Account> supportedAccounts, String operationId,
+			List<String> successfullyProcessedMessageIds) {
+		return processEmails(service, emails, supportedAccounts, operationId, successfullyProcessedMessageIds, new ArrayList<>());
+	}
 
+	/**
+	 * @param retryMessageIds collects emails that failed for a transient reason (fetch or
+	 *        extraction error) and were left unmarked so a later sync picks them up again
+	 */
+	int processEmails(Gmail service, List<Message> emails, List<Account> supportedAccounts, String operationId,
+			List<String> successfullyProcessedMessageIds, List<String> retryMessageIds) {
+		int maxInFlight = Math.max(1, syncMaxInFlight);
+		int totalEmails = emails.size();
+		int processedEmails = 0;
+		int totalTransactionsCreated = 0;
+
+		Deque<CompletableFuture<PreparedEmail>> inFlight = new ArrayDeque<>();
+		Iterator<Message> pending = emails.iterator();
+		PersistBatch batch = new PersistBatch();
 		try {
-			// Fetch full email content
-			Message fullMessage = service.users().messages().get(USER_ID, messageId).setFormat("full").execute();
-			LocalDateTime messageDateTime = null;
-			if (fullMessage.getInternalDate() != null) {
-				messageDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(fullMessage.getInternalDate()), ZoneOffset.UTC);
-			}
+			while (true) {
+				while (pending.hasNext() && inFlight.size() < maxInFlight) {
+					// Fetch a group of emails per batch request, bounded by the free window slots
+					int groupSize = Math.min(messageBatchFetcher.getBatchSize(), maxInFlight - inFlight.size());
+					List<Message> group = new ArrayList<>(groupSize);
+					while (pending.hasNext() && group.size() < groupSize) {
+						group.add(pending.next());
+					}
+					inFlight.addAll(prepareEmailsAsync(service, group, supportedAccounts));
+				}
+				if (inFlight.isEmpty()) {
+					break;
+				}
 
-			// Extract clean text from email
-			String cleanTextBody = emailParser.extractTextFromMessage(fullMessage);
-			if (StringUtils.isBlank(cleanTextBody)) {
-				logger.warn("Could not extract clean text body for message ID: {}", messageId);
-				return 0;
+				PreparedEmail prepared = inFlight.pollFirst().join();
+				processedEmails++;
+				if (prepared.needsRetry) {
+					retryMessageIds.add(prepared.messageId);
+				}
+				totalTransactionsCreated += persistPreparedEmail(prepared, batch, successfullyProcessedMessageIds);
+				if (batch.marks.size() >= Math.max(1, syncPersistBatchSize)) {
+					flushProcessedMarks(batch);
+				}
+
+				refreshTrackingService.updateOperationProgress(RefreshType.GMAIL_SYNC, operationId,
+						RefreshJobStatus.PROCESSING_IN_PROGRESS,
+						"Processed email " + processedEmails + "/" + totalEmails + " (" + totalTransactionsCreated + " transactions created)",
+						processedEmails, Optional.of(totalEmails));
 			}
+			totalTransactionsCreated += flushTransactionBatch(batch, successfullyProcessedMessageIds);
+		} finally {
+			inFlight.forEach(future -> future.cancel(true));
+			// Keep the marks of emails already handled if the sync stops early
+			flushProcessedMarks(batch);
+		}
+		return totalTransactionsCreated;
+	}
 
-			cleanTextBody = cleanTextBody.replaceAll("\\s", " ");
-			logger.debug("Processing email {} with content length: {}", messageId, cleanTextBody.length());
+	/**
+	 * Runs the read-only stages for a group of emails. The full messages are fetched with
+	 * one Gmail batch request; parsing then runs per email. Extraction runs per email too,
+	 * unless batch extraction is enabled, in which case the whole group is extracted together
+	 * once it has been parsed. The returned futures never complete exceptionally: failures
+	 * are captured in the {@link PreparedEmail} so the persist stage can keep going.
+	 */
+	private List<CompletableFuture<PreparedEmail>> prepareEmailsAsync(Gmail service, List<Message> emailSummaries, List<Account> supportedAccounts) {
+		List<String> messageIds = emailSummaries.stream().map(Message::getId).collect(Collectors.toList());
+		CompletableFuture<Map<String, Message>> fetched = CompletableFuture
+				.supplyAsync(() -> messageBatchFetcher.fetchMessages(service, messageIds, "full"), gmailFetchExecutor);
+
+		List<CompletableFuture<PreparedEmail>> parsed = new ArrayList<>(messageIds.size());
+		for (String messageId : messageIds) {
+			parsed.add(fetched
+					.thenApply(messages -> fullMessageOrFail(messages, messageId))
+					.thenApplyAsync(fullMessage -> parseAndMatch(messageId, fullMessage, supportedAccounts), gmailParseExecutor));
+		}
 
-			// Find all accounts that match this email content
-			List<Account> matchingAccounts = accountMatchingService.findMatchingAccounts(cleanTextBody, supportedAccounts);
-			Set<String> matchingAccountNumbers = matchingAccounts.stream().map(Account::getAccountNumber).collect(Collectors.toSet());
-			
-			Set<String> nonMatchingAccountNumbers = supportedAccounts.stream().map(Account::getAccountNumber).collect(Collectors.toSet());
-			nonMatchingAccountNumbers.removeAll(matchingAccountNumbers);
-			processedGmailMessagesTrackerService.markEmailProcessedForAccounts(messageId, nonMatchingAccountNumbers, messageDateTime, 0);
+		CompletableFuture<Void> groupExtracted = null;
+		if (emailDetailsExtractionService.isBatchExtractionEnabled()) {
+			groupExtracted = CompletableFuture.allOf(parsed.toArray(new CompletableFuture[0]))
+					.handleAsync((ignored, e) -> {
+						extractDetails(parsed.stream().filter(future -> !future.isCompletedExceptionally())
+								.map(CompletableFuture::join).collect(Collectors.toList()));
+						return null;
+					}, gmailExtractExecutor);
+		}
 
-			if (matchingAccounts.isEmpty()) {
-				logger.debug("No matching accounts found for email {}. Non-matching accounts: {}", messageId, nonMatchingAccountNumbers);
-				return 0;
-			}
+		List<CompletableFuture<PreparedEmail>> futures = new ArrayList<>(messageIds.size());
+		for (int i = 0; i < messageIds.size(); i++) {
+			String messageId = messageIds.get(i);
+			CompletableFuture<PreparedEmail> parsedEmail = parsed.get(i);
+			CompletableFuture<PreparedEmail> extracted = groupExtracted == null
+					? parsedEmail.thenApplyAsync(this::extractDetails, gmailExtractExecutor)
+					: groupExtracted.thenCompose(ignored -> parsedEmail);
+			futures.add(extracted.exceptionally(e -> {
+				Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+				logger.error("Error processing email {}: {}", messageId, cause.getMessage(), cause);
+				return PreparedEmail.failed(messageId);
+			}));
+		}
+		return futures;
+	}
 
-			// Filter out accounts that have already processed this email
-			
-			Set<String> unprocessedAccountNumbers = processedGmailMessagesTrackerService.getUnprocessedAccountsForEmail(messageId, matchingAccountNumbers);
+	private Message fullMessageOrFail(Map<String, Message> fetchedMessages, String messageId) {
+		Message fullMessage = fetchedMessages.get(messageId);
+		if (fullMessage == null) {
+			throw new IllegalStateException("Could not fetch email " + messageId);
+		}
+		logger.info("Processing email {}", messageId);
+		return fullMessage;
+	}
 
-			// If there are no accounts left to process for this email, skip it.
-			if (unprocessedAccountNumbers.isEmpty()) {
-				logger.debug("All matching accounts have already processed email {}. Skipping.", messageId);
-				return 0;
-			}
+	/**
+	 * Parse stage: extracts the clean text and works out which accounts still need this
+	 * email. Only reads from the database; all writes are left to the persist stage.
+	 */
+	private PreparedEmail parseAndMatch(String messageId, Message fullMessage, List<Account> supportedAccounts) {
+		PreparedEmail prepared = new PreparedEmail(messageId);
+		prepared.from = headerValue(fullMessage, "From");
+		if (fullMessage.getInternalDate() != null) {
+			prepared.messageDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(fullMessage.getInternalDate()), ZoneOffset.UTC);
+		}
 
-			// If the list of unprocessed accounts is smaller than the list of matching accounts,
-			// it means some have been processed. We filter the list to only include the unprocessed ones.
-			if (unprocessedAccountNumbers.size() < matchingAccountNumbers.size()) {
-				logger.info("Filtering matching accounts for email {}. Before: {}, After: {}", 
-					messageId, matchingAccounts.size(), unprocessedAccountNumbers.size());
-				matchingAccounts = matchingAccounts.stream()
-					.filter(acc -> unprocessedAccountNumbers.contains(acc.getAccountNumber()))
-					.collect(Collectors.toList());
+		// Extract clean text from email: decoded, stripped of markup and whitespace-collapsed in one pass
+		NormalizedEmailText emailText = emailParser.extractNormalizedText(fullMessage);
+		if (emailText == null || emailText.isBlank()) {
+			logger.warn("Could not extract clean text body for message ID: {}", messageId);
+			return prepared;
+		}
+
+		logger.debug("Processing email {} with content length: {}", messageId, emailText.getText().length());
+		prepared.cleanTextBody = emailText.getText();
+
+		// Find all accounts that match this email content
+		List<Account> matchingAccounts = accountMatchingService.findMatchingAccounts(emailText, supportedAccounts);
+		prepared.matchingAccountNumbers = matchingAccounts.stream().map(Account::getAccountNumber).collect(Collectors.toSet());
+
+		prepared.nonMatchingAccountNumbers = supportedAccounts.stream().map(Account::getAccountNumber).collect(Collectors.toSet());
+		prepared.nonMatchingAccountNumbers.removeAll(prepared.matchingAccountNumbers);
+
+		if (matchingAccounts.isEmpty()) {
+			logger.debug("No matching accounts found for email {}. Non-matching accounts: {}", messageId, prepared.nonMatchingAccountNumbers);
+			return prepared;
+		}
+
+		// Filter out accounts that have already processed this email
+		Set<String> unprocessedAccountNumbers = processedGmailMessagesTrackerService.getUnprocessedAccountsForEmail(messageId, prepared.matchingAccountNumbers);
+
+		// If there are no accounts left to process for this email, skip it.
+		if (unprocessedAccountNumbers.isEmpty()) {
+			logger.debug("All matching accounts have already processed email {}. Skipping.", messageId);
+			return prepared;
+		}
+
+		// If the list of unprocessed accounts is smaller than the list of matching accounts,
+		// it means some have been processed. We filter the list to only include the unprocessed ones.
+		if (unprocessedAccountNumbers.size() < prepared.matchingAccountNumbers.size()) {
+			logger.info("Filtering matching accounts for email {}. Before: {}, After: {}",
+				messageId, matchingAccounts.size(), unprocessedAccountNumbers.size());
+			matchingAccounts = matchingAccounts.stream()
+				.filter(acc -> unprocessedAccountNumbers.contains(acc.getAccountNumber()))
+				.collect(Collectors.toList());
+		}
+
+		logger.info("Email {} matches {} accounts: {}", messageId, matchingAccounts.size(),
+				matchingAccounts.stream().map(Account::getName).collect(Collectors.toList()));
+		prepared.accountsToProcess = matchingAccounts;
+		return prepared;
+	}
+
+	/**
+	 * Extract stage: calls the LLM and maps the result to one transaction per account.
+	 * Mapping may call the currency conversion service, so it runs here rather than on
+	 * the writer thread.
+	 */
+	private PreparedEmail extractDetails(PreparedEmail prepared) {
+		if (prepared.accountsToProcess.isEmpty()) {
+			return prepared;
+		}
+
+		// Extract transaction details using AI
+		Optional<ExtractedDetailsFromEmail> extractedDetails;
+		try {
+			extractedDetails = emailDetailsExtractionService.extractDetails(prepared.from, prepared.cleanTextBody);
+		} catch (Exception e) {
+			markForRetry(prepared, e);
+			return prepared;
+		} finally {
+			prepared.cleanTextBody = null; // no longer needed, don't hold it while waiting to be persisted
+		}
+		return applyExtractedDetails(prepared, extractedDetails);
+	}
+
+	/** Extract stage for a whole group of parsed emails, used when batch extraction is enabled. */
+	private void extractDetails(List<PreparedEmail> group) {
+		List<PreparedEmail> toExtract = group.stream().filter(prepared -> !prepared.accountsToProcess.isEmpty()).collect(Collectors.toList());
+		if (toExtract.isEmpty()) {
+			return;
+		}
+		List<Optional<ExtractedDetailsFromEmail>> extractedDetails;
+		try {
+			extractedDetails = emailDetailsExtractionService.extractDetails(toExtract.stream()
+					.map(prepared -> new EmailDetailsExtractionService.EmailText(prepared.from, prepared.cleanTextBody))
+					.collect(Collectors.toList()));
+		} catch (Exception e) {
+			toExtract.forEach(prepared -> markForRetry(prepared, e));
+			return;
+		} finally {
+			toExtract.forEach(prepared -> prepared.cleanTextBody = null);
+		}
+		for (int i = 0; i < toExtract.size(); i++) {
+			applyExtractedDetails(toExtract.get(i), extractedDetails.get(i));
+		}
+	}
+
+	// Leave the matching accounts unmarked so the email is picked up again next sync
+	private void markForRetry(PreparedEmail prepared, Exception e) {
+		logger.error("Unexpected error processing email {}: {}", prepared.messageId, e.getMessage(), e);
+		prepared.accountsToProcess = new ArrayList<>();
+		prepared.needsRetry = true;
+	}
+
+	private PreparedEmail applyExtractedDetails(PreparedEmail prepared, Optional<ExtractedDetailsFromEmail> extractedDetails) {
+		String messageId = prepared.messageId;
+		if (extractedDetails.isEmpty()) {
+			logger.warn("Could not extract transaction details from message ID: {}", messageId);
+			return prepared;
+		}
+
+		ExtractedDetailsFromEmail details = extractedDetails.get();
+		logger.debug("Extracted details from email {}: type={}, successful={}", messageId, details.getEmailType(), details.isTransactionSuccessful());
+
+		// Safeguard 1: Validate Transaction Date
+		if (prepared.messageDateTime != null) {
+			java.time.LocalDate aiDate = details.getTransactionDate();
+			java.time.LocalDate emailDate = prepared.messageDateTime.toLocalDate();
+			long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(aiDate, emailDate);
+
+			if (Math.abs(daysBetween) > 1) {
+				logger.warn("AI-extracted date {} is more than 1 day away from email received date {}. Overriding with email date.", aiDate, emailDate);
+				details.setTransactionDate(emailDate);
 			}
+		}
+		prepared.details = details;
 
-			logger.info("Email {} matches {} accounts: {}", messageId, matchingAccounts.size(),
-					matchingAccounts.stream().map(Account::getName).collect(Collectors.toList()));
-
-			// Extract transaction details using AI
-			Optional<ExtractedDetailsFromEmail> extractedDetails = openAIService.extractDetailsFromEmail(cleanTextBody);
-			if (extractedDetails.isEmpty()) {
-				logger.warn("Could not extract transaction details from message ID: {}", messageId);
-				// Still mark as processed for all matching accounts to avoid reprocessing
-				Set<String> accountNumbers = matchingAccounts.stream()
-						.map(Account::getAccountNumber)
-						.collect(Collectors.toSet());
-				processedGmailMessagesTrackerService.markEmailProcessedForAccounts(messageId, accountNumbers, messageDateTime, 0);
-				return 0;
+		if (details.getEmailType() == EmailType.TRANSACTION_INFORMATION && details.isTransactionSuccessful()) {
+			for (Account matchingAccount : prepared.accountsToProcess) {
+				try {
+					Transaction transaction = mapExtractedTransactionDetailsToTransactionForAccount(messageId, details, matchingAccount);
+					if (transaction != null) {
+						prepared.transactionsByAccountNumber.put(matchingAccount.getAccountNumber(), transaction);
+					}
+					prepared.processedAccountNumbers.add(matchingAccount.getAccountNumber());
+				} catch (IllegalArgumentException e) {
+					logger.warn("Failed to save transaction (duplicate/validation) for message ID {} and account {}: {}",
+							messageId, matchingAccount.getName(), e.getMessage());
+					prepared.processedAccountNumbers.add(matchingAccount.getAccountNumber());
+				} catch (Exception e) {
+					logger.error("Error saving transaction for message ID {} and account {}: {}",
+							messageId, matchingAccount.getName(), e.getMessage(), e);
+					// Don't add to processed accounts if there was an error
+				}
 			}
+		}
+		return prepared;
+	}
 
-			ExtractedDetailsFromEmail details = extractedDetails.get();
-			logger.debug("Extracted details from email {}: type={}, successful={}", messageId, details.getEmailType(), details.isTransactionSuccessful());
+	/**
+	 * Persist stage for one email, always called on the sync thread in oldest-first order.
+	 * Transaction emails are collected into a batch that is written with one bulk insert;
+	 * the batch is flushed before any balance update so balances are applied in email order.
+	 *
+	 * @return the number of transactions created by batches flushed during this call
+	 */
+	private int persistPreparedEmail(PreparedEmail prepared, PersistBatch batch, List<String> successfullyProcessedMessageIds) {
+		if (prepared.failed || prepared.nonMatchingAccountNumbers == null) {
+			return 0;
+		}
+		String messageId = prepared.messageId;
+		batch.mark(messageId, prepared.nonMatchingAccountNumbers, prepared.messageDateTime, 0);
+		if (prepared.accountsToProcess.isEmpty()) {
+			return 0;
+		}
+
+		Set<String> accountNumbers = prepared.accountsToProcess.stream()
+				.map(Account::getAccountNumber)
+				.collect(Collectors.toSet());
+		ExtractedDetailsFromEmail details = prepared.details;
+		if (details == null) {
+			// Still mark as processed for all matching accounts to avoid reprocessing
+			batch.mark(messageId, accountNumbers, prepared.messageDateTime, 0);
+			return 0;
+		}
 
-			// Safeguard 1: Validate Transaction Date
-			if (messageDateTime != null) {
-				java.time.LocalDate aiDate = details.getTransactionDate();
-				java.time.LocalDate emailDate = messageDateTime.toLocalDate();
-				long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(aiDate, emailDate);
+		if (details.getEmailType() == EmailType.TRANSACTION_INFORMATION && details.isTransactionSuccessful()) {
+			batch.emails.add(prepared);
+			if (batch.transactionCount() >= Math.max(1, syncPersistBatchSize)) {
+				return flushTransactionBatch(batch, successfullyProcessedMessageIds);
+			}
+			return 0;
+		}
 
-				if (Math.abs(daysBetween) > 1) {
-					logger.warn("AI-extracted date {} is more than 1 day away from email received date {}. Overriding with email date.", aiDate, emailDate);
-					details.setTransactionDate(emailDate);
+		int transactionsCreated = flushTransactionBatch(batch, successfullyProcessedMessageIds);
+		Set<String> processedAccountNumbers = new HashSet<>();
+		if (details.getEmailType() == EmailType.ACCOUNT_BALANCE_INFORMATION) {
+			// Update account balances for matching accounts
+			for (Account matchingAccount : prepared.accountsToProcess) {
+				try {
+					// Validate account number if present in extracted details
+					String extractedAccountNumber = details.getAccountNumber();
+					if (extractedAccountNumber != null && extractedAccountNumber.length() >= 4) {
+						String extractedLast4 = extractedAccountNumber.substring(extractedAccountNumber.length() - 4);
+						String accountLast4 = matchingAccount.getAccountNumber().substring(matchingAccount.getAccountNumber().length() - 4);
+						if (!extractedLast4.equals(accountLast4)) {
+							logger.debug("Skipping balance update for account {} - account number mismatch", matchingAccount.getName());
+							continue;
+						}
+					}
+
+					BigDecimal newBalance = BigDecimal.valueOf(details.getAmount());
+					accountHistoryService.createAccountHistoryRecord(matchingAccount.getId(), newBalance);
+					logger.info("Updated balance for account {} from email {}", matchingAccount.getName(), messageId);
+					processedAccountNumbers.add(matchingAccount.getAccountNumber());
+				} catch (Exception e) {
+					logger.error("Error updating balance for account {} from email {}: {}",
+							matchingAccount.getName(), messageId, e.getMessage(), e);
 				}
 			}
+		} else {
+			logger.debug("Email {} is not a successful transaction or balance update: type={}, successful={}",
+					messageId, details.getEmailType(), details.isTransactionSuccessful());
+			// Still mark as processed to avoid reprocessing
+			processedAccountNumbers.addAll(accountNumbers);
+		}
+		markProcessed(prepared, processedAccountNumbers, 0, batch);
+		return transactionsCreated;
+	}
 
+	/**
+	 * Writes all transactions collected in the batch with a single bulk insert, then marks
+	 * each email processed and writes all pending processed-email marks. If the bulk insert
+	 * fails, falls back to one insert per transaction so one bad row only affects its own
+	 * email/account.
+	 */
+	private int flushTransactionBatch(PersistBatch batch, List<String> successfullyProcessedMessageIds) {
+		if (batch.emails.isEmpty()) {
+			flushProcessedMarks(batch);
+			return 0;
+		}
+		List<Transaction> transactions = batch.emails.stream()
+				.flatMap(prepared -> prepared.transactionsByAccountNumber.values().stream())
+				.collect(Collectors.toList());
+		boolean bulkSucceeded = false;
+		if (!transactions.isEmpty()) {
+			try {
+				transactionService.createTransactions(transactions);
+				bulkSucceeded = true;
+				logger.info("Created {} transactions from {} emails", transactions.size(), batch.emails.size());
+			} catch (Exception e) {
+				logger.warn("Bulk insert of {} transactions failed, retrying one by one: {}", transactions.size(), e.getMessage());
+				// The bulk insert was rolled back; drop any ids it assigned so each row is inserted afresh
+				transactions.forEach(transaction -> transaction.setId(null));
+			}
+		}
 
-			// Process based on email type
-			if (details.getEmailType() == EmailType.TRANSACTION_INFORMATION && details.isTransactionSuccessful()) {
-				// Create transactions for matching accounts
-				for (Account matchingAccount : matchingAccounts) {
+		int transactionsCreated = 0;
+		for (PreparedEmail prepared : batch.emails) {
+			Set<String> processedAccountNumbers = new HashSet<>(prepared.processedAccountNumbers);
+			int createdForEmail = 0;
+			for (Map.Entry<String, Transaction> entry : prepared.transactionsByAccountNumber.entrySet()) {
+				if (!bulkSucceeded) {
 					try {
-						Transaction transaction = mapExtractedTransactionDetailsToTransactionForAccount(messageId, details, matchingAccount);
-						if (transaction != null) {
-							Transaction savedTransaction = transactionService.createTransaction(transaction);
-							logger.info("Created transaction {} for email {} and account {}", 
-									savedTransaction.getId(), messageId, matchingAccount.getName());
-							transactionsCreated++;
-						}
-						processedAccountNumbers.add(matchingAccount.getAccountNumber());
+						Transaction savedTransaction = transactionService.createTransaction(entry.getValue());
+						logger.info("Created transaction {} for email {} and account {}",
+								savedTransaction.getId(), prepared.messageId, entry.getKey());
 					} catch (IllegalArgumentException e) {
-						logger.warn("Failed to save transaction (duplicate/validation) for message ID {} and account {}: {}", 
-								messageId, matchingAccount.getName(), e.getMessage());
-						processedAccountNumbers.add(matchingAccount.getAccountNumber());
+						logger.warn("Failed to save transaction (duplicate/validation) for message ID {} and account {}: {}",
+								prepared.messageId, entry.getKey(), e.getMessage());
+						continue;
 					} catch (Exception e) {
-						logger.error("Error saving transaction for message ID {} and account {}: {}", 
-								messageId, matchingAccount.getName(), e.getMessage(), e);
+						logger.error("Error saving transaction for message ID {} and account {}: {}",
+								prepared.messageId, entry.getKey(), e.getMessage(), e);
 						// Don't add to processed accounts if there was an error
+						processedAccountNumbers.remove(entry.getKey());
+						continue;
 					}
 				}
-			} else if (details.getEmailType() == EmailType.ACCOUNT_BALANCE_INFORMATION) {
-				// Update account balances for matching accounts
-				for (Account matchingAccount : matchingAccounts) {
-					try {
-						// Validate account number if present in extracted details
-						String extractedAccountNumber = details.getAccountNumber();
-						if (extractedAccountNumber != null && extractedAccountNumber.length() >= 4) {
-							String extractedLast4 = extractedAccountNumber.substring(extractedAccountNumber.length() - 4);
-							String accountLast4 = matchingAccount.getAccountNumber().substring(matchingAccount.getAccountNumber().length() - 4);
-							if (!extractedLast4.equals(accountLast4)) {
-								logger.debug("Skipping balance update for account {} - account number mismatch", matchingAccount.getName());
-								continue;
-							}
-						}
-
-						BigDecimal newBalance = BigDecimal.valueOf(details.getAmount());
-						accountHistoryService.createAccountHistoryRecord(matchingAccount.getId(), newBalance);
-						logger.info("Updated balance for account {} from email {}", matchingAccount.getName(), messageId);
-						processedAccountNumbers.add(matchingAccount.getAccountNumber());
-					} catch (Exception e) {
-						logger.error("Error updating balance for account {} from email {}: {}", 
-								matchingAccount.getName(), messageId, e.getMessage(), e);
-					}
-				}
-			} else {
-				logger.debug("Email {} is not a successful transaction or balance update: type={}, successful={}", 
-						messageId, details.getEmailType(), details.isTransactionSuccessful());
-				// Still mark as processed to avoid reprocessing
-				processedAccountNumbers = matchingAccounts.stream()
-						.map(Account::getAccountNumber)
-						.collect(Collectors.toSet());
+				createdForEmail++;
 			}
-
-			// Mark email as processed for all relevant accounts
-			if (!processedAccountNumbers.isEmpty()) {
-				processedGmailMessagesTrackerService.markEmailProcessedForAccounts(messageId, processedAccountNumbers, messageDateTime, transactionsCreated);
+			if (createdForEmail > 0) {
+				successfullyProcessedMessageIds.add(prepared.messageId);
 			}
-			// Mark the email as processed for all accounts that were not processed
-			Set<String> unProcessedMatchingAccountNumbers = new HashSet<>(matchingAccountNumbers);
-			unProcessedMatchingAccountNumbers.removeAll(processedAccountNumbers);
-			processedGmailMessagesTrackerService.markEmailProcessedForAccounts(messageId, unProcessedMatchingAccountNumbers, messageDateTime, transactionsCreated);
+			markProcessed(prepared, processedAccountNumbers, createdForEmail, batch);
+			transactionsCreated += createdForEmail;
+		}
+		batch.emails.clear();
+		flushProcessedMarks(batch);
+		return transactionsCreated;
+	}
 
-		} catch (IOException e) {
-			logger.error("IOException fetching/processing email {}: {}", messageId, e.getMessage(), e);
+	private void markProcessed(PreparedEmail prepared, Set<String> processedAccountNumbers, int transactionsCreated, PersistBatch batch) {
+		// Mark email as processed for all relevant accounts
+		if (!processedAccountNumbers.isEmpty()) {
+			batch.mark(prepared.messageId, processedAccountNumbers, prepared.messageDateTime, transactionsCreated);
+		}
+		// Mark the email as processed for all accounts that were not processed
+		Set<String> unProcessedMatchingAccountNumbers = new HashSet<>(prepared.matchingAccountNumbers);
+		unProcessedMatchingAccountNumbers.removeAll(processedAccountNumbers);
+		batch.mark(prepared.messageId, unProcessedMatchingAccountNumbers, prepared.messageDateTime, transactionsCreated);
+	}
+
+	/**
+	 * Writes the pending processed-email marks with one batched update. If that fails, falls
+	 * back to one update per mark, as those handle conflicting writers themselves.
+	 */
+	private void flushProcessedMarks(PersistBatch batch) {
+		if (batch.marks.isEmpty()) {
+			return;
+		}
+		try {
+			processedGmailMessagesTrackerService.markEmailsProcessed(new ArrayList<>(batch.marks));
 		} catch (Exception e) {
-			logger.error("Unexpected error processing email {}: {}", messageId, e.getMessage(), e);
+			logger.warn("Batched update of {} processed-email marks failed, retrying one by one: {}", batch.marks.size(), e.getMessage());
+			for (ProcessedMark mark : batch.marks) {
+				processedGmailMessagesTrackerService.markEmailProcessedForAccounts(mark.messageId(), mark.accountNumbers(),
+						mark.messageDateTime(), mark.transactionCount());
+			}
 		}
+		batch.marks.clear();
+	}
 
-		return transactionsCreated;
+	/**
+	 * State of one email as it moves through the pipeline. Written by one stage at a
+	 * time; the future chain provides the happens-before between stages.
+	 */
+	private static final class PreparedEmail {
+		private final String messageId;
+		private boolean failed;
+		private boolean needsRetry;
+		private LocalDateTime messageDateTime;
+		private String from;
+		private String cleanTextBody;
+		private Set<String> matchingAccountNumbers = new HashSet<>();
+		private Set<String> nonMatchingAccountNumbers;
+		private List<Account> accountsToProcess = new ArrayList<>();
+		private ExtractedDetailsFromEmail details;
+		private final Map<String, Transaction> transactionsByAccountNumber = new LinkedHashMap<>();
+		private final Set<String> processedAccountNumbers = new HashSet<>();
+
+		private PreparedEmail(String messageId) {
+			this.messageId = messageId;
+		}
+
+		private static PreparedEmail failed(String messageId) {
+			PreparedEmail prepared = new PreparedEmail(messageId);
+			prepared.failed = true;
+			prepared.needsRetry = true;
+			return prepared;
+		}
+	}
+
+	/**
+	 * Transaction emails waiting to be written by the next bulk insert, and processed-email
+	 * marks waiting for the next batched update, both in email order.
+	 */
+	private static final class PersistBatch {
+		private final List<PreparedEmail> emails = new ArrayList<>();
+		private final List<ProcessedMark> marks = new ArrayList<>();
+
+		// Empty account sets are dropped here, as the tracker would skip them anyway
+		private void mark(String messageId, Set<String> accountNumbers, LocalDateTime messageDateTime, int transactionCount) {
+			if (accountNumbers != null && !accountNumbers.isEmpty()) {
+				marks.add(new ProcessedMark(messageId, new HashSet<>(accountNumbers), messageDateTime, transactionCount));
+			}
+		}
+
+		private int transactionCount() {
+			return emails.stream().mapToInt(prepared -> prepared.transactionsByAccountNumber.size()).sum();
+		}
 	}
 
 	/**
@@ -0,0 +1,62 @@
+package com.myfi.mailscraping.service;
+
+/**
+ * Text of an email after normalization: markup removed, entities decoded, every run of
+ * whitespace collapsed to a single space and the ends trimmed. Carries the original-case
+ * text (for the extractors) and a lower-cased copy (for account matching), both produced
+ * by the same pass in {@link EmailParser}.
+ */
+public final class NormalizedEmailText {
+
+    private final String text;
+    private final String lowerCaseText;
+
+    NormalizedEmailText(String text, String lowerCaseText) {
+        this.text = text;
+        this.lowerCaseText = lowerCaseText;
+    }
+
+    /** Normalizes text that did not come through {@link EmailParser}. */
+    public static NormalizedEmailText of(String rawText) {
+        StringBuilder text = new StringBuilder(rawText.length());
+        StringBuilder lowerCaseText = new StringBuilder(rawText.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < rawText.length(); i++) {
+            char c = rawText.charAt(i);
+            if (isWhitespace(c)) {
+                pendingSpace = text.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                text.append(' ');
+                lowerCaseText.append(' ');
+                pendingSpace = false;
+            }
+            text.append(c);
+            lowerCaseText.append(Character.toLowerCase(c));
+        }
+        return new NormalizedEmailText(text.toString(), lowerCaseText.toString());
+    }
+
+    /** The characters matched by regex {@code \s}, plus the no-break space common in HTML mail. */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r' || c == 0x00A0;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getLowerCaseText() {
+        return lowerCaseText;
+    }
+
+    public boolean isBlank() {
+        return text.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,242 @@
+package com.myfi.mailscraping.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs OpenAI requests under a concurrency limit and a token-bucket rate limit, retries
+ * transient failures (429, 5xx, network errors) with exponential backoff and jitter, and
+ * trips a circuit breaker after repeated transient failures.
+ * <p>
+ * While the breaker is open requests fail fast with {@link CircuitOpenException}; once the
+ * open period has passed, a single probe request decides whether it closes. Callers
+ * must treat that, like any other transient failure that survives the retries, as "try
+ * again later" and never as "this email has nothing to extract".
+ */
+@Component
+public class OpenAIRequestExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenAIRequestExecutor.class);
+
+    /** Spring AI's own retry backs off for minutes; retries are handled here instead. */
+    public static final RetryTemplate NO_RETRY = RetryTemplate.builder().maxAttempts(1).build();
+
+    /**
+     * Maps HTTP errors to Spring AI's exception types. Unlike the default handler, which
+     * treats every 4xx as non-transient, rate limiting (429) and timeouts (408) are transient.
+     */
+    public static final ResponseErrorHandler RESPONSE_ERROR_HANDLER = new ResponseErrorHandler() {
+        @Override
+        public boolean hasError(ClientHttpResponse response) throws IOException {
+            return response.getStatusCode().isError();
+        }
+
+        @Override
+        public void handleError(ClientHttpResponse response) throws IOException {
+            int status = response.getStatusCode().value();
+            String message = status + " - " + StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+            if (isRetryableStatus(status)) {
+                throw new TransientAiException(message);
+            }
+            throw new NonTransientAiException(message);
+        }
+    };
+
+    @Value("${myfi.openai.max-concurrent-requests:4}")
+    private int maxConcurrentRequests = 4;
+
+    @Value("${myfi.openai.requests-per-minute:500}")
+    private double requestsPerMinute = 500;
+
+    @Value("${myfi.openai.max-attempts:4}")
+    private int maxAttempts = 4;
+
+    @Value("${myfi.openai.backoff-initial-ms:1000}")
+    private long backoffInitialMs = 1000;
+
+    @Value("${myfi.openai.backoff-max-ms:30000}")
+    private long backoffMaxMs = 30000;
+
+    @Value("${myfi.openai.circuit-failure-threshold:5}")
+    private int circuitFailureThreshold = 5;
+
+    @Value("${myfi.openai.circuit-open-ms:60000}")
+    private long circuitOpenMs = 60000;
+
+    private Semaphore permits;
+
+    // Token bucket, guarded by this
+    private double tokens = -1;
+    private long lastRefillNanos;
+
+    // Circuit breaker, guarded by this
+    private int consecutiveFailures;
+    private long openUntilMillis;
+    private boolean probeInFlight;
+
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException(String message) {
+            super(message);
+        }
+    }
+
+    public <T> T execute(Callable<T> request) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            boolean probe = checkCircuit();
+            long backoff;
+            try {
+                return attempt(request);
+            } catch (Exception e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                recordTransientFailure();
+                if (attempt >= Math.max(1, maxAttempts)) {
+                    logger.warn("OpenAI request failed after {} attempts: {}", attempt, e.getMessage());
+                    throw e;
+                }
+                backoff = backoffMillis(attempt);
+                logger.info("OpenAI request failed ({}), retrying in {} ms (attempt {}/{})", e.getMessage(), backoff, attempt, maxAttempts);
+            } finally {
+                if (probe) {
+                    endProbe();
+                }
+            }
+            Thread.sleep(backoff);
+        }
+    }
+
+    private <T> T attempt(Callable<T> request) throws Exception {
+        Semaphore concurrency = permits();
+        concurrency.acquire();
+        try {
+            acquireToken();
+            T result = request.call();
+            recordSuccess();
+            return result;
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientAiException || cause instanceof ResourceAccessException
+                    || cause instanceof IOException || cause instanceof CircuitOpenException) {
+                return true;
+            }
+            // Thrown with the default Spring AI error handler, which reports 429 as non-transient
+            if (cause instanceof NonTransientAiException && cause.getMessage() != null && cause.getMessage().startsWith("429")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isRetryableStatus(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    /** Exponential backoff with "equal jitter": half fixed, half random. */
+    long backoffMillis(int attempt) {
+        long exponential = Math.min(backoffMaxMs, backoffInitialMs * (1L << Math.min(attempt - 1, 20)));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private synchronized Semaphore permits() {
+        if (permits == null) {
+            permits = new Semaphore(Math.max(1, maxConcurrentRequests), true);
+        }
+        return permits;
+    }
+
+    /**
+     * Fails fast while the breaker is open. Once the open period has passed the breaker is
+     * half-open: a single caller is let through as the probe, the others keep failing fast
+     * until the probe's outcome closes or re-opens it.
+     *
+     * @return whether the caller is the half-open probe and must call {@link #endProbe()}
+     */
+    private synchronized boolean checkCircuit() {
+        long now = System.currentTimeMillis();
+        if (openUntilMillis > now) {
+            throw new CircuitOpenException("OpenAI circuit breaker is open for another " + (openUntilMillis - now) + " ms");
+        }
+        if (consecutiveFailures < circuitFailureThreshold) {
+            return false;
+        }
+        if (probeInFlight) {
+            throw new CircuitOpenException("OpenAI circuit breaker is half-open, waiting for the probe request");
+        }
+        probeInFlight = true;
+        return true;
+    }
+
+    private synchronized void endProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized void recordSuccess() {
+        if (consecutiveFailures >= circuitFailureThreshold) {
+            logger.info("OpenAI requests are succeeding again, closing circuit breaker");
+        }
+        consecutiveFailures = 0;
+        openUntilMillis = 0;
+    }
+
+    private synchronized void recordTransientFailure() {
+        consecutiveFailures++;
+        // Once tripped, every further failure (the half-open probe) re-opens it
+        if (consecutiveFailures >= circuitFailureThreshold) {
+            openUntilMillis = System.currentTimeMillis() + circuitOpenMs;
+            logger.warn("Opening OpenAI circuit breaker for {} ms after {} consecutive transient failures",
+                    circuitOpenMs, consecutiveFailures);
+        }
+    }
+
+    /**
+     * Blocks until the token bucket has a request available. The bucket refills at
+     * {@code requests-per-minute} and holds at most one second's worth of requests.
+     */
+    private void acquireToken() throws InterruptedException {
+        if (requestsPerMinute <= 0) {
+            return;
+        }
+        double tokensPerNano = requestsPerMinute / 60_000_000_000d;
+        double capacity = Math.max(1, requestsPerMinute / 60);
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (tokens < 0) {
+                    tokens = capacity;
+                } else {
+                    tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+                }
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+}
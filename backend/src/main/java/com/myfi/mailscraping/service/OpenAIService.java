@@ -2,7 +2,10 @@ package com.myfi.mailscraping.service;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.myfi.credentials.service.CredentialsService;
 import com.myfi.mailscraping.constants.Constants;
 import com.myfi.mailscraping.enums.EmailType;
@@ -12,9 +15,13 @@ import lombok.Data;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.ai.chat.prompt.Prompt;
@@ -31,12 +38,35 @@ public class OpenAIService {
 
   private static final Logger logger = LoggerFactory.getLogger(OpenAIService.class);
 
+  private static final String MODEL = "gpt-4.1-mini";
+  // Bump whenever the prompt or the schema changes so cached extractions are not reused
+  static final String EXTRACTION_SCHEMA_VERSION = "1";
+
   private final ObjectMapper objectMapper;
-  private OpenAiChatModel chatModel;
+  private final ExtractionCacheService extractionCacheService;
+  private final OpenAIRequestExecutor requestExecutor;
+  // Created on first use (the API key is read from the credentials store); extraction runs
+  // on several threads, so it is published through a volatile field
+  private volatile OpenAiChatModel chatModel;
 
   @Autowired
   private CredentialsService credentialsService;
 
+  // Point at a local stand-in (e.g. for benchmarks) instead of the real API
+  @Value("${myfi.openai.base-url:https://api.openai.com}")
+  private String baseUrl = "https://api.openai.com";
+
+  // Opt-in: pack several short emails into one request (see extractDetailsFromEmails)
+  @Value("${myfi.openai.batch-extraction.enabled:false}")
+  private boolean batchExtractionEnabled = false;
+
+  @Value("${myfi.openai.batch-extraction.max-emails:10}")
+  private int batchMaxEmails = 10;
+
+  // Longer emails are sent on their own; they gain little from sharing the prompt
+  @Value("${myfi.openai.batch-extraction.max-email-chars:2000}")
+  private int batchMaxEmailChars = 2000;
+
   // JSON Schema for ExtractedTransactionDetails
   private static final String DETAILS_FROM_EMAIL_SCHEMA = """
 {
@@ -104,34 +134,72 @@ public class OpenAIService {
 }
 """;
 
+  // Schema for a batch request: one result per email, tagged with the email's index
+  private static final String BATCH_DETAILS_FROM_EMAILS_SCHEMA = batchSchema(DETAILS_FROM_EMAIL_SCHEMA);
+
   // System prompt template for extracting transaction details
   private final String systemPrompt = """
       Extract the required details from the given email body:
       """;
 
+  private final String batchSystemPrompt = """
+      Each email below is wrapped in <email index="N"> ... </email>. Extract the required details \
+      from every email independently and return exactly one result per email, with email_index \
+      set to that email's index:
+      """;
+
   @Autowired
-  public OpenAIService(ObjectMapper objectMapper) { // Inject OpenAiChatModel
+  public OpenAIService(ObjectMapper objectMapper, ExtractionCacheService extractionCacheService,
+      OpenAIRequestExecutor requestExecutor) { // Inject OpenAiChatModel
     this.objectMapper = objectMapper;
+    this.extractionCacheService = extractionCacheService;
+    this.requestExecutor = requestExecutor;
   }
 
-  public void initializeChatModel() throws Exception {
+  public synchronized void initializeChatModel() throws Exception {
     String apiKey = credentialsService.getCredential(Constants.OPENAI_API_KEY_KEY);
     
-    OpenAiApi openAiApi = OpenAiApi.builder().apiKey(apiKey).build();
-    this.chatModel = OpenAiChatModel.builder().openAiApi(openAiApi).build();
+    // Retries, rate limiting and the circuit breaker live in OpenAIRequestExecutor
+    OpenAiApi openAiApi = OpenAiApi.builder()
+        .baseUrl(baseUrl)
+        .apiKey(apiKey)
+        .responseErrorHandler(OpenAIRequestExecutor.RESPONSE_ERROR_HANDLER)
+        .build();
+    this.chatModel = OpenAiChatModel.builder()
+        .openAiApi(openAiApi)
+        .retryTemplate(OpenAIRequestExecutor.NO_RETRY)
+        .build();
+  }
+
+  private OpenAiChatModel chatModel() throws Exception {
+    OpenAiChatModel model = chatModel;
+    if (model == null) {
+      synchronized (this) {
+        if (chatModel == null) {
+          initializeChatModel();
+        }
+        model = chatModel;
+      }
+    }
+    return model;
   }
 
   public Optional<ExtractedDetailsFromEmail> extractDetailsFromEmail(String emailBody) throws Exception {
-    if (chatModel == null) {
-      initializeChatModel();
+    String cacheKey = cacheKey(emailBody);
+    Optional<String> cachedResponse = extractionCacheService.get(cacheKey);
+    if (cachedResponse.isPresent()) {
+      logger.debug("Using cached extraction for email body");
+      return parseExtractedDetails(cachedResponse.get(), null);
     }
 
+    OpenAiChatModel model = chatModel();
+
     SystemMessage systemMessage = new SystemMessage(systemPrompt);
     UserMessage userMessage = new UserMessage(emailBody);
 
     // Define OpenAI options with JSON schema response format
     OpenAiChatOptions options = OpenAiChatOptions.builder()
-        .model("gpt-4.1-mini")
+        .model(MODEL)
         .responseFormat(new ResponseFormat(ResponseFormat.Type.JSON_SCHEMA, DETAILS_FROM_EMAIL_SCHEMA))
         .build();
 
@@ -140,10 +208,178 @@ public class OpenAIService {
 
     try {
       logger.debug("Sending request to OpenAI via Spring AI with JSON schema enforcement...");
-      ChatResponse response = chatModel.call(prompt);
+      ChatResponse response = requestExecutor.execute(() -> model.call(prompt));
       String jsonResponse = response.getResult().getOutput().getText();
       logger.debug("Received JSON response from OpenAI: {}", jsonResponse);
+      return parseExtractedDetails(jsonResponse, cacheKey);
+
+    } catch (Exception e) { // Catch broader exceptions from Spring AI client
+      if (OpenAIRequestExecutor.isTransient(e)) {
+        // Rate limited or unavailable: let the caller retry the email on a later sync
+        throw e;
+      }
+      logger.error("Error calling OpenAI API via Spring AI with JSON schema: {}", e.getMessage(), e);
+      return Optional.empty();
+    }
+  }
+
+  public boolean isBatchExtractionEnabled() {
+    return batchExtractionEnabled;
+  }
+
+  /**
+   * Extracts details for several emails, returning one result per body in the same order.
+   * <p>
+   * With batch extraction enabled, short uncached bodies are sent up to
+   * {@code myfi.openai.batch-extraction.max-emails} at a time in a single request whose
+   * response is an array of results keyed by email index. Any email whose result is missing
+   * or fails validation (or a whole batch whose response cannot be used) falls back to
+   * {@link #extractDetailsFromEmail(String)}. Transient failures propagate like they do for
+   * single requests.
+   */
+  public List<Optional<ExtractedDetailsFromEmail>> extractDetailsFromEmails(List<String> emailBodies) throws Exception {
+    List<Optional<ExtractedDetailsFromEmail>> results = new ArrayList<>(emailBodies.size());
+    List<Integer> batchable = new ArrayList<>();
+    for (int i = 0; i < emailBodies.size(); i++) {
+      String emailBody = emailBodies.get(i);
+      if (!batchExtractionEnabled || emailBody == null || emailBody.length() > batchMaxEmailChars) {
+        results.add(extractDetailsFromEmail(emailBody));
+        continue;
+      }
+      Optional<String> cachedResponse = extractionCacheService.get(cacheKey(emailBody));
+      if (cachedResponse.isPresent()) {
+        results.add(parseExtractedDetails(cachedResponse.get(), null));
+      } else {
+        results.add(null);
+        batchable.add(i);
+      }
+    }
+
+    int chunkSize = Math.max(1, batchMaxEmails);
+    for (int start = 0; start < batchable.size(); start += chunkSize) {
+      List<Integer> chunk = batchable.subList(start, Math.min(batchable.size(), start + chunkSize));
+      if (chunk.size() == 1) {
+        results.set(chunk.get(0), extractDetailsFromEmail(emailBodies.get(chunk.get(0))));
+        continue;
+      }
+      List<String> chunkBodies = chunk.stream().map(emailBodies::get).toList();
+      Map<Integer, String> responses = callBatch(chunkBodies);
+      int fallbacks = 0;
+      for (int j = 0; j < chunk.size(); j++) {
+        String emailBody = chunkBodies.get(j);
+        String itemJson = responses.get(j);
+        Optional<ExtractedDetailsFromEmail> details = itemJson == null ? Optional.empty() : parseExtractedDetails(itemJson, null);
+        if (details.isPresent()) {
+          extractionCacheService.put(cacheKey(emailBody), MODEL, itemJson);
+        } else {
+          // Retry on its own rather than trust (or cache) an answer given alongside other emails
+          fallbacks++;
+          details = extractDetailsFromEmail(emailBody);
+        }
+        results.set(chunk.get(j), details);
+      }
+      logger.info("Extracted {} emails in one batch request, {} fell back to single requests", chunk.size(), fallbacks);
+    }
+    return results;
+  }
+
+  /**
+   * Sends one batch request and returns each result's JSON (in the single-email format) by
+   * position in {@code emailBodies}. Non-transient errors and unusable responses yield an
+   * empty map so every email falls back to a single request.
+   */
+  private Map<Integer, String> callBatch(List<String> emailBodies) throws Exception {
+    OpenAiChatModel model = chatModel();
 
+    StringBuilder userText = new StringBuilder();
+    for (int i = 0; i < emailBodies.size(); i++) {
+      userText.append("<email index=\"").append(i).append("\">\n")
+          .append(emailBodies.get(i))
+          .append("\n</email>\n");
+    }
+    OpenAiChatOptions options = OpenAiChatOptions.builder()
+        .model(MODEL)
+        .responseFormat(new ResponseFormat(ResponseFormat.Type.JSON_SCHEMA, BATCH_DETAILS_FROM_EMAILS_SCHEMA))
+        .build();
+    Prompt prompt = new Prompt(List.of(new SystemMessage(batchSystemPrompt), new UserMessage(userText.toString())), options);
+
+    String jsonResponse;
+    try {
+      logger.debug("Sending batch request for {} emails to OpenAI", emailBodies.size());
+      ChatResponse response = requestExecutor.execute(() -> model.call(prompt));
+      jsonResponse = response.getResult().getOutput().getText();
+    } catch (Exception e) {
+      if (OpenAIRequestExecutor.isTransient(e)) {
+        throw e;
+      }
+      logger.error("Error calling OpenAI API for a batch of {} emails: {}", emailBodies.size(), e.getMessage(), e);
+      return Map.of();
+    }
+
+    Map<Integer, String> responses = new HashMap<>();
+    try {
+      JsonNode items = jsonResponse == null ? null : objectMapper.readTree(jsonResponse).path("results");
+      if (items == null || !items.isArray()) {
+        logger.warn("OpenAI batch response has no results array");
+        return Map.of();
+      }
+      for (JsonNode item : items) {
+        JsonNode index = item.get("email_index");
+        if (!(item instanceof ObjectNode itemObject) || index == null || !index.canConvertToInt()) {
+          continue;
+        }
+        int i = index.asInt();
+        if (i < 0 || i >= emailBodies.size() || responses.containsKey(i)) {
+          // Out of range or answered twice: ambiguous, so let it fall back
+          responses.put(i, null);
+          continue;
+        }
+        itemObject.remove("email_index");
+        responses.put(i, objectMapper.writeValueAsString(itemObject));
+      }
+    } catch (JsonProcessingException e) {
+      logger.error("Failed to parse batch response from OpenAI: {}", e.getMessage(), e);
+      return Map.of();
+    }
+    return responses;
+  }
+
+  private static String cacheKey(String emailBody) {
+    return ExtractionCacheService.cacheKey(EXTRACTION_SCHEMA_VERSION, MODEL, emailBody);
+  }
+
+  /** Wraps the single-email schema into {"results": [{email_index, ...details}]}. */
+  private static String batchSchema(String detailsSchema) {
+    try {
+      ObjectMapper mapper = new ObjectMapper();
+      ObjectNode item = (ObjectNode) mapper.readTree(detailsSchema);
+      ObjectNode index = mapper.createObjectNode();
+      index.put("type", "integer");
+      index.put("description", "The index attribute of the email this result belongs to.");
+      ((ObjectNode) item.get("properties")).set("email_index", index);
+      ((ArrayNode) item.get("required")).insert(0, "email_index");
+
+      ObjectNode results = mapper.createObjectNode();
+      results.put("type", "array");
+      results.set("items", item);
+      ObjectNode schema = mapper.createObjectNode();
+      schema.put("type", "object");
+      schema.putObject("properties").set("results", results);
+      schema.putArray("required").add("results");
+      schema.put("additionalProperties", false);
+      return mapper.writeValueAsString(schema);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Invalid extraction schema", e);
+    }
+  }
+
+  /**
+   * Parses and validates the model's JSON output. A response that parses is stored in the
+   * extraction cache under {@code cacheKey} (when given), even if it fails validation, since
+   * the same email would produce the same answer again.
+   */
+  private Optional<ExtractedDetailsFromEmail> parseExtractedDetails(String jsonResponse, String cacheKey) {
+    try {
       if (jsonResponse == null || jsonResponse.isBlank() || jsonResponse.trim().equals("{}")) {
         logger.warn(
             "OpenAI returned an empty or invalid JSON response for email body. Cannot extract details.");
@@ -171,6 +407,10 @@ public class OpenAIService {
         }
       }
 
+      // Only usable answers are cached; an incomplete one is asked again next time
+      if (cacheKey != null) {
+        extractionCacheService.put(cacheKey, MODEL, jsonResponse);
+      }
       logger.info("Successfully parsed transaction details from OpenAI JSON response for: {}", details);
       return Optional.of(details);
 
@@ -179,9 +419,6 @@ public class OpenAIService {
       logger.error("Failed to parse JSON response from OpenAI: {}. Response content might be invalid.",
           e.getMessage(), e);
       return Optional.empty();
-    } catch (Exception e) { // Catch broader exceptions from Spring AI client
-      logger.error("Error calling OpenAI API via Spring AI with JSON schema: {}", e.getMessage(), e);
-      return Optional.empty();
     }
   }
 
@@ -9,25 +9,86 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class ProcessedGmailMessagesTrackerService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProcessedGmailMessagesTrackerService.class);
 
+    // Keeps IN (...) lists well below SQLite's bound parameter limit
+    private static final int MESSAGE_ID_LOOKUP_CHUNK_SIZE = 500;
+
     @Autowired
     private ProcessedGmailMessageRepository repository;
 
+    // Loaded for the duration of a sync; while null every lookup goes to the database
+    private volatile ProcessedMessageIndex processedIndex;
+
+    /** Processed-email update, applied in bulk by {@link #markEmailsProcessed(List)}. */
+    public record ProcessedMark(String messageId, Set<String> accountNumbers, LocalDateTime messageDateTime,
+                                int transactionCount) {
+    }
+
+    /**
+     * Loads every processed (messageId, accountNumber) pair into memory with a single query,
+     * so the lookups below no longer hit the database. Updates made through this service
+     * keep the index current (once committed) until {@link #releaseProcessedIndex()}. If it cannot be built,
+     * lookups keep using the database.
+     */
+    @Transactional(readOnly = true)
+    public void loadProcessedIndex() {
+        ProcessedMessageIndex index = new ProcessedMessageIndex();
+        long pairs = 0;
+        try (Stream<Object[]> rows = repository.streamAllProcessedAccountNumbers()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (!index.add((String) row[0], (String) row[1])) {
+                    logger.info("More than {} distinct account numbers processed, not indexing processed emails",
+                            ProcessedMessageIndex.MAX_ACCOUNTS);
+                    processedIndex = null;
+                    return;
+                }
+                pairs++;
+            }
+        } catch (Exception e) {
+            logger.warn("Could not load processed email index, using database lookups: {}", e.getMessage());
+            processedIndex = null;
+            return;
+        }
+        processedIndex = index;
+        logger.info("Loaded processed email index: {} emails, {} email/account pairs", index.size(), pairs);
+    }
+
+    /** Drops the in-memory index; lookups go back to the database. */
+    public void releaseProcessedIndex() {
+        processedIndex = null;
+    }
+
     /**
      * Checks if an email has been processed globally (for any account).
      */
     @Transactional(readOnly = true)
     public boolean isEmailProcessed(String messageId) {
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null) {
+            return index.contains(messageId);
+        }
         return repository.existsByMessageId(messageId);
     }
 
@@ -36,6 +97,10 @@ public class ProcessedGmailMessagesTrackerService {
      */
     @Transactional(readOnly = true)
     public boolean isMessageProcessedForAccount(String messageId, String accountNumber) {
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null) {
+            return index.contains(messageId, accountNumber);
+        }
         return repository.isMessageProcessedForAccount(messageId, accountNumber);
     }
 
@@ -44,6 +109,10 @@ public class ProcessedGmailMessagesTrackerService {
      */
     @Transactional(readOnly = true)
     public Set<String> getUnprocessedAccountsForEmail(String messageId, Set<String> allAccountNumbers) {
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null) {
+            return index.unprocessed(messageId, allAccountNumbers);
+        }
         Optional<ProcessedGmailMessage> processedMessage = repository.findByMessageId(messageId);
         
         if (processedMessage.isEmpty()) {
@@ -58,6 +127,41 @@ public class ProcessedGmailMessagesTrackerService {
         return unprocessedAccounts;
     }
 
+    /**
+     * Returns the ids among the given messages that have already been processed for every
+     * one of the given accounts. Uses one query per chunk of ids instead of one per email.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findMessagesProcessedForAllAccounts(Collection<String> messageIds, Set<String> accountNumbers) {
+        Set<String> fullyProcessed = new HashSet<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return fullyProcessed;
+        }
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null) {
+            for (String messageId : messageIds) {
+                if (index.containsAll(messageId, accountNumbers)) {
+                    fullyProcessed.add(messageId);
+                }
+            }
+            return fullyProcessed;
+        }
+        List<String> ids = new ArrayList<>(new HashSet<>(messageIds));
+        Map<String, Set<String>> processedAccountsByMessage = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MESSAGE_ID_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + MESSAGE_ID_LOOKUP_CHUNK_SIZE, ids.size()));
+            for (Object[] row : repository.findProcessedAccountNumbersByMessageIdIn(chunk)) {
+                processedAccountsByMessage.computeIfAbsent((String) row[0], id -> new HashSet<>()).add((String) row[1]);
+            }
+        }
+        processedAccountsByMessage.forEach((messageId, processedAccounts) -> {
+            if (processedAccounts.containsAll(accountNumbers)) {
+                fullyProcessed.add(messageId);
+            }
+        });
+        return fullyProcessed;
+    }
+
     /**
      * Finds the latest message date considering all processed messages.
      */
@@ -111,6 +215,7 @@ public class ProcessedGmailMessagesTrackerService {
                     processedMessage.setTransactionCount(processedMessage.getTransactionCount() + transactionCount);
                     
                     repository.save(processedMessage);
+                    addToIndex(messageId, newAccounts);
                     logger.info("Updated message ID: {} with {} new accounts. Total accounts: {}, Total transactions: {}", 
                         messageId, newAccounts.size(), processedMessage.getProcessedAccountsCount(), 
                         processedMessage.getTransactionCount());
@@ -129,6 +234,7 @@ public class ProcessedGmailMessagesTrackerService {
                         .build();
                         
                 repository.save(processedMessage);
+                addToIndex(messageId, accountNumbers);
                 logger.info("Created new processed message record for ID: {} with {} accounts and {} transactions", 
                     messageId, accountNumbers.size(), transactionCount);
             }
@@ -142,6 +248,7 @@ public class ProcessedGmailMessagesTrackerService {
                     processedMessage.addProcessedAccounts(accountNumbers);
                     processedMessage.setTransactionCount(processedMessage.getTransactionCount() + transactionCount);
                     repository.save(processedMessage);
+                    addToIndex(messageId, accountNumbers);
                     logger.info("Retry successful for message ID: {}", messageId);
                 }
             } catch (Exception retryException) {
@@ -152,6 +259,68 @@ public class ProcessedGmailMessagesTrackerService {
         }
     }
 
+    /**
+     * Applies a batch of processed-email updates in one transaction: the existing records are
+     * loaded with one query per chunk of ids, and new records are inserted together. Has the
+     * same effect as calling {@link #markEmailProcessedForAccounts} for each mark in order;
+     * unlike that method it throws on failure, after which nothing has been written.
+     */
+    @Transactional
+    public void markEmailsProcessed(List<ProcessedMark> marks) {
+        List<ProcessedMark> validMarks = marks.stream()
+                .filter(mark -> mark.messageId() != null && !mark.messageId().isBlank()
+                        && mark.accountNumbers() != null && !mark.accountNumbers().isEmpty()
+                        && mark.messageDateTime() != null)
+                .toList();
+        if (validMarks.size() < marks.size()) {
+            logger.warn("Skipping {} processed-email marks with a blank message ID, no accounts or no message date",
+                    marks.size() - validMarks.size());
+        }
+        if (validMarks.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = validMarks.stream().map(ProcessedMark::messageId).distinct().toList();
+        Map<String, ProcessedGmailMessage> recordsById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MESSAGE_ID_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + MESSAGE_ID_LOOKUP_CHUNK_SIZE, ids.size()));
+            repository.findWithAccountsByMessageIdIn(chunk)
+                    .forEach(record -> recordsById.put(record.getMessageId(), record));
+        }
+
+        Map<String, ProcessedGmailMessage> created = new LinkedHashMap<>();
+        int updated = 0;
+        for (ProcessedMark mark : validMarks) {
+            ProcessedGmailMessage record = recordsById.get(mark.messageId());
+            if (record == null) {
+                record = ProcessedGmailMessage.builder()
+                        .messageId(mark.messageId())
+                        .processedAccountNumbers(new HashSet<>(mark.accountNumbers()))
+                        .messageDateTime(mark.messageDateTime())
+                        .firstProcessedAt(LocalDateTime.now())
+                        .lastProcessedAt(LocalDateTime.now())
+                        .transactionCount(mark.transactionCount())
+                        .build();
+                recordsById.put(mark.messageId(), record);
+                created.put(mark.messageId(), record);
+                continue;
+            }
+            Set<String> newAccounts = new HashSet<>(mark.accountNumbers());
+            newAccounts.removeAll(record.getProcessedAccountNumbers());
+            if (!newAccounts.isEmpty()) {
+                record.addProcessedAccounts(newAccounts);
+                record.setTransactionCount(record.getTransactionCount() + mark.transactionCount());
+                if (!created.containsKey(mark.messageId())) {
+                    updated++;
+                }
+            }
+        }
+        // Loaded records are managed and written on commit; only new ones need saving
+        repository.saveAll(created.values());
+        validMarks.forEach(mark -> addToIndex(mark.messageId(), mark.accountNumbers()));
+        logger.info("Recorded {} processed-email marks: {} new records, {} updated", validMarks.size(), created.size(), updated);
+    }
+
     /**
      * Convenience method to mark email as processed for a single account.
      */
@@ -173,6 +342,7 @@ public class ProcessedGmailMessagesTrackerService {
             ProcessedGmailMessage existingMessage = existingMessageOpt.get();
             if (existingMessage.getProcessedAccountNumbers().contains(accountNumber)) {
                 existingMessage.getProcessedAccountNumbers().remove(accountNumber);
+                removeFromIndex(messageId, accountNumber);
                 if (existingMessage.getProcessedAccountNumbers().isEmpty()) {
                     // If no accounts are left, delete the whole record
                     repository.delete(existingMessage);
@@ -187,6 +357,57 @@ public class ProcessedGmailMessagesTrackerService {
         }
     }
 
+    /**
+     * Records processed pairs in the in-memory index once the surrounding transaction has
+     * committed, so a failed flush or commit never leaves the index ahead of the database.
+     */
+    private void addToIndex(String messageId, Set<String> accountNumbers) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Set<String> committedAccountNumbers = Set.copyOf(accountNumbers);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToIndexNow(messageId, committedAccountNumbers);
+                }
+            });
+        } else {
+            addToIndexNow(messageId, accountNumbers);
+        }
+    }
+
+    /**
+     * Counterpart of {@link #addToIndex}: the pair stays in the index until the removal has
+     * committed, so a rolled-back unmark keeps the index in step with the database.
+     */
+    private void removeFromIndex(String messageId, String accountNumber) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeFromIndexNow(messageId, accountNumber);
+                }
+            });
+        } else {
+            removeFromIndexNow(messageId, accountNumber);
+        }
+    }
+
+    private void removeFromIndexNow(String messageId, String accountNumber) {
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null) {
+            index.remove(messageId, accountNumber);
+        }
+    }
+
+    private void addToIndexNow(String messageId, Set<String> accountNumbers) {
+        ProcessedMessageIndex index = processedIndex;
+        if (index != null && !index.add(messageId, accountNumbers)) {
+            logger.info("More than {} distinct account numbers processed, dropping processed email index",
+                    ProcessedMessageIndex.MAX_ACCOUNTS);
+            processedIndex = null;
+        }
+    }
+
     // Legacy methods for backward compatibility (deprecated but still functional)
     @Deprecated
     @Transactional(readOnly = true)
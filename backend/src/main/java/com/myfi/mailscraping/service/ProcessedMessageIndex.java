@@ -0,0 +1,227 @@
+package com.myfi.mailscraping.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory set of processed (messageId, accountNumber) pairs, so the sync can check
+ * whether an email is done without a query. Account numbers are interned to bit
+ * positions and each message maps to a bitmask of its processed accounts. Gmail message
+ * ids are hex strings of at most 16 digits, so they are stored as {@code long} keys in an
+ * open-addressing table; any other id goes to a regular map.
+ * <p>
+ * Supports up to {@link #MAX_ACCOUNTS} distinct account numbers; {@link #add} reports
+ * when that is exceeded so the caller can fall back to the database. Thread-safe: the
+ * parse stage reads while the persist stage writes.
+ */
+final class ProcessedMessageIndex {
+
+    static final int MAX_ACCOUNTS = Long.SIZE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> accountBits = new HashMap<>();
+    // Open-addressing table of hex message ids; a zero mask marks an empty slot
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] masks = new long[INITIAL_CAPACITY];
+    private int hexIdCount;
+    private final Map<String, Long> otherIds = new HashMap<>();
+
+    /**
+     * Records the message as processed for the given accounts.
+     *
+     * @return false if the accounts would exceed {@link #MAX_ACCOUNTS}; nothing is recorded then
+     */
+    synchronized boolean add(String messageId, Collection<String> accountNumbers) {
+        long mask = 0;
+        for (String accountNumber : accountNumbers) {
+            if (accountNumber == null) {
+                continue;
+            }
+            Integer bit = accountBits.get(accountNumber);
+            if (bit == null) {
+                if (accountBits.size() >= MAX_ACCOUNTS) {
+                    return false;
+                }
+                bit = accountBits.size();
+                accountBits.put(accountNumber, bit);
+            }
+            mask |= 1L << bit;
+        }
+        if (mask != 0) {
+            setMask(messageId, getMask(messageId) | mask);
+        }
+        return true;
+    }
+
+    /** Records a single (messageId, accountNumber) pair, see {@link #add(String, Collection)}. */
+    synchronized boolean add(String messageId, String accountNumber) {
+        return add(messageId, Collections.singletonList(accountNumber));
+    }
+
+    synchronized void remove(String messageId, String accountNumber) {
+        Integer bit = accountBits.get(accountNumber);
+        if (bit != null) {
+            setMask(messageId, getMask(messageId) & ~(1L << bit));
+        }
+    }
+
+    /** Whether the message has been processed for any account. */
+    synchronized boolean contains(String messageId) {
+        return getMask(messageId) != 0;
+    }
+
+    synchronized boolean contains(String messageId, String accountNumber) {
+        Integer bit = accountBits.get(accountNumber);
+        return bit != null && (getMask(messageId) & (1L << bit)) != 0;
+    }
+
+    /** Whether the message has been processed, and for every one of the given accounts. */
+    synchronized boolean containsAll(String messageId, Set<String> accountNumbers) {
+        long processed = getMask(messageId);
+        if (processed == 0) {
+            return false;
+        }
+        for (String accountNumber : accountNumbers) {
+            Integer bit = accountBits.get(accountNumber);
+            if (bit == null || (processed & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The given accounts the message has not been processed for yet. */
+    synchronized Set<String> unprocessed(String messageId, Set<String> accountNumbers) {
+        long processed = getMask(messageId);
+        Set<String> unprocessed = new HashSet<>(accountNumbers);
+        if (processed != 0) {
+            unprocessed.removeIf(accountNumber -> {
+                Integer bit = accountBits.get(accountNumber);
+                return bit != null && (processed & (1L << bit)) != 0;
+            });
+        }
+        return unprocessed;
+    }
+
+    /** Number of messages processed for at least one account. */
+    synchronized int size() {
+        return hexIdCount + otherIds.size();
+    }
+
+    private long getMask(String messageId) {
+        if (!isHexId(messageId)) {
+            return otherIds.getOrDefault(messageId, 0L);
+        }
+        long key = parseHexId(messageId);
+        int slot = slot(key, keys.length);
+        while (masks[slot] != 0) {
+            if (keys[slot] == key) {
+                return masks[slot];
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return 0;
+    }
+
+    private void setMask(String messageId, long mask) {
+        if (!isHexId(messageId)) {
+            if (mask == 0) {
+                otherIds.remove(messageId);
+            } else {
+                otherIds.put(messageId, mask);
+            }
+            return;
+        }
+        long key = parseHexId(messageId);
+        int slot = slot(key, keys.length);
+        while (masks[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        if (masks[slot] != 0) {
+            if (mask == 0) {
+                deleteSlot(slot);
+            } else {
+                masks[slot] = mask;
+            }
+            return;
+        }
+        if (mask == 0) {
+            return;
+        }
+        keys[slot] = key;
+        masks[slot] = mask;
+        if (++hexIdCount * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    // Backward-shift deletion keeps every probe chain unbroken without tombstones
+    private void deleteSlot(int slot) {
+        int capacityMask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & capacityMask;
+        while (masks[next] != 0) {
+            int home = slot(keys[next], keys.length);
+            // Move the entry into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & capacityMask) >= ((next - gap) & capacityMask)) {
+                keys[gap] = keys[next];
+                masks[gap] = masks[next];
+                gap = next;
+            }
+            next = (next + 1) & capacityMask;
+        }
+        masks[gap] = 0;
+        keys[gap] = 0;
+        hexIdCount--;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldMasks = masks;
+        keys = new long[oldKeys.length * 2];
+        masks = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldMasks[i] != 0) {
+                int slot = slot(oldKeys[i], keys.length);
+                while (masks[slot] != 0) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                keys[slot] = oldKeys[i];
+                masks[slot] = oldMasks[i];
+            }
+        }
+    }
+
+    private static int slot(long key, int capacity) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (capacity - 1);
+    }
+
+    /**
+     * Whether the id is a lower-case hex string of 1 to 16 digits without leading zeros, so
+     * that it maps to exactly one {@code long} and back.
+     */
+    static boolean isHexId(String messageId) {
+        int length = messageId.length();
+        if (length == 0 || length > 16 || messageId.charAt(0) == '0') {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = messageId.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'a' && c <= 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The value of an id accepted by {@link #isHexId}, as an unsigned long. */
+    static long parseHexId(String messageId) {
+        return Long.parseUnsignedLong(messageId, 16);
+    }
+}
@@ -30,10 +30,16 @@ public class Account {
     @Column(nullable = false)
     private AccountType type;
 
-    // Balance will be derived from the latest AccountHistory
-    @Transient
+    // Balance of the latest AccountHistory record, maintained by AccountHistoryService with
+    // every history write (never by saving the entity) and checked by BalanceReconciliationService
+    @Column(name = "current_balance", updatable = false)
     private BigDecimal balance;
 
+    // Incremented with every write of current_balance
+    @Column(name = "balance_version", nullable = false, updatable = false)
+    @JsonIgnore
+    private long balanceVersion;
+
     @Transient
     private boolean isEmailScrapingSupported;
 
@@ -69,10 +75,8 @@ public class Account {
     @JsonIgnore // Avoid infinite recursion during serialization
     private List<AccountHistory> accountHistories;
 
-    // Method to get the latest balance (logic will be in service)
+    // Accounts without any history have no stored balance yet
     public BigDecimal getBalance() {
-        // Placeholder: Actual logic will fetch from the latest AccountHistory
-        // For now, return the transient balance field if set, or zero
         return this.balance != null ? this.balance : BigDecimal.ZERO;
     }
 
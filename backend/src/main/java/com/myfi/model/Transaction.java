@@ -12,6 +12,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.id.IncrementGenerator;
 import org.springframework.util.DigestUtils;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
@@ -26,8 +28,11 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Transaction {
     
+    // Ids are handed out in memory (seeded from MAX(id)) so inserts can be JDBC-batched;
+    // IDENTITY would force a round trip per row to read back the generated key.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "transactions_id")
+    @GenericGenerator(name = "transactions_id", type = IncrementGenerator.class)
     private Long id;
 
     @NotNull
@@ -81,7 +86,7 @@ public class Transaction {
     @OneToMany(mappedBy = "parentId", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Transaction> subTransactions;
 
-    @Column(nullable = false, length = 64)
+    @Column(nullable = false, unique = true, length = 64)
     private String uniqueKey;
 
     @Column(name = "is_manual_entry", nullable = false)
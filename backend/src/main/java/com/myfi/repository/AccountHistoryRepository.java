@@ -1,16 +1,47 @@
 package com.myfi.repository;
 
+import com.myfi.dto.BalancePoint;
 import com.myfi.model.Account;
 import com.myfi.model.AccountHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountHistoryRepository extends JpaRepository<AccountHistory, Long> {
 
+    // recorded_at is stored as epoch milliseconds. Buckets are the local date shifted by
+    // :offsetSeconds and moved to the start of the bucket by the two date() modifiers.
+    String BUCKET = "date(recorded_at / 1000 + :offsetSeconds, 'unixepoch', :startModifier, :alignModifier)";
+
+    // Net worth after every history record of a root account: the running sum of each
+    // record's change from the previous record of the same account
+    String NET_WORTH_TOTALS = "WITH events AS ("
+            + " SELECT h.id, h.recorded_at,"
+            + " h.balance - COALESCE(LAG(h.balance) OVER (PARTITION BY h.account_id ORDER BY h.recorded_at, h.id), 0) AS delta"
+            + " FROM account_history h JOIN accounts a ON a.id = h.account_id"
+            + " WHERE a.parent_account_id IS NULL AND h.recorded_at < :toMillis"
+            + "), totals AS ("
+            + " SELECT id, recorded_at,"
+            + " ROUND(SUM(delta) OVER (ORDER BY recorded_at, id ROWS UNBOUNDED PRECEDING), 2) AS balance"
+            + " FROM events)";
+
+    // (bucket, open, high, low, close) rows from a "points" CTE of (id, recorded_at, balance, bucket)
+    String CANDLES_FROM_POINTS = ", ranked AS ("
+            + " SELECT bucket, balance,"
+            + " ROW_NUMBER() OVER (PARTITION BY bucket ORDER BY recorded_at, id) AS from_start,"
+            + " ROW_NUMBER() OVER (PARTITION BY bucket ORDER BY recorded_at DESC, id DESC) AS from_end"
+            + " FROM points)"
+            + " SELECT bucket, MAX(CASE WHEN from_start = 1 THEN balance END), MAX(balance), MIN(balance),"
+            + " MAX(CASE WHEN from_end = 1 THEN balance END)"
+            + " FROM ranked GROUP BY bucket ORDER BY bucket";
+
     /**
      * Finds the latest account history record for a given account.
      * @param account The account to find history for.
@@ -24,4 +55,77 @@ public interface AccountHistoryRepository extends JpaRepository<AccountHistory,
      * @return A list of AccountHistory records.
      */
     List<AccountHistory> findByAccountOrderByRecordedAtDesc(Account account);
-} 
\ No newline at end of file
+
+    @Query("SELECT new com.myfi.dto.BalancePoint(h.recordedAt, h.balance) FROM AccountHistory h"
+            + " WHERE h.account.id = :accountId AND h.recordedAt >= :from AND h.recordedAt < :to"
+            + " ORDER BY h.recordedAt, h.id")
+    List<BalancePoint> findBalancePoints(@Param("accountId") Long accountId,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * The account's balance at {@code asOf}: a floor lookup on (account_id, recorded_at) that
+     * reads a single index entry. Records with the same timestamp resolve to the highest id.
+     */
+    @Query("SELECT h.balance FROM AccountHistory h WHERE h.account.id = :accountId AND h.recordedAt <= :asOf"
+            + " ORDER BY h.recordedAt DESC, h.id DESC LIMIT 1")
+    Optional<BigDecimal> findBalanceAsOf(@Param("accountId") Long accountId, @Param("asOf") LocalDateTime asOf);
+
+    /** (account id, balance or null) of every account at {@code asOfMillis}, one floor lookup per account. */
+    @Query(value = "SELECT a.id, (SELECT h.balance FROM account_history h"
+            + " WHERE h.account_id = a.id AND h.recorded_at <= :asOfMillis"
+            + " ORDER BY h.recorded_at DESC, h.id DESC LIMIT 1)"
+            + " FROM accounts a ORDER BY a.id", nativeQuery = true)
+    List<Object[]> findAllBalancesAsOf(@Param("asOfMillis") long asOfMillis);
+
+    /**
+     * (request index, balance or null) for each {@code [accountId, asOfMillis]} pair of the
+     * JSON array {@code requests}, resolved with one floor lookup per pair in a single query.
+     */
+    @Query(value = "WITH requests AS ("
+            + " SELECT key AS idx, json_extract(value, '$[0]') AS account_id, json_extract(value, '$[1]') AS as_of"
+            + " FROM json_each(:requests))"
+            + " SELECT r.idx, (SELECT h.balance FROM account_history h"
+            + " WHERE h.account_id = r.account_id AND h.recorded_at <= r.as_of"
+            + " ORDER BY h.recorded_at DESC, h.id DESC LIMIT 1)"
+            + " FROM requests r ORDER BY r.idx", nativeQuery = true)
+    List<Object[]> findBalancesAsOf(@Param("requests") String requests);
+
+    /**
+     * Ids of one account's records before {@code cutoffMillis} that are not the last record
+     * of their (local) day, i.e. the rows history compaction removes.
+     */
+    @Query(value = "SELECT id FROM ("
+            + " SELECT id, ROW_NUMBER() OVER (PARTITION BY date(recorded_at / 1000 + :offsetSeconds, 'unixepoch')"
+            + " ORDER BY recorded_at DESC, id DESC) AS from_end"
+            + " FROM account_history WHERE account_id = :accountId AND recorded_at < :cutoffMillis)"
+            + " WHERE from_end > 1 ORDER BY id", nativeQuery = true)
+    List<Number> findSupersededIntraDayIds(@Param("accountId") Long accountId, @Param("cutoffMillis") long cutoffMillis,
+                                           @Param("offsetSeconds") long offsetSeconds);
+
+    /** (bucket date, open, high, low, close) per bucket of one account's history. */
+    @Query(value = "WITH points AS ("
+            + " SELECT id, recorded_at, balance, " + BUCKET + " AS bucket FROM account_history"
+            + " WHERE account_id = :accountId AND recorded_at >= :fromMillis AND recorded_at < :toMillis)"
+            + CANDLES_FROM_POINTS, nativeQuery = true)
+    List<Object[]> findBalanceCandles(@Param("accountId") Long accountId,
+                                      @Param("fromMillis") long fromMillis, @Param("toMillis") long toMillis,
+                                      @Param("offsetSeconds") long offsetSeconds,
+                                      @Param("startModifier") String startModifier,
+                                      @Param("alignModifier") String alignModifier);
+
+    /** (recorded_at millis, net worth) after each history record of a root account. */
+    @Query(value = NET_WORTH_TOTALS
+            + " SELECT recorded_at, balance FROM totals WHERE recorded_at >= :fromMillis ORDER BY recorded_at, id",
+            nativeQuery = true)
+    List<Object[]> findNetWorthPoints(@Param("fromMillis") long fromMillis, @Param("toMillis") long toMillis);
+
+    /** (bucket date, open, high, low, close) per bucket of the net worth over all root accounts. */
+    @Query(value = NET_WORTH_TOTALS
+            + ", points AS (SELECT id, recorded_at, balance, " + BUCKET + " AS bucket FROM totals"
+            + " WHERE recorded_at >= :fromMillis)"
+            + CANDLES_FROM_POINTS, nativeQuery = true)
+    List<Object[]> findNetWorthCandles(@Param("fromMillis") long fromMillis, @Param("toMillis") long toMillis,
+                                       @Param("offsetSeconds") long offsetSeconds,
+                                       @Param("startModifier") String startModifier,
+                                       @Param("alignModifier") String alignModifier);
+}
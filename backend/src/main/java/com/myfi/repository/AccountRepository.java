@@ -2,11 +2,48 @@ package com.myfi.repository;
 
 import com.myfi.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByAccountNumber(String accountNumber);
-} 
\ No newline at end of file
+
+    // Reads the stored current balance from the database, bypassing any managed Account instance
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :id")
+    Optional<BigDecimal> findCurrentBalanceById(@Param("id") Long id);
+
+    // Writes the current balance; must run in the transaction that appends the matching history record
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance, a.balanceVersion = a.balanceVersion + 1 WHERE a.id = :id")
+    int updateCurrentBalance(@Param("id") Long id, @Param("balance") BigDecimal balance);
+
+    // Adds a change in a single statement, so concurrent changes to one account cannot overwrite
+    // each other. Rounded to the column's scale: SQLite does the arithmetic in floating point.
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = ROUND(COALESCE(a.balance, 0) + :change, 2),"
+            + " a.balanceVersion = a.balanceVersion + 1 WHERE a.id = :id")
+    int addToCurrentBalance(@Param("id") Long id, @Param("change") BigDecimal change);
+
+    // Same as updateCurrentBalance, but only if the balance has not been written since it was read at expectedVersion
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance, a.balanceVersion = a.balanceVersion + 1"
+            + " WHERE a.id = :id AND a.balanceVersion = :expectedVersion")
+    int updateCurrentBalanceIfVersion(@Param("id") Long id, @Param("balance") BigDecimal balance,
+                                      @Param("expectedVersion") long expectedVersion);
+
+    // (account id, current balance, balance version, latest history balance) per account, for
+    // reconciliation. Accounts without history have a null history balance; several records
+    // sharing the latest timestamp give one row each, highest history id first.
+    @Query("SELECT a.id, a.balance, a.balanceVersion, h.balance FROM Account a"
+            + " LEFT JOIN AccountHistory h ON h.account = a"
+            + " AND h.recordedAt = (SELECT MAX(h2.recordedAt) FROM AccountHistory h2 WHERE h2.account = a)"
+            + " ORDER BY a.id, h.id DESC")
+    List<Object[]> findCurrentAndLatestHistoryBalances();
+}
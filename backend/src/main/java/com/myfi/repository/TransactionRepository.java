@@ -1,17 +1,51 @@
 package com.myfi.repository;
 
+import com.myfi.dto.TransactionSummary;
 import com.myfi.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     List<Transaction> findByTransactionDateBetween(LocalDateTime start, LocalDateTime end);
+
+    // Same range, with the account fetched in the same query for callers that serialize it
+    @Query("SELECT t FROM Transaction t LEFT JOIN FETCH t.account"
+            + " WHERE t.transactionDate BETWEEN :start AND :end")
+    List<Transaction> findWithAccountByTransactionDateBetween(@Param("start") LocalDateTime start,
+                                                              @Param("end") LocalDateTime end);
+
+    // Forward-only cursor for exports; rows are read from SQLite in fetch-size steps instead of
+    // being materialized as a List. Must be consumed inside a transaction and closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate BETWEEN :start AND :end"
+            + " ORDER BY t.transactionDate, t.id")
+    Stream<Transaction> streamByTransactionDateBetween(@Param("start") LocalDateTime start,
+                                                       @Param("end") LocalDateTime end);
+
+    // Flat projection for list views: one query, no entities in the persistence context
+    @Query("SELECT new com.myfi.dto.TransactionSummary(t.id, t.amount, t.type, t.transactionDate, t.description,"
+            + " t.counterParty, t.tagId, t.account.id, t.parentId, t.excludeFromAccounting)"
+            + " FROM Transaction t WHERE t.transactionDate BETWEEN :start AND :end"
+            + " ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionSummary> findSummariesByTransactionDateBetween(@Param("start") LocalDateTime start,
+                                                                   @Param("end") LocalDateTime end);
     List<Transaction> findByType(Transaction.TransactionType type);
     List<Transaction> findByTagId(Long tagId);
     Page<Transaction> findByAccountId(Long accountId, Pageable pageable);
@@ -19,6 +53,21 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Method to find by the generated unique key
     Optional<Transaction> findByUniqueKey(String uniqueKey);
 
+    // Bulk duplicate check used when creating transactions in batches
+    List<Transaction> findByUniqueKeyIn(Collection<String> uniqueKeys);
+
     // Added method to find all transactions ordered by date descending with pagination
     Page<Transaction> findAllByOrderByTransactionDateDesc(Pageable pageable);
+
+    // Keyset pagination for the transaction feed. Returning a Slice skips the COUNT query, and the
+    // "<= date" bound lets SQLite seek into the transaction_date index instead of skipping rows.
+    @Query("SELECT t FROM Transaction t ORDER BY t.transactionDate DESC, t.id DESC")
+    Slice<Transaction> findFeedFirstPage(Pageable pageable);
+
+    @Query("SELECT t FROM Transaction t WHERE t.transactionDate <= :transactionDate"
+            + " AND (t.transactionDate < :transactionDate OR t.id < :id)"
+            + " ORDER BY t.transactionDate DESC, t.id DESC")
+    Slice<Transaction> findFeedAfter(@Param("transactionDate") LocalDateTime transactionDate,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
 } 
\ No newline at end of file
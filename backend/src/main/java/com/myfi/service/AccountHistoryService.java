@@ -1,5 +1,7 @@
 package com.myfi.service;
 
+import com.myfi.dto.AccountBalanceAsOf;
+import com.myfi.dto.BalanceAsOfRequest;
 import com.myfi.model.Account;
 import com.myfi.model.AccountHistory;
 import com.myfi.repository.AccountHistoryRepository;
@@ -11,9 +13,20 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.StringJoiner;
+
+/**
+ * Owns writes to account history. Every change also updates the account's materialized
+ * current balance ({@code accounts.current_balance}) in the same transaction, so the two
+ * cannot diverge except through direct database edits, which
+ * {@link BalanceReconciliationService} detects.
+ */
 @Service
 public class AccountHistoryService {
 
@@ -34,7 +47,10 @@ public class AccountHistoryService {
         if (accountHistory.getRecordedAt() == null) {
             accountHistory.setRecordedAt(LocalDateTime.now());
         }
-        return accountHistoryRepository.save(accountHistory);
+        AccountHistory savedHistory = accountHistoryRepository.save(accountHistory);
+        // Newly saved records are always the latest (@PrePersist stamps them with the current time)
+        writeCurrentBalance(account, savedHistory.getBalance());
+        return savedHistory;
     }
 
     @Transactional
@@ -46,7 +62,48 @@ public class AccountHistoryService {
         newHistory.setAccount(account);
         newHistory.setBalance(balance);
         // recordedAt will be set by @PrePersist
-        return accountHistoryRepository.save(newHistory);
+        AccountHistory savedHistory = accountHistoryRepository.save(newHistory);
+        writeCurrentBalance(account, balance);
+        return savedHistory;
+    }
+
+    /**
+     * Adds {@code change} to the account's current balance and appends a history record with
+     * the resulting balance. The balance is changed with a single {@code UPDATE} rather than
+     * read-modify-write, so concurrent changes to the same account are never lost.
+     */
+    @Transactional
+    public AccountHistory applyBalanceChange(Long accountId, BigDecimal change) {
+        return applyBalanceChanges(Map.of(accountId, change)).get(0);
+    }
+
+    /**
+     * Bulk variant of {@link #applyBalanceChange(Long, BigDecimal)}: one history record per
+     * account, inserted with a single {@code saveAll}.
+     */
+    @Transactional
+    public List<AccountHistory> applyBalanceChanges(Map<Long, BigDecimal> changeByAccountId) {
+        Map<Long, Account> accountsById = new HashMap<>();
+        accountRepository.findAllById(changeByAccountId.keySet())
+                .forEach(account -> accountsById.put(account.getId(), account));
+
+        List<AccountHistory> newHistories = new ArrayList<>(changeByAccountId.size());
+        changeByAccountId.forEach((accountId, change) -> {
+            Account account = accountsById.get(accountId);
+            if (account == null || accountRepository.addToCurrentBalance(accountId, change) == 0) {
+                throw new EntityNotFoundException("Account not found with id: " + accountId);
+            }
+            // The update holds the write lock until commit, so this is the balance it produced
+            BigDecimal balance = accountRepository.findCurrentBalanceById(accountId).orElseThrow();
+            account.setBalance(balance);
+            account.setBalanceVersion(account.getBalanceVersion() + 1);
+
+            AccountHistory newHistory = new AccountHistory();
+            newHistory.setAccount(account);
+            newHistory.setBalance(balance);
+            newHistories.add(newHistory);
+        });
+        return accountHistoryRepository.saveAll(newHistories);
     }
 
     public List<AccountHistory> getAccountHistoryByAccountId(Long accountId) {
@@ -83,18 +140,89 @@ public class AccountHistoryService {
             existingHistory.setRecordedAt(accountHistoryDetails.getRecordedAt());
         }
 
-        return accountHistoryRepository.save(existingHistory);
+        AccountHistory savedHistory = accountHistoryRepository.saveAndFlush(existingHistory);
+        // The edited record may or may not be (or become) the latest one
+        refreshCurrentBalance(savedHistory.getAccount());
+        return savedHistory;
     }
 
     @Transactional
     public void deleteAccountHistory(Long id) {
-        if (!accountHistoryRepository.existsById(id)) {
-            throw new EntityNotFoundException("AccountHistory not found with id: " + id);
+        AccountHistory history = accountHistoryRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("AccountHistory not found with id: " + id));
+        Account account = history.getAccount();
+        accountHistoryRepository.delete(history);
+        accountHistoryRepository.flush();
+        refreshCurrentBalance(account);
+    }
+
+    /**
+     * Recomputes the account's current balance from its latest history record, for changes
+     * that may alter which record is the latest.
+     */
+    private void refreshCurrentBalance(Account account) {
+        BigDecimal latestBalance = accountHistoryRepository.findTopByAccountOrderByRecordedAtDesc(account)
+                .map(AccountHistory::getBalance)
+                .orElse(null);
+        writeCurrentBalance(account, latestBalance);
+    }
+
+    private void writeCurrentBalance(Account account, BigDecimal balance) {
+        accountRepository.updateCurrentBalance(account.getId(), balance);
+        // The bulk update bypasses the persistence context; keep the managed instance in step
+        account.setBalance(balance);
+        account.setBalanceVersion(account.getBalanceVersion() + 1);
+    }
+
+    /**
+     * The account's balance at {@code asOf}, i.e. that of its last history record at or
+     * before that time; empty if the account had no history yet (or does not exist).
+     */
+    @Transactional(readOnly = true)
+    public Optional<BigDecimal> getBalanceAsOf(Long accountId, LocalDateTime asOf) {
+        return accountHistoryRepository.findBalanceAsOf(accountId, asOf);
+    }
+
+    /** Balance at {@code asOf} of every account that had history by then, by account id. */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> getBalancesAsOf(LocalDateTime asOf) {
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        for (Object[] row : accountHistoryRepository.findAllBalancesAsOf(BalanceSeriesService.toMillis(asOf))) {
+            if (row[1] != null) {
+                balances.put(((Number) row[0]).longValue(), BalanceSeriesService.toBigDecimal(row[1]));
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * Resolves many (account, time) pairs in a single query, e.g. month-end balances for a
+     * statement. Results are in request order; the balance is {@code null} for pairs without
+     * history at that time.
+     */
+    @Transactional(readOnly = true)
+    public List<AccountBalanceAsOf> getBalancesAsOf(List<BalanceAsOfRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (BalanceAsOfRequest request : requests) {
+            if (request.accountId() == null || request.asOf() == null) {
+                throw new IllegalArgumentException("Each request needs an accountId and an asOf time");
+            }
+            json.add("[" + request.accountId() + "," + BalanceSeriesService.toMillis(request.asOf()) + "]");
+        }
+
+        List<AccountBalanceAsOf> balances = new ArrayList<>(requests.size());
+        for (Object[] row : accountHistoryRepository.findBalancesAsOf(json.toString())) {
+            BalanceAsOfRequest request = requests.get(((Number) row[0]).intValue());
+            balances.add(new AccountBalanceAsOf(request.accountId(), request.asOf(),
+                    row[1] != null ? BalanceSeriesService.toBigDecimal(row[1]) : null));
         }
-        accountHistoryRepository.deleteById(id);
+        return balances;
     }
 
-    // Helper method to get the latest balance for an account
+    // Helper method to get the latest balance for an account from its history
     public Optional<BigDecimal> getLatestBalanceForAccount(Long accountId) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new EntityNotFoundException("Account not found with id: " + accountId));
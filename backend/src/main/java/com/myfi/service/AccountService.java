@@ -1,6 +1,7 @@
 package com.myfi.service;
 
 import com.myfi.model.Account;
+import com.myfi.model.AccountHistory;
 import com.myfi.model.Account.AccountType;
 import com.myfi.model.Transaction;
 import com.myfi.model.Transaction.TransactionType;
@@ -14,11 +15,10 @@ import org.springframework.util.Assert;
 import com.myfi.mailscraping.constants.Constants;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,33 +34,31 @@ public class AccountService {
     @Autowired
     private AccountHistoryService accountHistoryService;
 
+    // Account hierarchy and lookup indexes; invalidated by every change to accounts
+    private final AccountTopologyCache topologyCache;
+
     @Autowired
     public AccountService(AccountRepository accountRepository, AccountHistoryService accountHistoryService) {
         this.accountRepository = accountRepository;
         this.accountHistoryService = accountHistoryService;
+        this.topologyCache = new AccountTopologyCache(accountRepository);
     }
 
+    // Balances are read from the materialized current_balance column, so these are single queries
+
     @Transactional(readOnly = true)
     public List<Account> getAllAccounts() {
-        List<Account> accounts = accountRepository.findAll();
-        accounts.forEach(this::populateLatestBalance);
-        return accounts;
+        return accountRepository.findAll();
     }
 
     @Transactional(readOnly = true)
     public Optional<Account> getAccountById(Long id) {
-        return accountRepository.findById(id).map(account -> {
-            populateLatestBalance(account);
-            return account;
-        });
+        return accountRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
     public Optional<Account> getAccountByAccountNumber(String accountNumber) {
-        return accountRepository.findByAccountNumber(accountNumber).map(account -> {
-            populateLatestBalance(account);
-            return account;
-        });
+        return accountRepository.findByAccountNumber(accountNumber);
     }
 
     @Transactional
@@ -76,6 +74,7 @@ public class AccountService {
 
         BigDecimal initialBalance = account.getBalance();
         Account savedAccount = accountRepository.save(account);
+        topologyCache.invalidate();
 
         accountHistoryService.createAccountHistoryRecord(savedAccount.getId(), initialBalance);
 
@@ -96,7 +95,7 @@ public class AccountService {
                     existingAccount.setParentAccountId(accountDetails.getParentAccountId());
                     existingAccount.setUpdatedAt(LocalDateTime.now());
                     Account updatedAccount = accountRepository.save(existingAccount);
-                    populateLatestBalance(updatedAccount);
+                    topologyCache.invalidate();
                     return updatedAccount;
                 });
     }
@@ -106,6 +105,7 @@ public class AccountService {
         return accountRepository.findById(id)
                 .map(account -> {
                     accountRepository.delete(account);
+                    topologyCache.invalidate();
                     return true;
                 }).orElse(false);
     }
@@ -114,24 +114,14 @@ public class AccountService {
         return Constants.SUPPORTED_ACCOUNTS;
     }
 
-    private void populateLatestBalance(Account account) {
-        BigDecimal latestBalance = accountHistoryService.getLatestBalanceForAccount(account.getId())
-                                        .orElse(BigDecimal.ZERO);
-        account.setBalance(latestBalance);
-    }
+    // Served from the topology cache: the returned account's balance may be out of date
 
     public Account getAccountByCardLast4DigitsNumber(String cardNumber) {
-        return accountRepository.findAll().stream()
-            .filter(account -> account.getAccountNumber().endsWith(cardNumber))
-            .findFirst()
-            .orElse(null);
+        return topologyCache.findByAccountNumberSuffix(cardNumber).orElse(null);
     }
 
     public Account getAccountByTypeAndName(AccountType type, String name) {
-        return accountRepository.findAll().stream()
-            .filter(account -> account.getType() == type && account.getName().equals(name))
-            .findFirst()
-            .orElse(null);
+        return topologyCache.findByTypeAndName(type, name).orElse(null);
     }
 
     public void addToBalance(Account account, Transaction transaction) {
@@ -140,19 +130,47 @@ public class AccountService {
         Assert.notNull(transaction.getAmount(), "Transaction amount must not be null");
         Assert.notNull(transaction.getType(), "Transaction type must not be null");
         
+        updateBalance(account, balanceChangeFor(transaction));
+    }
+
+    /**
+     * Applies the balance effect of many newly created transactions at once.
+     * Changes are summed per root account, so each affected root gets exactly one
+     * new history record instead of one per transaction. Transactions without an
+     * account are ignored.
+     */
+    @Transactional
+    public void addToBalances(List<Transaction> transactions) {
+        Assert.notNull(transactions, "Transactions must not be null");
+
+        Map<Long, BigDecimal> changeByRootId = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            Account account = transaction.getAccount();
+            if (account == null) {
+                continue;
+            }
+            Assert.notNull(transaction.getAmount(), "Transaction amount must not be null");
+            Assert.notNull(transaction.getType(), "Transaction type must not be null");
+
+            topologyCache.findRootAccount(account)
+                    .ifPresent(root -> changeByRootId.merge(root.getId(), balanceChangeFor(transaction), BigDecimal::add));
+        }
+        if (changeByRootId.isEmpty()) {
+            return;
+        }
+
+        accountHistoryService.applyBalanceChanges(changeByRootId);
+    }
+
+    // For account balance updates:
+    // CREDIT = money coming in = positive balance change
+    // DEBIT = money going out = negative balance change
+    private BigDecimal balanceChangeFor(Transaction transaction) {
         BigDecimal amount = transaction.getAmount();
-        BigDecimal balanceChange;
-        
-        // For account balance updates:
-        // CREDIT = money coming in = positive balance change
-        // DEBIT = money going out = negative balance change
         if (transaction.getType() == TransactionType.CREDIT) {
-            balanceChange = amount.abs(); // Always positive for credits
-        } else { // DEBIT
-            balanceChange = amount.abs().negate(); // Always negative for debits
+            return amount.abs(); // Always positive for credits
         }
-        
-        updateBalance(account, balanceChange);
+        return amount.abs().negate(); // Always negative for debits
     }
 
     public void subtractFromBalance(Account account, Transaction transaction) {
@@ -161,24 +179,31 @@ public class AccountService {
         Assert.notNull(transaction.getAmount(), "Transaction amount must not be null");
         Assert.notNull(transaction.getType(), "Transaction type must not be null");
         
-        BigDecimal amount = transaction.getAmount();
-        BigDecimal balanceChange;
-        
         // For balance subtraction (used when deleting transactions):
         // Reverse the effect of the original transaction
-        // If original was CREDIT (+), subtract means (-)
-        // If original was DEBIT (-), subtract means (+)
-        if (transaction.getType() == TransactionType.CREDIT) {
-            balanceChange = amount.abs().negate(); // Remove the positive effect
-        } else { // DEBIT
-            balanceChange = amount.abs(); // Remove the negative effect (add back)
-        }
-        
-        updateBalance(account, balanceChange);
+        updateBalance(account, balanceChangeFor(transaction).negate());
     }
 
+    /**
+     * Applies the change to the balance of the account's root (the account itself when it
+     * has no parent). Nothing is applied if the hierarchy is circular or a parent is missing.
+     */
     public void updateBalance(Account account, BigDecimal balanceChange) {
-        updateBalance(account, balanceChange, new HashSet<>());
+        Assert.notNull(account, "Account must not be null");
+        Assert.notNull(balanceChange, "Balance change must not be null");
+
+        topologyCache.findRootAccount(account).ifPresent(root -> {
+            try {
+                // Applied atomically in the database; concurrent updates must not read-modify-write
+                AccountHistory history = accountHistoryService.applyBalanceChange(root.getId(), balanceChange);
+                if (root == account) {
+                    account.setBalance(history.getBalance());
+                }
+            } catch (Exception e) {
+                logger.error("Failed to update balance for account {}: {}", root.getId(), e.getMessage(), e);
+                throw new RuntimeException("Balance update failed for account " + root.getId(), e);
+            }
+        });
     }
 
     @Transactional
@@ -189,57 +214,18 @@ public class AccountService {
                 .map(account -> {
                     try {
                         // Create new balance history record with the specified balance
+                        // (also updates the account's current balance)
                         accountHistoryService.createAccountHistoryRecord(account.getId(), newBalance);
                         
-                        // Update the account object with the new balance
                         account.setBalance(newBalance);
                         account.setUpdatedAt(LocalDateTime.now());
                         
                         // Save the account (updates timestamp)
-                        Account updatedAccount = accountRepository.save(account);
-                        
-                        // Ensure balance is populated
-                        populateLatestBalance(updatedAccount);
-                        
-                        return updatedAccount;
+                        return accountRepository.save(account);
                     } catch (Exception e) {
                         logger.error("Failed to update balance for account {}: {}", account.getId(), e.getMessage(), e);
                         throw new RuntimeException("Balance update failed for account " + account.getId(), e);
                     }
                 });
     }
-    
-    private void updateBalance(Account account, BigDecimal balanceChange, Set<Long> visitedAccounts) {
-        Assert.notNull(account, "Account must not be null");
-        Assert.notNull(balanceChange, "Balance change must not be null");
-        
-        // Prevent infinite recursion by tracking visited accounts
-        if (visitedAccounts.contains(account.getId())) {
-            logger.warn("Circular reference detected in account hierarchy for account {}", account.getId());
-            return;
-        }
-        
-        visitedAccounts.add(account.getId());
-        
-        if (account.getParentAccountId() == null) {
-            // This is a root account, update its balance directly
-            try {
-                populateLatestBalance(account);
-                BigDecimal currentBalance = account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO;
-                BigDecimal newBalance = currentBalance.add(balanceChange);
-                accountHistoryService.createAccountHistoryRecord(account.getId(), newBalance);
-                account.setBalance(newBalance);
-            } catch (Exception e) {
-                logger.error("Failed to update balance for account {}: {}", account.getId(), e.getMessage(), e);
-                throw new RuntimeException("Balance update failed for account " + account.getId(), e);
-            }
-        } else {
-            // This account has a parent, update the parent's balance instead
-            accountRepository.findById(account.getParentAccountId()).ifPresentOrElse(
-                parentAccount -> updateBalance(parentAccount, balanceChange, visitedAccounts),
-                () -> logger.warn("Parent account {} not found for account {}", 
-                                account.getParentAccountId(), account.getId())
-            );
-        }
-    }
-}
\ No newline at end of file
+}
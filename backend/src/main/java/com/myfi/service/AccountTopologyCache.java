@@ -0,0 +1,189 @@
+package com.myfi.service;
+
+import com.myfi.model.Account;
+import com.myfi.model.Account.AccountType;
+import com.myfi.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory snapshot of the account hierarchy (the root account of every account) and of
+ * the card-suffix and type/name lookups, so balance propagation and those lookups run
+ * without queries. Loaded with a single {@code findAll} on first use and dropped by
+ * {@link #invalidate()} whenever accounts are created, updated or deleted.
+ * <p>
+ * The cached {@link Account} instances are detached and their balances are those at load
+ * time; only their identity and hierarchy fields are meant to be used.
+ */
+final class AccountTopologyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountTopologyCache.class);
+
+    private static final int CARD_SUFFIX_LENGTH = 4;
+
+    private final AccountRepository accountRepository;
+
+    private final Object lock = new Object();
+    // Bumped by every invalidation, so a load that raced with one is not installed
+    private long generation;
+    private volatile Topology topology;
+
+    AccountTopologyCache(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    private record TypeAndName(AccountType type, String name) {}
+
+    private record Topology(List<Account> accounts, Map<Long, Account> accountsById, Map<Long, Long> rootIdById,
+                            Map<String, Account> accountsByCardSuffix, Map<TypeAndName, Account> accountsByTypeAndName) {}
+
+    /**
+     * The account that carries the balance for the given one: itself if it has no parent,
+     * otherwise the top of its parent chain. Empty if the chain is circular or a parent no
+     * longer exists.
+     */
+    Optional<Account> findRootAccount(Account account) {
+        if (account.getParentAccountId() == null) {
+            return Optional.of(account);
+        }
+        Topology current = get();
+        Long rootId = current.rootIdById().get(account.getParentAccountId());
+        if (rootId == null || rootId.equals(account.getId())) {
+            logger.warn("No root account for account {}: circular or missing parent in the account hierarchy",
+                    account.getId());
+            return Optional.empty();
+        }
+        return Optional.of(current.accountsById().get(rootId));
+    }
+
+    /** First account (in id order) whose account number ends with the given digits. */
+    Optional<Account> findByAccountNumberSuffix(String suffix) {
+        Topology current = get();
+        if (suffix.length() == CARD_SUFFIX_LENGTH) {
+            return Optional.ofNullable(current.accountsByCardSuffix().get(suffix));
+        }
+        return current.accounts().stream()
+                .filter(account -> account.getAccountNumber() != null && account.getAccountNumber().endsWith(suffix))
+                .findFirst();
+    }
+
+    Optional<Account> findByTypeAndName(AccountType type, String name) {
+        return Optional.ofNullable(get().accountsByTypeAndName().get(new TypeAndName(type, name)));
+    }
+
+    /**
+     * Drops the snapshot. Inside a transaction it is dropped again once the transaction
+     * completes, so a reload in between cannot keep uncommitted (or rolled back) accounts.
+     */
+    void invalidate() {
+        invalidateNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow();
+                }
+            });
+        }
+    }
+
+    private void invalidateNow() {
+        synchronized (lock) {
+            generation++;
+            topology = null;
+        }
+    }
+
+    private Topology get() {
+        Topology current = topology;
+        if (current != null) {
+            return current;
+        }
+        long loadGeneration;
+        synchronized (lock) {
+            loadGeneration = generation;
+        }
+        Topology loaded = load(accountRepository.findAll());
+        synchronized (lock) {
+            if (generation == loadGeneration) {
+                topology = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private static Topology load(List<Account> accounts) {
+        List<Account> sorted = new ArrayList<>(accounts);
+        sorted.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Map<Long, Account> accountsById = new HashMap<>();
+        Map<String, Account> accountsByCardSuffix = new HashMap<>();
+        Map<TypeAndName, Account> accountsByTypeAndName = new HashMap<>();
+        for (Account account : sorted) {
+            accountsById.put(account.getId(), account);
+            String accountNumber = account.getAccountNumber();
+            if (accountNumber != null && accountNumber.length() >= CARD_SUFFIX_LENGTH) {
+                accountsByCardSuffix.putIfAbsent(accountNumber.substring(accountNumber.length() - CARD_SUFFIX_LENGTH), account);
+            }
+            accountsByTypeAndName.putIfAbsent(new TypeAndName(account.getType(), account.getName()), account);
+        }
+
+        Map<Long, Long> rootIdById = new HashMap<>();
+        Set<Long> unresolved = new HashSet<>();
+        for (Account account : sorted) {
+            resolveRoot(account.getId(), accountsById, rootIdById, unresolved);
+        }
+        return new Topology(List.copyOf(sorted), accountsById, rootIdById, accountsByCardSuffix, accountsByTypeAndName);
+    }
+
+    // Walks up from the account until a root, an already resolved account, a cycle or a
+    // missing parent, then records the outcome for every account on the way
+    private static void resolveRoot(Long accountId, Map<Long, Account> accountsById,
+                                    Map<Long, Long> rootIdById, Set<Long> unresolved) {
+        Set<Long> path = new LinkedHashSet<>();
+        Long rootId = null;
+        Long currentId = accountId;
+        while (true) {
+            if (rootIdById.containsKey(currentId)) {
+                rootId = rootIdById.get(currentId);
+                break;
+            }
+            if (unresolved.contains(currentId)) {
+                break;
+            }
+            if (!path.add(currentId)) {
+                logger.warn("Circular reference detected in account hierarchy for account {}", currentId);
+                break;
+            }
+            Account current = accountsById.get(currentId);
+            if (current == null) {
+                path.remove(currentId);
+                logger.warn("Parent account {} not found in account hierarchy of account {}", currentId, accountId);
+                break;
+            }
+            if (current.getParentAccountId() == null) {
+                rootId = currentId;
+                break;
+            }
+            currentId = current.getParentAccountId();
+        }
+        for (Long id : path) {
+            if (rootId != null) {
+                rootIdById.put(id, rootId);
+            } else {
+                unresolved.add(id);
+            }
+        }
+    }
+}
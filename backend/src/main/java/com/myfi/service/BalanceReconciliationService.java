@@ -0,0 +1,81 @@
+package com.myfi.service;
+
+import com.myfi.repository.AccountRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Periodically recomputes each account's materialized {@code current_balance} from its
+ * latest {@code account_history} record and reports (and by default repairs) any drift.
+ * Accounts without history are expected to have no stored balance.
+ */
+@Service
+public class BalanceReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceReconciliationService.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${myfi.balance-reconciliation.repair:true}")
+    private boolean repair = true;
+
+    public record BalanceDrift(Long accountId, BigDecimal storedBalance, BigDecimal historyBalance) {}
+
+    public record ReconciliationResult(int accountsChecked, List<BalanceDrift> drifts, int repaired) {}
+
+    @Scheduled(fixedDelayString = "${myfi.balance-reconciliation.interval-ms:86400000}",
+               initialDelayString = "${myfi.balance-reconciliation.initial-delay-ms:60000}")
+    @Transactional
+    public ReconciliationResult reconcile() {
+        Set<Long> seen = new HashSet<>();
+        List<BalanceDrift> drifts = new ArrayList<>();
+        int repaired = 0;
+        for (Object[] row : accountRepository.findCurrentAndLatestHistoryBalances()) {
+            Long accountId = (Long) row[0];
+            // Rows are ordered by history id descending within an account; the first one wins
+            if (!seen.add(accountId)) {
+                continue;
+            }
+            BigDecimal stored = (BigDecimal) row[1];
+            long version = ((Number) row[2]).longValue();
+            BigDecimal fromHistory = (BigDecimal) row[3];
+            if (sameBalance(stored, fromHistory)) {
+                continue;
+            }
+            logger.warn("Balance drift on account {}: stored {} but latest history is {}",
+                    accountId, stored, fromHistory);
+            drifts.add(new BalanceDrift(accountId, stored, fromHistory));
+            // Guarded by the version read above, so a concurrent balance write is not overwritten
+            if (repair && accountRepository.updateCurrentBalanceIfVersion(accountId, fromHistory, version) > 0) {
+                repaired++;
+            }
+        }
+        if (!drifts.isEmpty()) {
+            logger.warn("Balance reconciliation found {} drifted accounts out of {}, repaired {}",
+                    drifts.size(), seen.size(), repaired);
+        } else {
+            logger.debug("Balance reconciliation checked {} accounts, no drift", seen.size());
+        }
+        return new ReconciliationResult(seen.size(), drifts, repaired);
+    }
+
+    private static boolean sameBalance(BigDecimal stored, BigDecimal fromHistory) {
+        if (stored == null || fromHistory == null) {
+            return stored == fromHistory;
+        }
+        return stored.compareTo(fromHistory) == 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.myfi.service;
+
+import com.myfi.dto.BalanceCandle;
+import com.myfi.dto.BalancePoint;
+import com.myfi.repository.AccountHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balance time series for charts, per account and for the net worth (the sum of all root
+ * account balances). Bucketing and OHLC aggregation run in SQL over the
+ * {@code account_history} index; series can additionally be downsampled with LTTB so the
+ * payload stays small however much history there is.
+ */
+@Service
+public class BalanceSeriesService {
+
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @Autowired
+    private AccountHistoryRepository accountHistoryRepository;
+
+    /** Bucket size of a series; {@code RAW} returns every history record. */
+    public enum Interval {
+        RAW(null, null),
+        DAY("+0 days", "+0 days"),
+        WEEK("weekday 0", "-6 days"), // the Monday starting the week
+        MONTH("start of month", "+0 days");
+
+        // SQLite date() modifiers that move a date to the start of its bucket
+        private final String startModifier;
+        private final String alignModifier;
+
+        Interval(String startModifier, String alignModifier) {
+            this.startModifier = startModifier;
+            this.alignModifier = alignModifier;
+        }
+    }
+
+    /**
+     * The account's balance over time: every record for {@code RAW}, otherwise the last
+     * balance of each bucket. With {@code maxPoints}, downsampled to at most that many points.
+     */
+    @Transactional(readOnly = true)
+    public List<BalancePoint> getAccountSeries(Long accountId, Interval interval, LocalDateTime from,
+                                               LocalDateTime to, Integer maxPoints) {
+        List<BalancePoint> points = interval == Interval.RAW
+                ? accountHistoryRepository.findBalancePoints(accountId, orMin(from), orMax(to))
+                : closes(getAccountCandles(accountId, interval, from, to));
+        return downsample(points, maxPoints);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BalanceCandle> getAccountCandles(Long accountId, Interval interval, LocalDateTime from, LocalDateTime to) {
+        requireBuckets(interval);
+        return toCandles(accountHistoryRepository.findBalanceCandles(accountId, toMillis(orMin(from)), toMillis(orMax(to)),
+                offsetSeconds(), interval.startModifier, interval.alignModifier));
+    }
+
+    /** Same as {@link #getAccountSeries}, for the net worth over all root accounts. */
+    @Transactional(readOnly = true)
+    public List<BalancePoint> getNetWorthSeries(Interval interval, LocalDateTime from, LocalDateTime to, Integer maxPoints) {
+        List<BalancePoint> points;
+        if (interval == Interval.RAW) {
+            points = new ArrayList<>();
+            for (Object[] row : accountHistoryRepository.findNetWorthPoints(toMillis(orMin(from)), toMillis(orMax(to)))) {
+                points.add(new BalancePoint(toLocalDateTime(row[0]), toBigDecimal(row[1])));
+            }
+        } else {
+            points = closes(getNetWorthCandles(interval, from, to));
+        }
+        return downsample(points, maxPoints);
+    }
+
+    @Transactional(readOnly = true)
+    public List<BalanceCandle> getNetWorthCandles(Interval interval, LocalDateTime from, LocalDateTime to) {
+        requireBuckets(interval);
+        return toCandles(accountHistoryRepository.findNetWorthCandles(toMillis(orMin(from)), toMillis(orMax(to)),
+                offsetSeconds(), interval.startModifier, interval.alignModifier));
+    }
+
+    private static List<BalancePoint> downsample(List<BalancePoint> points, Integer maxPoints) {
+        if (maxPoints == null) {
+            return points;
+        }
+        if (maxPoints < LttbDownsampler.MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + LttbDownsampler.MIN_POINTS);
+        }
+        return LttbDownsampler.downsample(points, maxPoints);
+    }
+
+    private static void requireBuckets(Interval interval) {
+        if (interval == Interval.RAW) {
+            throw new IllegalArgumentException("OHLC series need a DAY, WEEK or MONTH interval");
+        }
+    }
+
+    private static List<BalancePoint> closes(List<BalanceCandle> candles) {
+        List<BalancePoint> points = new ArrayList<>(candles.size());
+        for (BalanceCandle candle : candles) {
+            points.add(new BalancePoint(candle.bucket().atStartOfDay(), candle.close()));
+        }
+        return points;
+    }
+
+    private static List<BalanceCandle> toCandles(List<Object[]> rows) {
+        List<BalanceCandle> candles = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            candles.add(new BalanceCandle(LocalDate.parse(row[0].toString()),
+                    toBigDecimal(row[1]), toBigDecimal(row[2]), toBigDecimal(row[3]), toBigDecimal(row[4])));
+        }
+        return candles;
+    }
+
+    // SQLite returns numeric columns as integers or doubles depending on the stored value
+    static BigDecimal toBigDecimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        Timestamp timestamp = value instanceof Timestamp t ? t : new Timestamp(((Number) value).longValue());
+        return timestamp.toLocalDateTime();
+    }
+
+    private static LocalDateTime orMin(LocalDateTime from) {
+        return from != null ? from : MIN_TIME;
+    }
+
+    private static LocalDateTime orMax(LocalDateTime to) {
+        return to != null ? to : MAX_TIME;
+    }
+
+    // Timestamps are stored as the epoch milliseconds of the local date-time in the JVM zone
+    static long toMillis(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime).getTime();
+    }
+
+    // Buckets use the zone's current UTC offset, so records within an hour of midnight may
+    // land in the neighbouring bucket across a DST change. Also used for history compaction.
+    static long offsetSeconds() {
+        return ZoneId.systemDefault().getRules().getOffset(Instant.now()).getTotalSeconds();
+    }
+}
@@ -0,0 +1,107 @@
+package com.myfi.service;
+
+import com.myfi.model.Account;
+import com.myfi.repository.AccountHistoryRepository;
+import com.myfi.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code account_history} small: records older than the retention window are
+ * collapsed to one end-of-day snapshot per account and day (the last record of the day is
+ * kept, the others deleted). Recent history stays at full resolution, and the latest
+ * record of an account is never removed.
+ * <p>
+ * Deletes run in chunks of {@code chunk-size} rows, each in its own short transaction, so
+ * the single writer connection is never held for long.
+ */
+@Service
+public class HistoryCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryCompactionService.class);
+
+    @Autowired
+    private AccountHistoryRepository accountHistoryRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Value("${myfi.history-compaction.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${myfi.history-compaction.retain-days:90}")
+    private int retainDays = 90;
+
+    @Value("${myfi.history-compaction.chunk-size:500}")
+    private int chunkSize = 500;
+
+    /**
+     * @param cutoff        records before this time (start of a day) are compacted
+     * @param rowsReclaimed rows deleted, or that would be deleted for a dry run
+     */
+    public record CompactionReport(LocalDateTime cutoff, boolean dryRun, long totalRows, long rowsReclaimed,
+                                   Map<Long, Long> rowsReclaimedByAccountId) {}
+
+    @Scheduled(fixedDelayString = "${myfi.history-compaction.interval-ms:86400000}",
+               initialDelayString = "${myfi.history-compaction.initial-delay-ms:600000}")
+    public void compactOnSchedule() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            compact(false);
+        } catch (Exception e) {
+            logger.warn("Account history compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compacts history older than the retention window, or with {@code dryRun} only reports
+     * what would be removed.
+     */
+    public synchronized CompactionReport compact(boolean dryRun) {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retainDays).atStartOfDay();
+        long cutoffMillis = BalanceSeriesService.toMillis(cutoff);
+        long offsetSeconds = BalanceSeriesService.offsetSeconds();
+        long totalRows = accountHistoryRepository.count();
+
+        Map<Long, Long> reclaimedByAccountId = new LinkedHashMap<>();
+        long reclaimed = 0;
+        for (Account account : accountRepository.findAll()) {
+            List<Long> ids = new ArrayList<>();
+            for (Number id : accountHistoryRepository.findSupersededIntraDayIds(account.getId(), cutoffMillis, offsetSeconds)) {
+                ids.add(id.longValue());
+            }
+            if (ids.isEmpty()) {
+                continue;
+            }
+            if (!dryRun) {
+                for (int start = 0; start < ids.size(); start += chunkSize) {
+                    // Each call is its own transaction
+                    accountHistoryRepository.deleteAllByIdInBatch(ids.subList(start, Math.min(start + chunkSize, ids.size())));
+                }
+            }
+            reclaimedByAccountId.put(account.getId(), (long) ids.size());
+            reclaimed += ids.size();
+        }
+
+        if (dryRun) {
+            logger.info("Account history compaction (dry run): {} of {} rows before {} would be removed",
+                    reclaimed, totalRows, cutoff);
+        } else if (reclaimed > 0) {
+            logger.info("Account history compaction removed {} of {} rows before {}", reclaimed, totalRows, cutoff);
+        }
+        return new CompactionReport(cutoff, dryRun, totalRows, reclaimed, reclaimedByAccountId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.myfi.service;
+
+import com.myfi.dto.BalancePoint;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013): keeps the first and last
+ * point and, from each of the buckets in between, the point forming the largest triangle
+ * with the previously kept point and the average of the next bucket. Preserves the visual
+ * shape of a line chart far better than taking every n-th point.
+ */
+final class LttbDownsampler {
+
+    static final int MIN_POINTS = 3;
+
+    private LttbDownsampler() {
+    }
+
+    /** The points reduced to {@code maxPoints}; returned unchanged if already small enough. */
+    static List<BalancePoint> downsample(List<BalancePoint> points, int maxPoints) {
+        int size = points.size();
+        if (maxPoints >= size || maxPoints < MIN_POINTS) {
+            return points;
+        }
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = points.get(i).timestamp().toEpochSecond(ZoneOffset.UTC);
+            y[i] = points.get(i).balance().doubleValue();
+        }
+
+        List<BalancePoint> sampled = new ArrayList<>(maxPoints);
+        sampled.add(points.get(0));
+        // The first and last points are kept as is; the rest is split into maxPoints - 2 buckets
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+
+            int nextStart = end;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            int selected = start;
+            double largestArea = -1;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle's area; only the comparison matters
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > largestArea) {
+                    largestArea = area;
+                    selected = i;
+                }
+            }
+            sampled.add(points.get(selected));
+            previous = selected;
+        }
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+}
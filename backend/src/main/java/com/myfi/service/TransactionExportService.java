@@ -0,0 +1,108 @@
+package com.myfi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfi.dto.TransactionExportRow;
+import com.myfi.model.Transaction;
+import com.myfi.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes transactions to an output stream row by row. Rows come from a forward-only
+ * database cursor and the persistence context is cleared every {@link #CLEAR_EVERY_ROWS}
+ * rows, so heap usage does not depend on the size of the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    static final int CLEAR_EVERY_ROWS = 500;
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public enum ExportFormat {
+        NDJSON,
+        CSV
+    }
+
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, ExportFormat format, OutputStream outputStream) throws IOException {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("A valid date range (from <= to) must be provided.");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atTime(LocalTime.MAX);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long rows = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamByTransactionDateBetween(start, end)) {
+            if (format == ExportFormat.CSV) {
+                writeCsvRecord(writer, TransactionExportRow.CSV_HEADER);
+            }
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                TransactionExportRow row = TransactionExportRow.from(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    writeCsvRecord(writer, row.csvValues());
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++rows % CLEAR_EVERY_ROWS == 0) {
+                    // Drop the entities already written; the cursor keeps going
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        logger.info("Exported {} transactions between {} and {} as {}", rows, from, to, format);
+        return rows;
+    }
+
+    private void writeCsvRecord(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        // Same timestamp format as the JSON output (LocalDateTime#toString drops ":00" seconds)
+        String text = value instanceof LocalDateTime dateTime
+                ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime)
+                : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -3,6 +3,9 @@ package com.myfi.service;
 import com.myfi.credentials.service.CredentialsService;
 import com.myfi.mailscraping.constants.Constants;
 import com.myfi.mailscraping.service.ProcessedGmailMessagesTrackerService;
+import com.myfi.dto.CursorPage;
+import com.myfi.dto.TransactionCursor;
+import com.myfi.dto.TransactionSummary;
 import com.myfi.model.Transaction;
 import com.myfi.repository.TransactionRepository;
 import org.springframework.stereotype.Service;
@@ -10,12 +13,17 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.math.BigDecimal;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -30,6 +38,11 @@ public class TransactionService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
+    // Keeps IN (...) lists well below SQLite's bound-parameter limit
+    private static final int UNIQUE_KEY_LOOKUP_CHUNK_SIZE = 500;
+
+    private static final int MAX_FEED_PAGE_SIZE = 200;
+
     @Autowired
     private TransactionRepository transactionRepository;
 
@@ -47,6 +60,33 @@ public class TransactionService {
         return transactionRepository.findAllByOrderByTransactionDateDesc(pageable);
     }
 
+    /**
+     * Returns the next {@code size} transactions of the date-descending feed after the
+     * given cursor (or from the top when the cursor is null). Unlike offset paging, the
+     * cost of a page does not grow with how deep into the feed it is.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Transaction> getTransactionFeed(String cursor, int size) {
+        if (size < 1 || size > MAX_FEED_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_FEED_PAGE_SIZE);
+        }
+        Pageable pageable = PageRequest.ofSize(size);
+        Slice<Transaction> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = transactionRepository.findFeedFirstPage(pageable);
+        } else {
+            TransactionCursor position = TransactionCursor.decode(cursor);
+            slice = transactionRepository.findFeedAfter(position.transactionDate(), position.id(), pageable);
+        }
+
+        String nextCursor = null;
+        if (slice.hasNext() && slice.hasContent()) {
+            Transaction last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = new TransactionCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(slice.getContent(), nextCursor, nextCursor != null);
+    }
+
     @Transactional(readOnly = true)
     public Optional<Transaction> getTransactionById(Long id) {
         return transactionRepository.findById(id);
@@ -54,28 +94,7 @@ public class TransactionService {
 
     @Transactional
     public Transaction createTransaction(Transaction transaction) {
-        // Basic validation or default setting
-        if (transaction.getCreatedAt() == null) {
-            transaction.setCreatedAt(LocalDateTime.now());
-        }
-        // Ensure mandatory fields are present (basic check)
-        if (transaction.getAmount() == null || transaction.getDescription() == null ||
-                transaction.getType() == null || transaction.getTransactionDate() == null) {
-            throw new IllegalArgumentException(
-                    "Mandatory transaction fields (amount, description, type, transactionDate) must be provided.");
-        }
-
-        // Generate the unique key before checking/saving
-        try {
-            transaction.generateUniqueKey();
-        } catch (IllegalStateException e) {
-            // Handle cases where key generation fails due to missing fields (though
-            // validated above)
-            System.err.println("Error generating unique key: " + e.getMessage());
-            // Depending on requirements, you might throw a specific exception or return an
-            // error indicator
-            throw new IllegalArgumentException("Could not generate unique key due to missing transaction fields.", e);
-        }
+        prepareForCreate(transaction);
 
         // Check for duplicate transaction using the unique key
         Optional<Transaction> existingTransaction = transactionRepository.findByUniqueKey(transaction.getUniqueKey());
@@ -106,6 +125,82 @@ public class TransactionService {
         return savedTransaction;
     }
 
+    /**
+     * Creates a batch of transactions in a single database transaction.
+     * <p>
+     * Duplicates (against the database or earlier entries of the same batch) are
+     * resolved with chunked {@code IN} lookups instead of one query per row, new
+     * rows are written with {@code saveAll} so they go out as JDBC batches, and
+     * balance changes are folded into one history record per affected root account.
+     * A failed balance update rolls back the whole batch, transactions included.
+     *
+     * @return the persisted (or already existing) transaction for each input, in input order
+     */
+    @Transactional
+    public List<Transaction> createTransactions(List<Transaction> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        transactions.forEach(this::prepareForCreate);
+
+        Map<String, Transaction> existingByKey = new HashMap<>();
+        List<String> uniqueKeys = transactions.stream()
+                .map(Transaction::getUniqueKey)
+                .distinct()
+                .toList();
+        for (int from = 0; from < uniqueKeys.size(); from += UNIQUE_KEY_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = uniqueKeys.subList(from, Math.min(from + UNIQUE_KEY_LOOKUP_CHUNK_SIZE, uniqueKeys.size()));
+            transactionRepository.findByUniqueKeyIn(chunk)
+                    .forEach(existing -> existingByKey.putIfAbsent(existing.getUniqueKey(), existing));
+        }
+
+        List<Transaction> toSave = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            if (!existingByKey.containsKey(transaction.getUniqueKey())) {
+                existingByKey.put(transaction.getUniqueKey(), transaction);
+                toSave.add(transaction);
+            }
+        }
+        if (toSave.size() < transactions.size()) {
+            logger.info("Skipping {} duplicate transaction(s) out of {}", transactions.size() - toSave.size(),
+                    transactions.size());
+        }
+
+        List<Transaction> savedTransactions = transactionRepository.saveAll(toSave);
+        // Joins this transaction: if the balance update fails, the whole batch is rolled back
+        // and the exception propagates so callers can fall back to one-by-one inserts
+        accountService.addToBalances(savedTransactions);
+
+        return transactions.stream()
+                .map(transaction -> existingByKey.get(transaction.getUniqueKey()))
+                .toList();
+    }
+
+    private void prepareForCreate(Transaction transaction) {
+        // Basic validation or default setting
+        if (transaction.getCreatedAt() == null) {
+            transaction.setCreatedAt(LocalDateTime.now());
+        }
+        // Ensure mandatory fields are present (basic check)
+        if (transaction.getAmount() == null || transaction.getDescription() == null ||
+                transaction.getType() == null || transaction.getTransactionDate() == null) {
+            throw new IllegalArgumentException(
+                    "Mandatory transaction fields (amount, description, type, transactionDate) must be provided.");
+        }
+
+        // Generate the unique key before checking/saving
+        try {
+            transaction.generateUniqueKey();
+        } catch (IllegalStateException e) {
+            // Handle cases where key generation fails due to missing fields (though
+            // validated above)
+            System.err.println("Error generating unique key: " + e.getMessage());
+            // Depending on requirements, you might throw a specific exception or return an
+            // error indicator
+            throw new IllegalArgumentException("Could not generate unique key due to missing transaction fields.", e);
+        }
+    }
+
     @Transactional
     public Optional<Transaction> updateTransaction(Long id, Transaction transactionDetails) {
         return transactionRepository.findById(id)
@@ -210,25 +305,14 @@ public class TransactionService {
 
     @Transactional(readOnly = true)
     public List<Transaction> getTransactionsForCurrentMonth() {
-        YearMonth currentYearMonth = YearMonth.now();
-        LocalDateTime startOfMonth = currentYearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = currentYearMonth.atEndOfMonth().atTime(LocalTime.MAX);
-        return transactionRepository.findByTransactionDateBetween(startOfMonth, endOfMonth);
+        DateRange range = currentMonthRange();
+        return transactionRepository.findWithAccountByTransactionDateBetween(range.start(), range.end());
     }
 
     @Transactional(readOnly = true)
     public List<Transaction> getTransactionsForMonth(int year, int month) {
-        // Validate month (1-12)
-        if (month < 1 || month > 12) {
-            throw new IllegalArgumentException("Invalid month: " + month + ". Month must be between 1 and 12.");
-        }
-
-        YearMonth yearMonth = YearMonth.of(year, month);
-        LocalDateTime startOfMonth = yearMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = yearMonth.atEndOfMonth().atTime(LocalTime.MAX);
-
-        // Assuming findByTransactionDateBetween exists in TransactionRepository
-        return transactionRepository.findByTransactionDateBetween(startOfMonth, endOfMonth);
+        DateRange range = monthRange(year, month);
+        return transactionRepository.findWithAccountByTransactionDateBetween(range.start(), range.end());
     }
 
     /**
@@ -243,6 +327,50 @@ public class TransactionService {
      */
     @Transactional(readOnly = true)
     public List<Transaction> getTransactionsForRange(int startYear, int startMonth, int endYear, int endMonth) {
+        DateRange range = monthsRange(startYear, startMonth, endYear, endMonth);
+        return transactionRepository.findWithAccountByTransactionDateBetween(range.start(), range.end());
+    }
+
+    /**
+     * Same months as {@link #getTransactionsForMonth(int, int)}, as flat summaries
+     * selected in a single query (newest first).
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getTransactionSummariesForMonth(int year, int month) {
+        DateRange range = monthRange(year, month);
+        return transactionRepository.findSummariesByTransactionDateBetween(range.start(), range.end());
+    }
+
+    /**
+     * Same range as {@link #getTransactionsForRange(int, int, int, int)}, as flat
+     * summaries selected in a single query (newest first).
+     */
+    @Transactional(readOnly = true)
+    public List<TransactionSummary> getTransactionSummariesForRange(int startYear, int startMonth, int endYear, int endMonth) {
+        DateRange range = monthsRange(startYear, startMonth, endYear, endMonth);
+        return transactionRepository.findSummariesByTransactionDateBetween(range.start(), range.end());
+    }
+
+    private record DateRange(LocalDateTime start, LocalDateTime end) {
+    }
+
+    private DateRange currentMonthRange() {
+        YearMonth currentYearMonth = YearMonth.now();
+        return new DateRange(currentYearMonth.atDay(1).atStartOfDay(),
+                currentYearMonth.atEndOfMonth().atTime(LocalTime.MAX));
+    }
+
+    private DateRange monthRange(int year, int month) {
+        // Validate month (1-12)
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Invalid month: " + month + ". Month must be between 1 and 12.");
+        }
+
+        YearMonth yearMonth = YearMonth.of(year, month);
+        return new DateRange(yearMonth.atDay(1).atStartOfDay(), yearMonth.atEndOfMonth().atTime(LocalTime.MAX));
+    }
+
+    private DateRange monthsRange(int startYear, int startMonth, int endYear, int endMonth) {
         // Validate months
         if (startMonth < 1 || startMonth > 12 || endMonth < 1 || endMonth > 12) {
             throw new IllegalArgumentException("Invalid month specified. Months must be between 1 and 12.");
@@ -254,11 +382,7 @@ public class TransactionService {
 
         YearMonth startYearMonth = YearMonth.of(startYear, startMonth);
         YearMonth endYearMonth = YearMonth.of(endYear, endMonth);
-
-        LocalDateTime rangeStart = startYearMonth.atDay(1).atStartOfDay();
-        LocalDateTime rangeEnd = endYearMonth.atEndOfMonth().atTime(LocalTime.MAX);
-
-        return transactionRepository.findByTransactionDateBetween(rangeStart, rangeEnd);
+        return new DateRange(startYearMonth.atDay(1).atStartOfDay(), endYearMonth.atEndOfMonth().atTime(LocalTime.MAX));
     }
 
     /**
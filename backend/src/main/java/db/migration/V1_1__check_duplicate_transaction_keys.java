@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs before V2 makes {@code transactions.uniqueKey} unique. Databases created before the
+ * constraint existed may hold duplicate keys; those are not removed here, since dropping
+ * transactions would leave account history and balances inconsistent. The migration fails
+ * instead, listing the keys, so the duplicates can be merged or deleted by hand first.
+ */
+public class V1_1__check_duplicate_transaction_keys extends BaseJavaMigration {
+
+    private static final int MAX_LISTED_KEYS = 20;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        List<String> duplicates = new ArrayList<>();
+        int duplicateKeyCount = 0;
+        try (Statement statement = context.getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT uniqueKey, COUNT(*) AS copies FROM transactions"
+                     + " GROUP BY uniqueKey HAVING COUNT(*) > 1 ORDER BY uniqueKey")) {
+            while (rs.next()) {
+                duplicateKeyCount++;
+                if (duplicates.size() < MAX_LISTED_KEYS) {
+                    duplicates.add(rs.getString("uniqueKey") + " (" + rs.getInt("copies") + " rows)");
+                }
+            }
+        }
+        if (duplicateKeyCount == 0) {
+            return;
+        }
+
+        String listed = String.join(", ", duplicates);
+        if (duplicateKeyCount > duplicates.size()) {
+            listed += ", and " + (duplicateKeyCount - duplicates.size()) + " more";
+        }
+        throw new FlywayException("Cannot make transactions.uniqueKey unique: " + duplicateKeyCount
+                + " key(s) are shared by more than one transaction: " + listed
+                + ". Merge or delete the duplicate transactions, re-check the affected account balances,"
+                + " and restart to continue the migration.");
+    }
+}
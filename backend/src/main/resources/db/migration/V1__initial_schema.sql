@@ -0,0 +1,91 @@
+-- Schema as previously generated by hbm2ddl.auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate),
+-- so this script only runs against a fresh database file.
+
+CREATE TABLE accounts (
+    id integer,
+    account_number varchar(255) not null,
+    created_at timestamp not null,
+    currency varchar(255) not null,
+    is_active boolean not null,
+    name varchar(255) not null,
+    parent_account_id bigint,
+    type varchar(255) not null check (type in ('SAVINGS','CREDIT_CARD','LOAN','STOCKS','FIXED_DEPOSIT','MUTUAL_FUND','CRYPTO')),
+    updated_at timestamp,
+    primary key (id)
+);
+
+CREATE TABLE account_history (
+    id integer,
+    balance numeric(38,2) not null,
+    recorded_at timestamp not null,
+    account_id bigint not null,
+    primary key (id)
+);
+
+CREATE TABLE transactions (
+    id integer,
+    amount numeric(38,2) not null,
+    counter_party varchar(255),
+    created_at timestamp not null,
+    currency_code varchar(3),
+    description varchar(255) not null,
+    email_message_id varchar(255),
+    exclude_from_accounting boolean default FALSE not null,
+    is_manual_entry boolean default FALSE not null,
+    notes varchar(255),
+    original_amount numeric(38,2),
+    parent_id bigint,
+    tag_id bigint,
+    transaction_date timestamp not null,
+    type varchar(255) not null check (type in ('CREDIT','DEBIT')),
+    uniqueKey varchar(64) not null,
+    updated_at timestamp,
+    account bigint,
+    primary key (id)
+);
+
+CREATE TABLE tags (
+    id integer,
+    name varchar(255) not null unique,
+    order_index integer,
+    parent_tag_id bigint,
+    primary key (id)
+);
+
+CREATE TABLE generic_credentials (
+    id integer,
+    credentialKey varchar(255) not null unique,
+    value varchar(1024) not null,
+    primary key (id)
+);
+
+CREATE TABLE google_oauth_token (
+    id bigint not null,
+    refresh_token varchar(1024) not null,
+    updated_at timestamp not null,
+    primary key (id)
+);
+
+CREATE TABLE system_status (
+    id bigint not null,
+    last_scrape_time bigint,
+    primary key (id)
+);
+
+CREATE TABLE processed_gmail_messages (
+    id integer,
+    firstProcessedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP not null,
+    lastProcessedAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP not null,
+    messageDateTime timestamp not null,
+    messageId varchar(255) not null unique,
+    transactionCount integer not null,
+    primary key (id)
+);
+
+CREATE TABLE processed_gmail_message_accounts (
+    processed_message_id bigint not null,
+    account_number varchar(255)
+);
+
+CREATE INDEX idx_processed_gmail_message_datetime on processed_gmail_messages (messageDateTime);
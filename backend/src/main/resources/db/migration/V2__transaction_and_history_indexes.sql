@@ -0,0 +1,27 @@
+-- Indexes for the access paths used on every page load and balance read.
+-- IF NOT EXISTS keeps this safe on databases that were indexed by hand.
+
+-- findByTransactionDateBetween / findAllByOrderByTransactionDateDesc
+CREATE INDEX IF NOT EXISTS idx_transactions_transaction_date ON transactions (transaction_date);
+
+-- findByAccountId (paged, ordered by date)
+CREATE INDEX IF NOT EXISTS idx_transactions_account_date ON transactions (account, transaction_date);
+
+-- findByTagId
+CREATE INDEX IF NOT EXISTS idx_transactions_tag_id ON transactions (tag_id);
+
+-- Transaction.subTransactions (split/merge)
+CREATE INDEX IF NOT EXISTS idx_transactions_parent_id ON transactions (parent_id);
+
+-- findByUniqueKey duplicate checks, and the database-level guard against duplicate
+-- transactions (Transaction.uniqueKey is unique). V1_1 has already failed the migration if
+-- an older database holds duplicate keys, so this never drops data.
+DROP INDEX IF EXISTS idx_transactions_unique_key;
+CREATE UNIQUE INDEX idx_transactions_unique_key ON transactions (uniqueKey);
+
+-- findTopByAccountOrderByRecordedAtDesc / findByAccountOrderByRecordedAtDesc
+CREATE INDEX IF NOT EXISTS idx_account_history_account_recorded_at ON account_history (account_id, recorded_at);
+
+-- Processed-message lookups by message and by account number
+CREATE INDEX IF NOT EXISTS idx_processed_gmail_message_accounts_message ON processed_gmail_message_accounts (processed_message_id);
+CREATE INDEX IF NOT EXISTS idx_processed_gmail_message_accounts_number ON processed_gmail_message_accounts (account_number);
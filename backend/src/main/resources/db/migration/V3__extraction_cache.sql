@@ -0,0 +1,12 @@
+-- Content-addressed cache of LLM extraction results, keyed by a SHA-256 of the
+-- schema version, model and normalized email text.
+CREATE TABLE extraction_cache (
+    cache_key varchar(64) not null,
+    model varchar(255) not null,
+    response_json TEXT not null,
+    created_at timestamp not null,
+    primary key (cache_key)
+);
+
+-- TTL and size eviction remove the oldest entries first
+CREATE INDEX idx_extraction_cache_created_at ON extraction_cache (created_at);
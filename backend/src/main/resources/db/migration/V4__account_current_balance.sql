@@ -0,0 +1,12 @@
+-- Current balance of each account, denormalized from its latest account_history row so
+-- listing accounts needs no per-account history lookup. Written in the same transaction
+-- as every history append; balance_version counts those writes.
+ALTER TABLE accounts ADD COLUMN current_balance numeric(38,2);
+ALTER TABLE accounts ADD COLUMN balance_version bigint default 0 not null;
+
+UPDATE accounts SET current_balance = (
+    SELECT h.balance FROM account_history h
+    WHERE h.account_id = accounts.id
+    ORDER BY h.recorded_at DESC, h.id DESC
+    LIMIT 1
+);
@@ -0,0 +1,88 @@
+package com.myfi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HikariDataSource writer;
+    private HikariDataSource reader;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("routing.db");
+        writer = pool("writer", url, 1, null);
+        reader = pool("reader", url, 2, "PRAGMA query_only = 1");
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.WRITER, writer,
+                ReadWriteRoutingDataSource.Route.READER, reader));
+        routing.setDefaultTargetDataSource(writer);
+        routing.afterPropertiesSet();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.close();
+        writer.close();
+    }
+
+    @Test
+    void readOnlyTransaction_shouldUseQueryOnlyReaderConnection() {
+        transactionTemplate.setReadOnly(true);
+
+        Exception exception = assertThrows(Exception.class, () -> transactionTemplate.executeWithoutResult(
+                status -> jdbcTemplate.update("INSERT INTO items (name) VALUES ('x')")));
+
+        assertTrue(exception.getMessage().contains("readonly"));
+        assertEquals(0, writer.getHikariPoolMXBean().getActiveConnections());
+    }
+
+    @Test
+    void readWriteTransaction_shouldUseWriterConnection() {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO items (name) VALUES ('x')"));
+
+        transactionTemplate.setReadOnly(true);
+        Integer count = transactionTemplate.execute(
+                status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Integer.class));
+
+        assertEquals(1, count);
+    }
+
+    private HikariDataSource pool(String name, String url, int size, String initSql) {
+        SQLiteDataSource sqlite = new SQLiteDataSource();
+        sqlite.setUrl(url);
+        sqlite.setJournalMode("WAL");
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDataSource(sqlite);
+        config.setMaximumPoolSize(size);
+        config.setConnectionInitSql(initSql);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,52 @@
+package com.myfi.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class WebConfigTest {
+
+    private static Path databaseDirectory;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+    @Autowired
+    private ThreadPoolTaskExecutor applicationTaskExecutor;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        databaseDirectory = Files.createTempDirectory("myfi-web");
+        registry.add("spring.datasource.url", () -> databaseDirectory.resolve("web.db").toString());
+        registry.add("logging.level.com.myfi", () -> "WARN");
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (var files = Files.walk(databaseDirectory)) {
+            files.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void mvcAsyncRequests_shouldRunOnThePooledApplicationExecutor() {
+        // Act
+        Object mvcExecutor = ReflectionTestUtils.getField(handlerAdapter, "taskExecutor");
+
+        // Assert
+        assertSame(applicationTaskExecutor, mvcExecutor);
+    }
+}
@@ -1,5 +1,7 @@
 package com.myfi.controller;
 
+import com.myfi.mailscraping.service.EmailDetailsExtractionService;
+import com.myfi.mailscraping.service.ExtractionCacheService;
 import com.myfi.service.SystemStatusService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,6 +10,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.BDDMockito.given;
@@ -24,6 +27,12 @@ class SystemStatusControllerTest {
     @MockBean
     private SystemStatusService systemStatusService;
 
+    @MockBean
+    private ExtractionCacheService extractionCacheService;
+
+    @MockBean
+    private EmailDetailsExtractionService emailDetailsExtractionService;
+
     @Test
     void getLastScrapeTime_shouldReturnTimeWhenFound() throws Exception {
         long expectedTime = Instant.now().toEpochMilli();
@@ -42,4 +51,28 @@ class SystemStatusControllerTest {
         mockMvc.perform(get("/api/v1/status/last-scrape-time"))
                .andExpect(status().isNotFound());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getExtractionCacheStats_shouldReturnCounters() throws Exception {
+        given(extractionCacheService.getStats())
+                .willReturn(new ExtractionCacheService.Stats(true, 3, 1, 4, 0.5, 3, 10, 0));
+
+        mockMvc.perform(get("/api/v1/status/extraction-cache"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.memoryHits", is(3)))
+               .andExpect(jsonPath("$.misses", is(4)))
+               .andExpect(jsonPath("$.hitRate", is(0.5)));
+    }
+
+    @Test
+    void getExtractorStats_shouldReturnPerExtractorHitRates() throws Exception {
+        given(emailDetailsExtractionService.getStats()).willReturn(new EmailDetailsExtractionService.Stats(10, 8, 2, 0.8,
+                List.of(new EmailDetailsExtractionService.ExtractorStats("hdfc-upi-debit", 9, 8, 8.0 / 9))));
+
+        mockMvc.perform(get("/api/v1/status/extractors"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.servedLocally", is(8)))
+               .andExpect(jsonPath("$.extractors[0].name", is("hdfc-upi-debit")))
+               .andExpect(jsonPath("$.extractors[0].hits", is(8)));
+    }
+}
@@ -1,9 +1,13 @@
 package com.myfi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfi.dto.CursorPage;
+import com.myfi.dto.TransactionSummary;
 import com.myfi.model.Account;
 import com.myfi.model.Transaction;
 import com.myfi.model.Transaction.TransactionType;
+import com.myfi.service.TransactionExportService;
+import com.myfi.service.TransactionExportService.ExportFormat;
 import com.myfi.service.TransactionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,15 +21,20 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
@@ -39,6 +48,9 @@ class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @MockBean
+    private TransactionExportService transactionExportService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -71,6 +83,72 @@ class TransactionControllerTest {
         transaction2.generateUniqueKey();
     }
 
+    @Test
+    void getTransactionFeed_shouldReturnContentAndNextCursor() throws Exception {
+        CursorPage<Transaction> page = new CursorPage<>(List.of(transaction2), "abc", true);
+        given(transactionService.getTransactionFeed(eq("xyz"), eq(1))).willReturn(page);
+
+        mockMvc.perform(get("/api/v1/transactions/feed").param("cursor", "xyz").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].id", is(2)))
+                .andExpect(jsonPath("$.nextCursor", is("abc")))
+                .andExpect(jsonPath("$.hasNext", is(true)));
+    }
+
+    @Test
+    void getTransactionFeed_shouldReturnBadRequestForInvalidCursor() throws Exception {
+        given(transactionService.getTransactionFeed(eq("bad"), eq(20)))
+                .willThrow(new IllegalArgumentException("Invalid cursor: bad"));
+
+        mockMvc.perform(get("/api/v1/transactions/feed").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getTransactionSummariesForRange_shouldReturnFlatSummaries() throws Exception {
+        TransactionSummary summary = new TransactionSummary(2L, BigDecimal.valueOf(200.50), TransactionType.CREDIT,
+                transaction2.getTransactionDate(), "Credit Txn", null, 5L, 1L, null, false);
+        given(transactionService.getTransactionSummariesForRange(2024, 1, 2024, 12)).willReturn(List.of(summary));
+
+        mockMvc.perform(get("/api/v1/transactions/range/summary")
+                        .param("startYear", "2024").param("startMonth", "1")
+                        .param("endYear", "2024").param("endMonth", "12"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[0].accountId", is(1)))
+                .andExpect(jsonPath("$[0].tagId", is(5)))
+                .andExpect(jsonPath("$[0].account").doesNotExist());
+    }
+
+    @Test
+    void exportTransactionsAsCsv_shouldStreamServiceOutputAsAttachment() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 1, 31);
+        willAnswer(invocation -> {
+            invocation.getArgument(3, OutputStream.class).write("id\r\n1\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).given(transactionExportService).export(eq(from), eq(to), eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/transactions/export/csv")
+                        .param("from", "2024-01-01").param("to", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("transactions-2024-01-01-to-2024-01-31.csv")))
+                .andExpect(content().string("id\r\n1\r\n"));
+    }
+
+    @Test
+    void exportTransactionsAsNdjson_shouldRejectInvertedRange() throws Exception {
+        mockMvc.perform(get("/api/v1/transactions/export/ndjson")
+                        .param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getAllTransactions_shouldReturnListOfTransactions() throws Exception {
         Pageable pageable = PageRequest.of(0, 20);
@@ -0,0 +1,123 @@
+package com.myfi.mailscraping.benchmark;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A deterministic mailbox of bank alert emails for the fake servers. Most emails use the
+ * wording of the built-in bank alert templates, some use free-form wording only the LLM
+ * understands, and the rest come from unrelated senders. Every email carries a unique
+ * reference, which the fake OpenAI server uses to look up the canned extraction.
+ */
+public class BankEmailCorpus {
+
+    public static final String HDFC_SENDER = "HDFC Bank InstaAlerts <alerts@hdfcbank.net>";
+    public static final String ICICI_SENDER = "ICICI Bank <credit_cards@icicibank.com>";
+    public static final String HDFC_CARD_LAST4 = "4321";
+    public static final String ICICI_CARD_LAST4 = "5555";
+
+    private static final Pattern REFERENCE = Pattern.compile("Ref:\\s*(\\S+?)\\.?(?:\\s|$)");
+    private static final List<String> MERCHANTS = List.of("AMAZON PAY INDIA", "SWIGGY", "ZOMATO", "UBER INDIA", "BIGBASKET", "IRCTC");
+
+    public record BankEmail(String id, String from, String subject, long internalDate, String body,
+                            String extractionJson) {
+    }
+
+    private final List<BankEmail> emails;
+    private final Map<String, BankEmail> byId = new HashMap<>();
+    private final Map<String, BankEmail> byReference = new HashMap<>();
+
+    private BankEmailCorpus(List<BankEmail> emails) {
+        this.emails = Collections.unmodifiableList(emails);
+        for (BankEmail email : emails) {
+            byId.put(email.id(), email);
+            Matcher matcher = REFERENCE.matcher(email.body());
+            if (matcher.find()) {
+                byReference.put(matcher.group(1), email);
+            }
+        }
+    }
+
+    /**
+     * @param idPrefix keeps ids (and references) unique across mailboxes served by one run
+     */
+    public static BankEmailCorpus generate(String idPrefix, int size, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime start = LocalDateTime.now(ZoneOffset.UTC).minusDays(20);
+        List<BankEmail> emails = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String id = idPrefix + String.format("%06d", i);
+            String reference = id.toUpperCase(Locale.ROOT);
+            LocalDateTime sentAt = start.plusSeconds((long) i * 20 * 24 * 3600 / Math.max(1, size));
+            long internalDate = sentAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+            double amount = 10 + random.nextInt(500_000) / 100.0;
+            String merchant = MERCHANTS.get(random.nextInt(MERCHANTS.size()));
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                String body = String.format(Locale.ROOT, "Dear Customer, Rs.%,.2f is debited from your HDFC Bank Credit Card ending %s "
+                        + "towards %s on %s at %s. Ref: %s. If you did not authorize this transaction, call us.",
+                        amount, HDFC_CARD_LAST4, merchant, sentAt.format(DateTimeFormatter.ofPattern("dd MMM, yyyy", Locale.ENGLISH)),
+                        sentAt.format(DateTimeFormatter.ofPattern("HH:mm:ss")), reference);
+                emails.add(new BankEmail(id, HDFC_SENDER, "Debit alert", internalDate, body,
+                        transactionJson(amount, sentAt, merchant, HDFC_CARD_LAST4)));
+            } else if (kind < 7) {
+                String body = String.format(Locale.ROOT, "Dear Customer, Your ICICI Bank Credit Card XX%s has been used for a transaction "
+                        + "of INR %.2f on %s at %s. Info: %s. Ref: %s. The Available Credit Limit on your card is INR 1,00,000.00",
+                        ICICI_CARD_LAST4, amount, sentAt.format(DateTimeFormatter.ofPattern("MMM dd, yyyy", Locale.ENGLISH)),
+                        sentAt.format(DateTimeFormatter.ofPattern("HH:mm:ss")), merchant, reference);
+                emails.add(new BankEmail(id, ICICI_SENDER, "Transaction alert", internalDate, body,
+                        transactionJson(amount, sentAt, merchant, ICICI_CARD_LAST4)));
+            } else if (kind < 9) {
+                // Wording none of the templates know, so it always needs the LLM
+                String body = String.format(Locale.ROOT, "Hello, a purchase of INR %.2f was made at %s using your HDFC Bank "
+                        + "Credit Card ending %s on %s. Ref: %s. Not you? Block your card from the app.",
+                        amount, merchant, HDFC_CARD_LAST4, sentAt.format(DateTimeFormatter.ofPattern("dd-MM-yyyy")), reference);
+                emails.add(new BankEmail(id, HDFC_SENDER, "You made a purchase", internalDate, body,
+                        transactionJson(amount, sentAt, merchant, HDFC_CARD_LAST4)));
+            } else {
+                String body = "This week's top deals, just for you. Ref: " + reference + ". Unsubscribe any time.";
+                emails.add(new BankEmail(id, "Deals <newsletter@shopping.example>", "Weekly deals", internalDate, body, null));
+            }
+        }
+        return new BankEmailCorpus(emails);
+    }
+
+    private static String transactionJson(double amount, LocalDateTime date, String merchant, String accountNumber) {
+        return String.format(Locale.ROOT, "{\"amount\": %.2f, \"currency_code\": \"INR\", \"transaction_date\": \"%s\", "
+                + "\"transaction_type\": \"DEBIT\", \"description\": \"%s\", \"account_number\": \"%s\", "
+                + "\"email_type\": \"TRANSACTION_INFORMATION\", \"is_transaction_successful\": true, "
+                + "\"is_pixel_card_transaction\": false}", amount, date.toLocalDate(), merchant, accountNumber);
+    }
+
+    /** Newest first, like Gmail lists them. */
+    public List<BankEmail> emails() {
+        List<BankEmail> newestFirst = new ArrayList<>(emails);
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    public BankEmail findById(String id) {
+        return byId.get(id);
+    }
+
+    /** The canned extraction for an email text containing one of this corpus' references. */
+    public String extractionFor(String emailText) {
+        Matcher matcher = REFERENCE.matcher(emailText);
+        BankEmail email = matcher.find() ? byReference.get(matcher.group(1)) : null;
+        return email == null || email.extractionJson() == null ? "{}" : email.extractionJson();
+    }
+
+    public long countFromSenders(List<String> senders) {
+        return emails.stream().filter(email -> senders.stream().anyMatch(email.from()::contains)).count();
+    }
+}
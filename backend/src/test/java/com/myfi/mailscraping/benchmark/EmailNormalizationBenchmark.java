@@ -0,0 +1,102 @@
+package com.myfi.mailscraping.benchmark;
+
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+import com.myfi.mailscraping.service.EmailParser;
+import com.myfi.mailscraping.service.NormalizedEmailText;
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of turning a Gmail message into the text the account matcher and the
+ * extractors work on: the previous pipeline (Jsoup clean, regex whitespace passes and a
+ * separate lower-casing for matching) against {@link EmailParser#extractNormalizedText}.
+ * Messages are the {@link BankEmailCorpus} alerts wrapped in a typical bank HTML layout,
+ * with a plain text alternative. Run through {@link EmailNormalizationBenchmarkTest}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailNormalizationBenchmark {
+
+    private static final String HTML_TEMPLATE = "<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Alert</title>"
+            + "<style>td { font-family: Arial; font-size: 13px; } .footer { color: #888; }</style></head>"
+            + "<body><table width=\"600\" cellpadding=\"0\" cellspacing=\"0\" border=\"0\">\n"
+            + "  <tr><td><img src=\"https://example.com/logo.png\" alt=\"Bank\"></td></tr>\n"
+            + "  <tr><td>\n    <p>%s</p>\n  </td></tr>\n"
+            + "  <!-- marketing slot -->\n"
+            + "  <tr><td class=\"footer\">&copy; Bank Ltd. &nbsp;|&nbsp; Terms &amp; Conditions &nbsp;|&nbsp; "
+            + "<a href=\"https://example.com/unsubscribe?id=1&amp;t=2\">Unsubscribe</a></td></tr>\n"
+            + "</table></body></html>";
+
+    private final EmailParser emailParser = new EmailParser();
+    private List<Message> messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        messages = BankEmailCorpus.generate("bench", 256, 42).emails().stream()
+                .map(email -> message(email.id(), email.body()))
+                .toList();
+    }
+
+    @Benchmark
+    public void previousPipeline(Blackhole blackhole) {
+        Message message = nextMessage();
+        String html = new String(Base64.getUrlDecoder().decode(message.getPayload().getParts().get(1).getBody().getData()),
+                StandardCharsets.UTF_8);
+        // EmailParser (the "\s" in the old pattern was a Java string escape for a space)
+        String text = Jsoup.clean(html, Safelist.none()).replaceAll(" +", " ").trim();
+        // GmailService
+        text = text.replaceAll("\\s", " ");
+        blackhole.consume(text);
+        // AccountMatchingService, bank name matching
+        blackhole.consume(text.toLowerCase());
+    }
+
+    @Benchmark
+    public void normalizedText(Blackhole blackhole) {
+        NormalizedEmailText text = emailParser.extractNormalizedText(nextMessage());
+        blackhole.consume(text.getText());
+        blackhole.consume(text.getLowerCaseText());
+    }
+
+    private Message nextMessage() {
+        Message message = messages.get(next);
+        next = (next + 1) % messages.size();
+        return message;
+    }
+
+    static Message message(String id, String body) {
+        MessagePart plain = part("text/plain", body);
+        MessagePart html = part("text/html", String.format(HTML_TEMPLATE, body));
+        return new Message().setId(id)
+                .setPayload(new MessagePart().setMimeType("multipart/alternative").setParts(List.of(plain, html)));
+    }
+
+    private static MessagePart part(String mimeType, String content) {
+        String data = Base64.getUrlEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+        return new MessagePart().setMimeType(mimeType).setBody(new MessagePartBody().setData(data));
+    }
+}
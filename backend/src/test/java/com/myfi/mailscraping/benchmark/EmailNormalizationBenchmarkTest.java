@@ -0,0 +1,57 @@
+package com.myfi.mailscraping.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link EmailNormalizationBenchmark} with the GC profiler and checks that the
+ * single-pass normalization allocates less per message than the previous pipeline.
+ * <p>
+ * Skipped unless enabled:
+ * <pre>
+ * mvn test -Dtest=EmailNormalizationBenchmarkTest -Dmyfi.benchmark=true
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "myfi.benchmark", matches = "true")
+class EmailNormalizationBenchmarkTest {
+
+    @Test
+    void normalizedText_shouldAllocateLessPerMessageThanPreviousPipeline() throws Exception {
+        // Arrange
+        Options options = new OptionsBuilder()
+                .include(EmailNormalizationBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Xmx512m")
+                .build();
+
+        // Act
+        Collection<RunResult> results = new Runner(options).run();
+
+        // Assert
+        double previousBytes = allocatedBytesPerMessage(results, "previousPipeline");
+        double normalizedBytes = allocatedBytesPerMessage(results, "normalizedText");
+        System.out.printf("Allocated per message: previous pipeline %.0f B, normalized text %.0f B (%.1fx less)%n",
+                previousBytes, normalizedBytes, previousBytes / normalizedBytes);
+        assertTrue(normalizedBytes < previousBytes);
+    }
+
+    private static double allocatedBytesPerMessage(Collection<RunResult> results, String benchmark) {
+        RunResult result = results.stream()
+                .filter(run -> run.getParams().getBenchmark().endsWith("." + benchmark))
+                .findFirst()
+                .orElseThrow();
+        Result allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+        assertNotNull(allocation, "GC profiler did not report gc.alloc.rate.norm");
+        return allocation.getScore();
+    }
+}
@@ -0,0 +1,166 @@
+package com.myfi.mailscraping.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfi.mailscraping.benchmark.BankEmailCorpus.BankEmail;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the parts of the Gmail API the sync uses: profile, message list,
+ * single message get and the batch endpoint. Messages come from a {@link BankEmailCorpus}.
+ * History is not kept, so incremental syncs get a 404 and fall back to the full query.
+ * Point the app at it with {@code myfi.gmail.root-url=<base url>/}.
+ */
+public class FakeGmailServer extends FakeApiServer {
+
+    private static final String MESSAGES_PATH = "/gmail/v1/users/me/messages";
+    private static final Pattern BATCH_PART_REQUEST = Pattern.compile("(?m)^GET (\\S+)");
+    private static final Pattern EMAIL_ADDRESS = Pattern.compile("[\\w.+-]+@[\\w.-]+");
+    private static final int PAGE_SIZE = 500;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile BankEmailCorpus mailbox = BankEmailCorpus.generate("empty", 0, 0);
+
+    private record Response(int status, String json) {
+    }
+
+    public FakeGmailServer() throws IOException {
+    }
+
+    public void setMailbox(BankEmailCorpus mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws Exception {
+        simulateLatency();
+        URI uri = exchange.getRequestURI();
+        if ("POST".equals(exchange.getRequestMethod()) && uri.getPath().startsWith("/batch")) {
+            handleBatch(exchange);
+            return;
+        }
+        Response response = injectError() ? rateLimited() : route(uri);
+        send(exchange, response.status(), "application/json; charset=UTF-8", response.json());
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String body = readBody(exchange);
+        List<Response> responses = new ArrayList<>();
+        Matcher matcher = BATCH_PART_REQUEST.matcher(body);
+        while (matcher.find()) {
+            responses.add(injectError() ? rateLimited() : route(URI.create(matcher.group(1))));
+        }
+
+        String boundary = "batch_fake_gmail";
+        StringBuilder multipart = new StringBuilder();
+        for (int i = 0; i < responses.size(); i++) {
+            Response response = responses.get(i);
+            multipart.append("--").append(boundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(i + 1).append(">\r\n\r\n")
+                    .append("HTTP/1.1 ").append(response.status()).append(response.status() == 200 ? " OK" : " Error").append("\r\n")
+                    .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                    .append(response.json()).append("\r\n");
+        }
+        multipart.append("--").append(boundary).append("--\r\n");
+        send(exchange, 200, "multipart/mixed; boundary=" + boundary, multipart.toString());
+    }
+
+    private Response route(URI uri) throws IOException {
+        String path = uri.getPath();
+        Map<String, String> query = parseQuery(uri.getRawQuery());
+        if (path.equals("/gmail/v1/users/me/profile")) {
+            return ok(Map.of("emailAddress", "benchmark@example.com", "historyId", "1000"));
+        }
+        if (path.equals(MESSAGES_PATH)) {
+            return listMessages(query);
+        }
+        if (path.startsWith(MESSAGES_PATH + "/")) {
+            BankEmail email = mailbox.findById(path.substring(MESSAGES_PATH.length() + 1));
+            return email == null ? error(404, "Not Found", "notFound") : ok(message(email, query.getOrDefault("format", "full")));
+        }
+        return error(404, "Not Found", "notFound");
+    }
+
+    /** Honours the {@code from:} part of the sync's query, ignores the date bound. */
+    private Response listMessages(Map<String, String> query) throws IOException {
+        List<String> senders = new ArrayList<>();
+        Matcher sender = EMAIL_ADDRESS.matcher(query.getOrDefault("q", ""));
+        while (sender.find()) {
+            senders.add(sender.group());
+        }
+        List<BankEmail> emails = mailbox.emails().stream()
+                .filter(email -> senders.isEmpty() || senders.stream().anyMatch(email.from()::contains))
+                .toList();
+        int offset = query.containsKey("pageToken") ? Integer.parseInt(query.get("pageToken")) : 0;
+        int end = Math.min(emails.size(), offset + PAGE_SIZE);
+        List<Map<String, Object>> page = new ArrayList<>();
+        for (BankEmail email : emails.subList(Math.min(offset, end), end)) {
+            page.add(Map.of("id", email.id(), "threadId", email.id()));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("messages", page);
+        response.put("resultSizeEstimate", emails.size());
+        if (end < emails.size()) {
+            response.put("nextPageToken", String.valueOf(end));
+        }
+        return ok(response);
+    }
+
+    private Map<String, Object> message(BankEmail email, String format) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("mimeType", "text/plain");
+        payload.put("headers", List.of(
+                Map.of("name", "From", "value", email.from()),
+                Map.of("name", "Subject", "value", email.subject()),
+                Map.of("name", "Date", "value", String.valueOf(email.internalDate()))));
+        if ("full".equals(format)) {
+            byte[] body = email.body().getBytes(StandardCharsets.UTF_8);
+            payload.put("body", Map.of("size", body.length, "data", Base64.getUrlEncoder().encodeToString(body)));
+        }
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("id", email.id());
+        message.put("threadId", email.id());
+        message.put("internalDate", String.valueOf(email.internalDate()));
+        message.put("payload", payload);
+        return message;
+    }
+
+    private Response ok(Object body) throws IOException {
+        return new Response(200, objectMapper.writeValueAsString(body));
+    }
+
+    private static Response rateLimited() {
+        return error(429, "Rate Limit Exceeded", "rateLimitExceeded");
+    }
+
+    private static Response error(int status, String message, String reason) {
+        return new Response(status, "{\"error\":{\"code\":" + status + ",\"message\":\"" + message
+                + "\",\"errors\":[{\"message\":\"" + message + "\",\"reason\":\"" + reason + "\"}]}}");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new LinkedHashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.putIfAbsent(pair.substring(0, separator),
+                        java.net.URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+}
@@ -0,0 +1,111 @@
+package com.myfi.mailscraping.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for OpenAI's chat completions endpoint. Answers each request with the
+ * canned extraction the {@link BankEmailCorpus} holds for the email(s) in the prompt,
+ * for both single-email and batched requests. Rate limiting is simulated with 429s.
+ * Point the app at it with {@code myfi.openai.base-url=<base url>}.
+ */
+public class FakeOpenAiServer extends FakeApiServer {
+
+    private static final Pattern BATCHED_EMAIL = Pattern.compile("<email index=\"(\\d+)\">\\n(.*?)\\n</email>", Pattern.DOTALL);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong emailsExtracted = new AtomicLong();
+    private final AtomicLong promptCharacters = new AtomicLong();
+    private volatile BankEmailCorpus corpus = BankEmailCorpus.generate("empty", 0, 0);
+
+    public FakeOpenAiServer() throws IOException {
+    }
+
+    public void setCorpus(BankEmailCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+    public long getEmailsExtracted() {
+        return emailsExtracted.get();
+    }
+
+    /** Characters of system and user messages received, a proxy for prompt tokens. */
+    public long getPromptCharacters() {
+        return promptCharacters.get();
+    }
+
+    @Override
+    public void resetCounters() {
+        super.resetCounters();
+        emailsExtracted.set(0);
+        promptCharacters.set(0);
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws Exception {
+        simulateLatency();
+        if (!exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+            send(exchange, 404, "application/json", "{\"error\":{\"message\":\"Unknown path\"}}");
+            return;
+        }
+        JsonNode request = objectMapper.readTree(readBody(exchange));
+        if (injectError()) {
+            send(exchange, 429, "application/json",
+                    "{\"error\":{\"message\":\"Rate limit reached\",\"type\":\"requests\",\"code\":\"rate_limit_exceeded\"}}");
+            return;
+        }
+
+        String userText = "";
+        for (JsonNode message : request.path("messages")) {
+            String content = message.path("content").asText("");
+            promptCharacters.addAndGet(content.length() + request.path("response_format").toString().length());
+            if ("user".equals(message.path("role").asText())) {
+                userText = content;
+            }
+        }
+
+        String content;
+        Matcher batched = BATCHED_EMAIL.matcher(userText);
+        if (batched.find()) {
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode results = response.putArray("results");
+            do {
+                String extraction = corpus.extractionFor(batched.group(2));
+                emailsExtracted.incrementAndGet();
+                if (!"{}".equals(extraction)) {
+                    ObjectNode item = objectMapper.createObjectNode();
+                    item.put("email_index", Integer.parseInt(batched.group(1)));
+                    item.setAll((ObjectNode) objectMapper.readTree(extraction));
+                    results.add(item);
+                }
+            } while (batched.find());
+            content = objectMapper.writeValueAsString(response);
+        } else {
+            emailsExtracted.incrementAndGet();
+            content = corpus.extractionFor(userText);
+        }
+
+        ObjectNode completion = objectMapper.createObjectNode();
+        completion.put("id", "chatcmpl-fake");
+        completion.put("object", "chat.completion");
+        completion.put("created", System.currentTimeMillis() / 1000);
+        completion.put("model", request.path("model").asText("gpt-4.1-mini"));
+        ObjectNode choice = completion.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        ObjectNode usage = completion.putObject("usage");
+        usage.put("prompt_tokens", userText.length() / 4);
+        usage.put("completion_tokens", content.length() / 4);
+        usage.put("total_tokens", (userText.length() + content.length()) / 4);
+        send(exchange, 200, "application/json", objectMapper.writeValueAsString(completion));
+    }
+}
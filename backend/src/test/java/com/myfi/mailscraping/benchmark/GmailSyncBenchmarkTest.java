@@ -0,0 +1,241 @@
+package com.myfi.mailscraping.benchmark;
+
+import com.google.api.client.auth.oauth2.BearerToken;
+import com.google.api.client.auth.oauth2.Credential;
+import com.myfi.credentials.service.CredentialsService;
+import com.myfi.mailscraping.constants.Constants;
+import com.myfi.mailscraping.service.EmailDetailsExtractionService;
+import com.myfi.mailscraping.service.EmailParser;
+import com.myfi.mailscraping.service.GmailMessageBatchFetcher;
+import com.myfi.mailscraping.service.GmailService;
+import com.myfi.mailscraping.service.GoogleAuthService;
+import com.myfi.mailscraping.service.ProcessedGmailMessagesTrackerService;
+import com.myfi.model.Account;
+import com.myfi.service.AccountService;
+import com.myfi.service.TransactionService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * End-to-end Gmail sync throughput benchmark against the local Gmail and OpenAI stand-ins
+ * and a fresh SQLite database. Reports emails/second, p50/p99 latency per pipeline stage
+ * and the number of database writes for each mailbox size.
+ * <p>
+ * Skipped unless enabled:
+ * <pre>
+ * mvn test -Dtest=GmailSyncBenchmarkTest -Dmyfi.benchmark=true -Dmyfi.benchmark.sizes=1000,10000
+ * </pre>
+ * Fake server behaviour is set with {@code myfi.benchmark.gmail-latency-ms},
+ * {@code myfi.benchmark.openai-latency-ms}, {@code myfi.benchmark.gmail-error-rate} and
+ * {@code myfi.benchmark.openai-error-rate}; any application property (for example
+ * {@code -Dmyfi.openai.batch-extraction.enabled=true}) can be overridden the same way.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "myfi.benchmark", matches = "true")
+class GmailSyncBenchmarkTest {
+
+    private static FakeGmailServer gmailServer;
+    private static FakeOpenAiServer openAiServer;
+    private static Path databaseDirectory;
+
+    @Autowired
+    private GmailService gmailService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private CredentialsService credentialsService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    @Qualifier("writerDataSource")
+    private HikariDataSource writerDataSource;
+
+    @MockBean
+    private GoogleAuthService googleAuthService;
+
+    @SpyBean
+    private GmailMessageBatchFetcher messageBatchFetcher;
+    @SpyBean
+    private EmailParser emailParser;
+    @SpyBean
+    private EmailDetailsExtractionService emailDetailsExtractionService;
+    @SpyBean
+    private TransactionService transactionService;
+    @SpyBean
+    private ProcessedGmailMessagesTrackerService processedGmailMessagesTrackerService;
+
+    private final Map<String, List<Long>> stageNanos = new ConcurrentHashMap<>();
+
+    @DynamicPropertySource
+    static void fakeServers(DynamicPropertyRegistry registry) throws IOException {
+        gmailServer = new FakeGmailServer();
+        gmailServer.start();
+        openAiServer = new FakeOpenAiServer();
+        openAiServer.start();
+        databaseDirectory = Files.createTempDirectory("myfi-benchmark");
+
+        registry.add("spring.datasource.url", () -> databaseDirectory.resolve("benchmark.db").toString());
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.myfi", () -> System.getProperty("logging.level.com.myfi", "WARN"));
+        registry.add("myfi.gmail.root-url", () -> gmailServer.getBaseUrl() + "/");
+        registry.add("myfi.openai.base-url", () -> openAiServer.getBaseUrl());
+        // The production rate limit would dominate a 10k sync; measure the pipeline instead
+        registry.add("myfi.openai.requests-per-minute", () -> System.getProperty("myfi.openai.requests-per-minute", "60000"));
+        registry.add("myfi.openai.max-concurrent-requests", () -> System.getProperty("myfi.openai.max-concurrent-requests", "8"));
+    }
+
+    @AfterAll
+    static void stopFakeServers() throws IOException {
+        gmailServer.close();
+        openAiServer.close();
+        try (var files = Files.walk(databaseDirectory)) {
+            files.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gmailServer.setLatency(Long.getLong("myfi.benchmark.gmail-latency-ms", 30), 20);
+        gmailServer.setErrorRate(Double.parseDouble(System.getProperty("myfi.benchmark.gmail-error-rate", "0.01")));
+        openAiServer.setLatency(Long.getLong("myfi.benchmark.openai-latency-ms", 400), 200);
+        openAiServer.setErrorRate(Double.parseDouble(System.getProperty("myfi.benchmark.openai-error-rate", "0.02")));
+
+        Credential credential = new Credential(BearerToken.authorizationHeaderAccessMethod()).setAccessToken("fake-token");
+        when(googleAuthService.getCredentials()).thenReturn(credential);
+        credentialsService.saveCredential(Constants.OPENAI_API_KEY_KEY, "fake-key");
+
+        if (accountService.getAllAccounts().isEmpty()) {
+            accountService.createAccount(account(Constants.HDFC, "111122223333" + BankEmailCorpus.HDFC_CARD_LAST4));
+            accountService.createAccount(account(Constants.ICICI, "444455556666" + BankEmailCorpus.ICICI_CARD_LAST4));
+        }
+
+        doAnswer(timed("fetch (batch of full messages)")).when(messageBatchFetcher).fetchMessages(any(), anyList(), eq("full"));
+        doAnswer(timed("fetch (batch of metadata)")).when(messageBatchFetcher).fetchMetadata(any(), anyList(), anySet());
+        doAnswer(timed("parse")).when(emailParser).extractNormalizedText(any());
+        doAnswer(timed("extract (per email)")).when(emailDetailsExtractionService).extractDetails(any(), anyString());
+        doAnswer(timed("extract (per group)")).when(emailDetailsExtractionService).extractDetails(anyList());
+        doAnswer(timed("persist (bulk insert)")).when(transactionService).createTransactions(anyList());
+        doAnswer(timed("persist (mark processed, batch)")).when(processedGmailMessagesTrackerService)
+                .markEmailsProcessed(anyList());
+        doAnswer(timed("persist (mark processed, single)")).when(processedGmailMessagesTrackerService)
+                .markEmailProcessedForAccounts(anyString(), anySet(), any(), anyInt());
+    }
+
+    @Test
+    void syncThroughput() throws Exception {
+        List<Integer> sizes = Arrays.stream(System.getProperty("myfi.benchmark.sizes", "1000").split(","))
+                .map(String::trim).map(Integer::parseInt).toList();
+        for (int run = 0; run < sizes.size(); run++) {
+            runSync("r" + run + "m", sizes.get(run));
+        }
+    }
+
+    private void runSync(String idPrefix, int size) throws Exception {
+        BankEmailCorpus corpus = BankEmailCorpus.generate(idPrefix, size, 42);
+        gmailServer.setMailbox(corpus);
+        openAiServer.setCorpus(corpus);
+        gmailServer.resetCounters();
+        openAiServer.resetCounters();
+        stageNanos.clear();
+        // Each run is a first sync of a new mailbox
+        credentialsService.deleteCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        long rowsChangedBefore = writerRowsChanged();
+
+        long start = System.nanoTime();
+        List<String> processedIds = gmailService.syncAndProcessEmails();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long rowsChanged = writerRowsChanged() - rowsChangedBefore;
+        long relevant = corpus.countFromSenders(List.of("alerts@hdfcbank.net", "credit_cards@icicibank.com"));
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n=== Gmail sync benchmark: %d messages (%d from supported senders) ===%n", size, relevant));
+        report.append(String.format("Total %.2f s, %.1f emails/s, %d emails processed%n", seconds, relevant / seconds, processedIds.size()));
+        report.append(String.format("Gmail: %d HTTP requests (%d injected errors); OpenAI: %d requests for %d emails (%d injected errors), %d prompt chars%n",
+                gmailServer.getRequestCount(), gmailServer.getInjectedErrorCount(), openAiServer.getRequestCount(),
+                openAiServer.getEmailsExtracted(), openAiServer.getInjectedErrorCount(), openAiServer.getPromptCharacters()));
+        report.append(String.format("DB: %d rows changed; Hibernate %d inserts, %d updates, %d deletes, %d statements, %d transactions%n",
+                rowsChanged, statistics.getEntityInsertCount(), statistics.getEntityUpdateCount(), statistics.getEntityDeleteCount(),
+                statistics.getPrepareStatementCount(), statistics.getTransactionCount()));
+        report.append(String.format("%-28s %8s %10s %10s%n", "stage", "calls", "p50 ms", "p99 ms"));
+        stageNanos.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(stage -> {
+            List<Long> samples = new ArrayList<>(stage.getValue());
+            Collections.sort(samples);
+            report.append(String.format("%-28s %8d %10.2f %10.2f%n", stage.getKey(), samples.size(),
+                    percentile(samples, 0.50) / 1e6, percentile(samples, 0.99) / 1e6));
+        });
+        System.out.println(report);
+
+        assertFalse(processedIds.isEmpty(), "the sync should have processed emails");
+    }
+
+    private Answer<Object> timed(String stage) {
+        return invocation -> {
+            long start = System.nanoTime();
+            try {
+                return invocation.callRealMethod();
+            } finally {
+                stageNanos.computeIfAbsent(stage, key -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(System.nanoTime() - start);
+            }
+        };
+    }
+
+    private static long percentile(List<Long> sortedSamples, double percentile) {
+        if (sortedSamples.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedSamples.size()) - 1;
+        return sortedSamples.get(Math.max(0, Math.min(index, sortedSamples.size() - 1)));
+    }
+
+    // The writer pool holds a single connection, so its total_changes() counts every row written
+    private long writerRowsChanged() {
+        return new JdbcTemplate(writerDataSource).queryForObject("SELECT total_changes()", Long.class);
+    }
+
+    private static Account account(String name, String accountNumber) {
+        Account account = new Account();
+        account.setName(name);
+        account.setType(Account.AccountType.CREDIT_CARD);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(BigDecimal.ZERO);
+        account.setCurrency("INR");
+        account.setEmailScrapingSupported(true);
+        return account;
+    }
+}
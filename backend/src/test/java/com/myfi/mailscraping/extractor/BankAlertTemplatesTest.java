@@ -0,0 +1,130 @@
+package com.myfi.mailscraping.extractor;
+
+import com.myfi.mailscraping.enums.EmailType;
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BankAlertTemplatesTest {
+
+    private final BankAlertTemplates templates = new BankAlertTemplates();
+
+    @Test
+    void hdfcCreditCardDebit_shouldExtractTransaction() {
+        EmailDetailsExtractor extractor = templates.hdfcCreditCardDebitTemplate();
+
+        Optional<ExtractedDetailsFromEmail> result = extractor.extract("Dear Customer, Rs.1,250.50 is debited from your HDFC Bank "
+                + "Credit Card ending 4321 towards AMAZON PAY INDIA on 05 Mar, 2024 at 18:22:10. If you did not authorize...");
+
+        assertTrue(result.isPresent());
+        ExtractedDetailsFromEmail details = result.get();
+        assertEquals(1250.50, details.getAmount());
+        assertEquals("INR", details.getCurrencyCode());
+        assertEquals(LocalDate.of(2024, 3, 5), details.getTransactionDate());
+        assertEquals("DEBIT", details.getTransactionType());
+        assertEquals("AMAZON PAY INDIA", details.getDescription());
+        assertEquals("4321", details.getAccountNumber());
+        assertEquals(EmailType.TRANSACTION_INFORMATION, details.getEmailType());
+        assertTrue(details.isTransactionSuccessful());
+        assertFalse(details.isPixelCardTransaction());
+    }
+
+    @Test
+    void hdfcCreditCardLegacy_shouldFlagPixelCard() {
+        EmailDetailsExtractor extractor = templates.hdfcCreditCardLegacyTemplate();
+
+        Optional<ExtractedDetailsFromEmail> result = extractor.extract("Thank you for using your HDFC Bank Pixel Credit Card "
+                + "ending 9876 for Rs 499.00 at SWIGGY on 15-01-2024 10:20:30. Authorization code:- 123456");
+
+        assertTrue(result.isPresent());
+        assertEquals(499.0, result.get().getAmount());
+        assertEquals("SWIGGY", result.get().getDescription());
+        assertEquals(LocalDate.of(2024, 1, 15), result.get().getTransactionDate());
+        assertTrue(result.get().isPixelCardTransaction());
+    }
+
+    @Test
+    void hdfcUpiDebitAndCredit_shouldParseTwoDigitYears() {
+        Optional<ExtractedDetailsFromEmail> debit = templates.hdfcUpiDebitTemplate().extract("Dear Customer, Rs.250.00 has been "
+                + "debited from account **1234 to VPA shop@okaxis SHARMA   STORES on 15-01-24. Your UPI transaction reference number is 4012.");
+        Optional<ExtractedDetailsFromEmail> credit = templates.hdfcUpiCreditTemplate().extract("Dear Customer, Rs. 1000.00 is "
+                + "successfully credited to your account **1234 by VPA friend@okicici RAHUL K on 02-02-24. Your UPI transaction reference...");
+
+        assertTrue(debit.isPresent());
+        assertEquals("DEBIT", debit.get().getTransactionType());
+        assertEquals("SHARMA STORES", debit.get().getDescription());
+        assertEquals(LocalDate.of(2024, 1, 15), debit.get().getTransactionDate());
+        assertTrue(credit.isPresent());
+        assertEquals("CREDIT", credit.get().getTransactionType());
+        assertEquals(1000.0, credit.get().getAmount());
+        assertEquals("RAHUL K", credit.get().getDescription());
+    }
+
+    @Test
+    void iciciCreditCard_shouldExtractForeignCurrency() {
+        Optional<ExtractedDetailsFromEmail> result = templates.iciciCreditCardTemplate().extract("Dear Customer, Your ICICI Bank "
+                + "Credit Card XX5555 has been used for a transaction of USD 20.00 on Feb 10, 2024 at 09:15:00. Info: NETFLIX.COM. "
+                + "The Available Credit Limit on your card is INR 1,00,000.00");
+
+        assertTrue(result.isPresent());
+        assertEquals("USD", result.get().getCurrencyCode());
+        assertEquals(20.0, result.get().getAmount());
+        assertEquals("5555", result.get().getAccountNumber());
+        assertEquals("NETFLIX", result.get().getDescription());
+        assertEquals(LocalDate.of(2024, 2, 10), result.get().getTransactionDate());
+    }
+
+    @Test
+    void oneCardDebit_shouldExtractTransaction() {
+        Optional<ExtractedDetailsFromEmail> result = templates.oneCardDebitTemplate()
+                .extract("₹500.00 spent on your OneCard ending in 1111 at ZOMATO on 15 Jan 2024");
+
+        assertTrue(result.isPresent());
+        assertEquals("INR", result.get().getCurrencyCode());
+        assertEquals("ZOMATO", result.get().getDescription());
+    }
+
+    @Test
+    void pixelFlag_shouldComeFromTheTemplateNotTheEmailText() {
+        Optional<ExtractedDetailsFromEmail> hdfc = templates.hdfcCreditCardDebitTemplate().extract("Rs.500.00 is debited from your "
+                + "HDFC Bank Credit Card ending 4321 towards PIXEL STUDIO on 05 Mar, 2024. Get the new Pixel card today!");
+        Optional<ExtractedDetailsFromEmail> oneCard = templates.oneCardDebitTemplate()
+                .extract("₹500.00 spent on your OneCard ending in 1111 at GOOGLE PIXEL STORE on 15 Jan 2024");
+
+        assertTrue(hdfc.isPresent());
+        assertFalse(hdfc.get().isPixelCardTransaction());
+        assertTrue(oneCard.isPresent());
+        assertFalse(oneCard.get().isPixelCardTransaction());
+    }
+
+    @Test
+    void templates_shouldNotMatchOtherEmails() {
+        String statement = "Your HDFC Bank Credit Card statement for Jan 2024 is ready. Total amount due Rs. 12,000.00";
+
+        assertTrue(templates.hdfcCreditCardDebitTemplate().extract(statement).isEmpty());
+        assertTrue(templates.hdfcCreditCardLegacyTemplate().extract(statement).isEmpty());
+        assertTrue(templates.hdfcUpiDebitTemplate().extract(statement).isEmpty());
+        assertTrue(templates.iciciCreditCardTemplate().extract(statement).isEmpty());
+    }
+
+    @Test
+    void template_shouldFallThroughWhenDateDoesNotParse() {
+        Optional<ExtractedDetailsFromEmail> result = templates.hdfcUpiDebitTemplate().extract("Rs.250.00 has been debited from "
+                + "account **1234 to VPA shop@okaxis SHOP on 45-13-24.");
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void supportsSender_shouldMatchConfiguredAddresses() {
+        EmailDetailsExtractor extractor = templates.iciciCreditCardTemplate();
+
+        assertTrue(extractor.supportsSender("ICICI Bank <Credit_Cards@icicibank.com>"));
+        assertFalse(extractor.supportsSender("HDFC Bank InstaAlerts <alerts@hdfcbank.net>"));
+        assertFalse(extractor.supportsSender(null));
+    }
+}
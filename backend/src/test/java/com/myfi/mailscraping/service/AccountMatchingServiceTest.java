@@ -113,7 +113,7 @@ class AccountMatchingServiceTest {
 
     @Test
     void findMatchingAccounts_shouldHandleNullOrEmptyInput() {
-        List<Account> matches1 = accountMatchingService.findMatchingAccounts(null, testAccounts);
+        List<Account> matches1 = accountMatchingService.findMatchingAccounts((String) null, testAccounts);
         List<Account> matches2 = accountMatchingService.findMatchingAccounts("", testAccounts);
         List<Account> matches3 = accountMatchingService.findMatchingAccounts("test", null);
 
@@ -274,4 +274,32 @@ class AccountMatchingServiceTest {
         assertEquals(1, matches.size());
         assertEquals(hdfcCreditCard.getId(), matches.get(0).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAccountsByNumbers_shouldRecompileWhenAccountNumbersChange() {
+        // Arrange
+        String emailContent = "Card ending 1111 was used";
+        assertTrue(accountMatchingService.findAccountsByNumbers(emailContent, testAccounts).isEmpty());
+
+        // Act
+        onecardAccount.setAccountNumber("5555444433331111");
+        List<Account> matches = accountMatchingService.findAccountsByNumbers(emailContent, testAccounts);
+
+        // Assert
+        assertEquals(List.of(onecardAccount), matches);
+    }
+
+    @Test
+    void findAccountsByNumbers_shouldSkipAccountsWithShortOrMissingNumbers() {
+        Account noNumber = new Account();
+        noNumber.setName("Cash");
+        Account shortNumber = new Account();
+        shortNumber.setName("Wallet");
+        shortNumber.setAccountNumber("12");
+
+        List<Account> matches = accountMatchingService.findAccountsByNumbers("card 12 and 3456",
+                Arrays.asList(noNumber, shortNumber, hdfcCreditCard));
+
+        assertEquals(List.of(hdfcCreditCard), matches);
+    }
+}
@@ -0,0 +1,73 @@
+package com.myfi.mailscraping.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountNumberMatcherTest {
+
+    @Test
+    void findAccounts_shouldFindEveryAccountWithAPatternInOnePass() {
+        // Arrange
+        AccountNumberMatcher matcher = AccountNumberMatcher.compile(List.of(
+                List.of("1234", "xxxx1234"),
+                List.of("9999"),
+                List.of("5678", "5 6 7 8")));
+
+        // Act & Assert
+        assertArrayEquals(new int[]{0, 2}, matcher.findAccounts("Card XXXX1234 and account 5 6 7 8"));
+        assertArrayEquals(new int[]{}, matcher.findAccounts("nothing to see here"));
+    }
+
+    @Test
+    void findAccounts_shouldFollowFailureLinksForOverlappingPatterns() {
+        // "ending 123" is a dead end, the match for "2345" starts inside it
+        AccountNumberMatcher matcher = AccountNumberMatcher.compile(List.of(
+                List.of("ending 1239"),
+                List.of("2345")));
+
+        assertArrayEquals(new int[]{1}, matcher.findAccounts("card ending 12345"));
+    }
+
+    @Test
+    void findAccounts_shouldNormalizeCaseAndWhitespaceWhileScanning() {
+        AccountNumberMatcher matcher = AccountNumberMatcher.compile(List.of(List.of("Ending With 4321")));
+
+        assertArrayEquals(new int[]{0}, matcher.findAccounts("card ENDING\r\n\t  with 4321"));
+    }
+
+    @Test
+    void findAccounts_shouldAgreeWithContainsOnNormalizedText() {
+        // Arrange: random digit-heavy texts against random account patterns
+        Random random = new Random(7);
+        List<List<String>> patternsByAccount = new ArrayList<>();
+        for (int account = 0; account < 40; account++) {
+            String lastFour = String.format("%04d", random.nextInt(10_000));
+            patternsByAccount.add(List.of(lastFour, "xxxx" + lastFour, "ending " + lastFour, String.join(" ", lastFour.split(""))));
+        }
+        AccountNumberMatcher matcher = AccountNumberMatcher.compile(patternsByAccount);
+
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int j = 0; j < 60; j++) {
+                int r = random.nextInt(14);
+                text.append(r < 10 ? (char) ('0' + r) : r == 10 ? ' ' : r == 11 ? 'X' : r == 12 ? '\n' : 'e');
+            }
+            String normalized = text.toString().toLowerCase().replaceAll("\\s+", " ");
+
+            // Act
+            int[] found = matcher.findAccounts(text.toString());
+
+            // Assert
+            int[] expected = IntStream.range(0, patternsByAccount.size())
+                    .filter(account -> patternsByAccount.get(account).stream().anyMatch(normalized::contains))
+                    .toArray();
+            assertArrayEquals(expected, found, "text: " + text);
+        }
+    }
+}
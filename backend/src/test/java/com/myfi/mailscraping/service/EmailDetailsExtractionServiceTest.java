@@ -0,0 +1,136 @@
+package com.myfi.mailscraping.service;
+
+import com.myfi.mailscraping.enums.EmailType;
+import com.myfi.mailscraping.extractor.EmailDetailsExtractor;
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class EmailDetailsExtractionServiceTest {
+
+    private static final String HDFC_FROM = "HDFC Bank InstaAlerts <alerts@hdfcbank.net>";
+
+    @Mock
+    private OpenAIService openAIService;
+    @Mock
+    private EmailDetailsExtractor hdfcTemplate;
+    @Mock
+    private EmailDetailsExtractor iciciTemplate;
+
+    @InjectMocks
+    private EmailDetailsExtractionService service;
+
+    private final ExtractedDetailsFromEmail details = ExtractedDetailsFromEmail.builder()
+            .emailType(EmailType.TRANSACTION_INFORMATION).amount(10.0).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "extractors", List.of(hdfcTemplate, iciciTemplate));
+        when(hdfcTemplate.getName()).thenReturn("hdfc");
+        when(hdfcTemplate.supportsSender(HDFC_FROM)).thenReturn(true);
+        when(iciciTemplate.getName()).thenReturn("icici");
+    }
+
+    @Test
+    void extractDetails_shouldServeMatchingTemplateWithoutCallingLlm() throws Exception {
+        // Arrange
+        when(hdfcTemplate.extract("alert")).thenReturn(Optional.of(details));
+
+        // Act
+        Optional<ExtractedDetailsFromEmail> result = service.extractDetails(HDFC_FROM, "alert");
+
+        // Assert
+        assertSame(details, result.get());
+        verifyNoInteractions(openAIService);
+        verify(iciciTemplate, never()).extract(anyString());
+    }
+
+    @Test
+    void extractDetails_shouldFallBackToLlmWhenNoTemplateMatches() throws Exception {
+        // Arrange
+        when(hdfcTemplate.extract("statement")).thenReturn(Optional.empty());
+        when(openAIService.extractDetailsFromEmail("statement")).thenReturn(Optional.of(details));
+
+        // Act
+        Optional<ExtractedDetailsFromEmail> result = service.extractDetails(HDFC_FROM, "statement");
+
+        // Assert
+        assertSame(details, result.get());
+        verify(openAIService).extractDetailsFromEmail("statement");
+    }
+
+    @Test
+    void extractDetails_shouldSkipTemplatesWhenDisabled() throws Exception {
+        ReflectionTestUtils.setField(service, "templateExtractorsEnabled", false);
+
+        service.extractDetails(HDFC_FROM, "alert");
+
+        verify(hdfcTemplate, never()).extract(anyString());
+        verify(openAIService).extractDetailsFromEmail("alert");
+    }
+
+    @Test
+    void getStats_shouldReportPerExtractorHitRates() throws Exception {
+        // Arrange
+        when(hdfcTemplate.extract("alert")).thenReturn(Optional.of(details));
+        when(hdfcTemplate.extract("statement")).thenReturn(Optional.empty());
+        when(openAIService.extractDetailsFromEmail(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        service.extractDetails(HDFC_FROM, "alert");
+        service.extractDetails(HDFC_FROM, "alert");
+        service.extractDetails(HDFC_FROM, "statement");
+        service.extractDetails("someone@example.com", "other");
+        EmailDetailsExtractionService.Stats stats = service.getStats();
+
+        // Assert
+        assertEquals(4, stats.emails());
+        assertEquals(2, stats.servedLocally());
+        assertEquals(2, stats.llmFallbacks());
+        assertEquals(0.5, stats.localRate());
+        EmailDetailsExtractionService.ExtractorStats hdfc = stats.extractors().get(0);
+        assertEquals("hdfc", hdfc.name());
+        assertEquals(3, hdfc.attempts());
+        assertEquals(2, hdfc.hits());
+        assertEquals(0, stats.extractors().get(1).attempts());
+    }
+
+    @Test
+    void extractDetailsBatch_shouldSendOnlyUnrecognisedEmailsToLlmAndKeepOrder() throws Exception {
+        // Arrange
+        ExtractedDetailsFromEmail llmFirst = ExtractedDetailsFromEmail.builder().amount(1.0).build();
+        ExtractedDetailsFromEmail llmSecond = ExtractedDetailsFromEmail.builder().amount(2.0).build();
+        when(hdfcTemplate.extract("alert")).thenReturn(Optional.of(details));
+        when(openAIService.extractDetailsFromEmails(List.of("other", "statement")))
+                .thenReturn(List.of(Optional.of(llmFirst), Optional.of(llmSecond)));
+
+        // Act
+        List<Optional<ExtractedDetailsFromEmail>> results = service.extractDetails(List.of(
+                new EmailDetailsExtractionService.EmailText("someone@example.com", "other"),
+                new EmailDetailsExtractionService.EmailText(HDFC_FROM, "alert"),
+                new EmailDetailsExtractionService.EmailText(HDFC_FROM, "statement")));
+
+        // Assert
+        assertSame(llmFirst, results.get(0).get());
+        assertSame(details, results.get(1).get());
+        assertSame(llmSecond, results.get(2).get());
+        assertEquals(3, service.getStats().emails());
+        assertEquals(2, service.getStats().llmFallbacks());
+    }
+}
@@ -0,0 +1,124 @@
+package com.myfi.mailscraping.service;
+
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailParserTest {
+
+    private final EmailParser emailParser = new EmailParser();
+
+    @Test
+    void extractNormalizedText_shouldStripMarkupAndCollapseWhitespace() {
+        // Arrange
+        String html = "<html><head><title>Alert</title><style>p { color: red; }</style></head><body>\n"
+                + "<!-- header --><table><tr><td>Dear   Customer,</td></tr>\n"
+                + "<tr><td><p>Rs.1,250.00 debited from <b>Card</b> ending&nbsp;4321 at AMAZON&amp;CO.</p>"
+                + "<script>var x = '<p>hidden</p>';</script></td></tr></table>\n"
+                + "<p>Balance &lt; Rs.5,000 &#8377;&#x20B9;</p></body></html>";
+        Message message = message(part("text/html", html));
+
+        // Act
+        NormalizedEmailText text = emailParser.extractNormalizedText(message);
+
+        // Assert
+        assertEquals("Dear Customer, Rs.1,250.00 debited from Card ending 4321 at AMAZON&CO. Balance < Rs.5,000 ₹₹",
+                text.getText());
+        assertEquals(text.getText().toLowerCase(), text.getLowerCaseText());
+    }
+
+    @Test
+    void extractNormalizedText_shouldKeepLiteralAngleBracketsAndUnknownEntities() {
+        // Arrange
+        Message message = message(part("text/html", "<p>a < b &unknown; c<br/>d</p>"));
+
+        // Act
+        NormalizedEmailText text = emailParser.extractNormalizedText(message);
+
+        // Assert
+        assertEquals("a < b &unknown; c d", text.getText());
+    }
+
+    @Test
+    void extractNormalizedText_shouldJoinMatchingPartsAndPreferHtml() {
+        // Arrange
+        Message message = message(new MessagePart().setMimeType("multipart/mixed").setParts(List.of(
+                new MessagePart().setMimeType("multipart/alternative").setParts(List.of(
+                        part("text/plain", "plain one"), part("text/html", "<div>HTML One</div>"))),
+                part("text/html", "<div>HTML Two</div>"))));
+
+        // Act
+        NormalizedEmailText text = emailParser.extractNormalizedText(message);
+
+        // Assert
+        assertEquals("HTML One HTML Two", text.getText());
+        assertEquals("html one html two", text.getLowerCaseText());
+    }
+
+    @Test
+    void extractNormalizedText_shouldFallBackToPlainTextWhenHtmlCannotBeDecoded() {
+        // Arrange
+        MessagePart brokenHtml = new MessagePart().setMimeType("text/html").setBody(new MessagePartBody().setData("not*base64"));
+        Message message = message(new MessagePart().setMimeType("multipart/alternative").setParts(List.of(
+                part("text/plain", "  Card\r\nending\t4321  "), brokenHtml)));
+
+        // Act
+        NormalizedEmailText text = emailParser.extractNormalizedText(message);
+
+        // Assert
+        assertEquals("Card ending 4321", text.getText());
+        assertEquals("Card ending 4321", emailParser.extractTextFromMessage(message));
+    }
+
+    @Test
+    void extractNormalizedText_shouldDecodeMultiByteCharactersAndLargeBodies() {
+        // Arrange
+        String body = "Montant débité ₹ 1.500 — ".repeat(2000);
+        Message message = message(part("text/plain", body));
+
+        // Act
+        NormalizedEmailText text = emailParser.extractNormalizedText(message);
+
+        // Assert
+        assertEquals(body.trim(), text.getText());
+    }
+
+    @Test
+    void extractNormalizedText_shouldReturnNullWithoutTextParts() {
+        // Arrange
+        Message withoutPayload = new Message().setId("1");
+        Message withoutText = message(part("application/pdf", "%PDF"));
+
+        // Act & Assert
+        assertNull(emailParser.extractNormalizedText(withoutPayload));
+        assertNull(emailParser.extractNormalizedText(withoutText));
+        assertNull(emailParser.extractTextFromMessage(withoutText));
+    }
+
+    @Test
+    void of_shouldCollapseWhitespaceAndLowerCase() {
+        // Act
+        NormalizedEmailText text = NormalizedEmailText.of("\n  XXXX4321  Debited\t ");
+
+        // Assert
+        assertEquals("XXXX4321 Debited", text.getText());
+        assertEquals("xxxx4321 debited", text.getLowerCaseText());
+        assertTrue(NormalizedEmailText.of(" \r\n ").isBlank());
+    }
+
+    private static Message message(MessagePart payload) {
+        return new Message().setId("msg-1").setPayload(payload);
+    }
+
+    private static MessagePart part(String mimeType, String content) {
+        String data = Base64.getUrlEncoder().withoutPadding().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+        return new MessagePart().setMimeType(mimeType).setBody(new MessagePartBody().setData(data));
+    }
+}
@@ -0,0 +1,133 @@
+package com.myfi.mailscraping.service;
+
+import com.myfi.mailscraping.model.ExtractionCacheEntry;
+import com.myfi.mailscraping.repository.ExtractionCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExtractionCacheServiceTest {
+
+    @Mock
+    private ExtractionCacheRepository repository;
+
+    @InjectMocks
+    private ExtractionCacheService cache;
+
+    @Test
+    void cacheKey_shouldIgnoreWhitespaceDifferencesButNotSchemaOrModel() {
+        String key = ExtractionCacheService.cacheKey("1", "gpt-4.1-mini", "Rs 100  spent\n on card 1234 ");
+
+        assertEquals(key, ExtractionCacheService.cacheKey("1", "gpt-4.1-mini", "Rs 100 spent on card 1234"));
+        assertNotEquals(key, ExtractionCacheService.cacheKey("2", "gpt-4.1-mini", "Rs 100 spent on card 1234"));
+        assertNotEquals(key, ExtractionCacheService.cacheKey("1", "gpt-4.1", "Rs 100 spent on card 1234"));
+        assertEquals(64, key.length());
+    }
+
+    @Test
+    void get_shouldServeFromMemoryAfterPut() {
+        // Act
+        cache.put("k1", "model", "{\"amount\":1}");
+        Optional<String> result = cache.get("k1");
+
+        // Assert
+        assertEquals(Optional.of("{\"amount\":1}"), result);
+        verify(repository).save(any(ExtractionCacheEntry.class));
+        verify(repository, never()).findById(anyString());
+        assertEquals(1, cache.getStats().memoryHits());
+    }
+
+    @Test
+    void get_shouldFallBackToDatabaseAndPromoteEntry() {
+        // Arrange
+        when(repository.findById("k1"))
+                .thenReturn(Optional.of(new ExtractionCacheEntry("k1", "model", "{}", LocalDateTime.now().minusDays(1))));
+
+        // Act
+        cache.get("k1");
+        cache.get("k1");
+
+        // Assert
+        verify(repository, times(1)).findById("k1");
+        ExtractionCacheService.Stats stats = cache.getStats();
+        assertEquals(1, stats.databaseHits());
+        assertEquals(1, stats.memoryHits());
+        assertEquals(1.0, stats.hitRate());
+    }
+
+    @Test
+    void get_shouldCountMissAndIgnoreExpiredEntries() {
+        // Arrange
+        when(repository.findById("old"))
+                .thenReturn(Optional.of(new ExtractionCacheEntry("old", "model", "{}", LocalDateTime.now().minusDays(400))));
+
+        // Act
+        Optional<String> result = cache.get("old");
+
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void get_shouldTreatDatabaseErrorsAsMiss() {
+        when(repository.findById("k1")).thenThrow(new RuntimeException("database is locked"));
+
+        assertTrue(cache.get("k1").isEmpty());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void memoryTier_shouldEvictLeastRecentlyUsedEntries() {
+        // Arrange
+        ReflectionTestUtils.setField(cache, "memoryMaxEntries", 2);
+        cache.put("a", "model", "A");
+        cache.put("b", "model", "B");
+        cache.get("a");
+
+        // Act
+        cache.put("c", "model", "C");
+        cache.get("b");
+
+        // Assert: "b" was the least recently used, so it had to come from the database
+        verify(repository).findById("b");
+        assertEquals(2, cache.getStats().memoryEntries());
+    }
+
+    @Test
+    void evictExpiredEntries_shouldApplyTtlThenSizeLimit() {
+        // Arrange
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        when(repository.deleteByCreatedAtBefore(any(LocalDateTime.class))).thenReturn(5);
+        when(repository.count()).thenReturn(120L);
+        when(repository.deleteOldest(20L)).thenReturn(20);
+
+        // Act
+        cache.evictExpiredEntries();
+
+        // Assert
+        verify(repository).deleteOldest(20L);
+        assertEquals(25, cache.getStats().evictions());
+    }
+
+    @Test
+    void disabledCache_shouldNeverTouchStorage() {
+        ReflectionTestUtils.setField(cache, "enabled", false);
+
+        cache.put("k1", "model", "{}");
+
+        assertTrue(cache.get("k1").isEmpty());
+        verifyNoInteractions(repository);
+    }
+}
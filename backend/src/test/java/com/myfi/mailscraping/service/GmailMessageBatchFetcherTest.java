@@ -0,0 +1,201 @@
+package com.myfi.mailscraping.service;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the fetcher against a local fake of Gmail's batch endpoint, which answers each
+ * part of a multipart/mixed batch request with a scripted status code.
+ */
+class GmailMessageBatchFetcherTest {
+
+    private static final Pattern MESSAGE_ID = Pattern.compile("/messages/([^?\\s/]+)");
+
+    private HttpServer server;
+    private Gmail gmail;
+    private GmailMessageBatchFetcher fetcher;
+
+    // Status codes to return per message id, consumed one per request; 200 once exhausted
+    private final Map<String, Deque<Integer>> scriptedStatuses = new ConcurrentHashMap<>();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private volatile int failWholeBatchRequests;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/batch", this::handleBatch);
+        server.start();
+
+        gmail = new Gmail.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance(), null)
+                .setRootUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/")
+                .setApplicationName("myfi-test")
+                .build();
+
+        fetcher = new GmailMessageBatchFetcher();
+        ReflectionTestUtils.setField(fetcher, "batchSize", 3);
+        ReflectionTestUtils.setField(fetcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(fetcher, "retryBackoffMs", 1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchMessages_shouldGroupIdsIntoBatchRequests() {
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMessages(gmail, List.of("m1", "m2", "m3", "m4", "m5"), "full");
+
+        // Assert
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), new ArrayList<>(fetched.keySet()));
+        assertEquals("m4", fetched.get("m4").getId());
+        assertEquals(1000L + 4, fetched.get("m4").getInternalDate());
+        assertEquals(List.of(List.of("m1", "m2", "m3"), List.of("m4", "m5")), batches);
+    }
+
+    @Test
+    void fetchMetadata_shouldRequestOnlyTheFilterHeaders() {
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMetadata(gmail, List.of("m1"));
+
+        // Assert
+        assertEquals(List.of("m1"), new ArrayList<>(fetched.keySet()));
+        String request = requestBodies.get(0);
+        assertTrue(request.contains("format=metadata"), request);
+        assertTrue(request.contains("metadataHeaders=From"), request);
+    }
+
+    @Test
+    void fetchMessages_shouldRetryOnlyTransientlyFailedEntries() {
+        // Arrange
+        scriptedStatuses.put("m2", new ArrayDeque<>(List.of(429)));
+        scriptedStatuses.put("m3", new ArrayDeque<>(List.of(503, 500)));
+
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMessages(gmail, List.of("m1", "m2", "m3"), "full");
+
+        // Assert
+        assertEquals(List.of("m1", "m2", "m3"), new ArrayList<>(fetched.keySet()));
+        assertEquals(List.of(List.of("m1", "m2", "m3"), List.of("m2", "m3"), List.of("m3")), batches);
+    }
+
+    @Test
+    void fetchMessages_shouldNotRetryPermanentFailures() {
+        // Arrange
+        scriptedStatuses.put("m2", new ArrayDeque<>(List.of(404)));
+
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMessages(gmail, List.of("m1", "m2"), "full");
+
+        // Assert
+        assertEquals(List.of("m1"), new ArrayList<>(fetched.keySet()));
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void fetchMetadata_shouldReportOnlyDeletedMessagesAsNotFound() {
+        // Arrange
+        scriptedStatuses.put("deleted", new ArrayDeque<>(List.of(404)));
+        scriptedStatuses.put("flaky", new ArrayDeque<>(List.of(500, 500, 500)));
+        Set<String> notFound = new HashSet<>();
+
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMetadata(gmail, List.of("m1", "deleted", "flaky"), notFound);
+
+        // Assert
+        assertEquals(List.of("m1"), new ArrayList<>(fetched.keySet()));
+        assertEquals(Set.of("deleted"), notFound);
+    }
+
+    @Test
+    void fetchMessages_shouldGiveUpAfterMaxAttempts() {
+        // Arrange
+        scriptedStatuses.put("m1", new ArrayDeque<>(List.of(500, 500, 500, 500)));
+
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMessages(gmail, List.of("m1", "m2"), "full");
+
+        // Assert
+        assertEquals(List.of("m2"), new ArrayList<>(fetched.keySet()));
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    void fetchMessages_shouldRetryWholeBatchWhenRequestFails() {
+        // Arrange
+        failWholeBatchRequests = 1;
+
+        // Act
+        Map<String, Message> fetched = fetcher.fetchMessages(gmail, List.of("m1", "m2"), "full");
+
+        // Assert
+        assertEquals(List.of("m1", "m2"), new ArrayList<>(fetched.keySet()));
+        assertEquals(2, batches.size());
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        List<String> ids = new ArrayList<>();
+        Matcher matcher = MESSAGE_ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(matcher.group(1));
+        }
+        batches.add(List.copyOf(ids));
+        requestBodies.add(body);
+
+        if (failWholeBatchRequests > 0) {
+            failWholeBatchRequests--;
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+
+        String boundary = "batch_fake_gmail";
+        StringBuilder response = new StringBuilder();
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            Deque<Integer> statuses = scriptedStatuses.get(id);
+            Integer scripted = statuses == null ? null : statuses.poll();
+            int status = scripted == null ? 200 : scripted;
+            String json = status == 200
+                    ? "{\"id\":\"" + id + "\",\"internalDate\":\"" + (1000 + Integer.parseInt(id.substring(1))) + "\"}"
+                    : "{\"error\":{\"code\":" + status + ",\"message\":\"scripted failure\",\"errors\":[]}}";
+            response.append("--").append(boundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(i + 1).append(">\r\n\r\n")
+                    .append("HTTP/1.1 ").append(status).append(status == 200 ? " OK" : " Error").append("\r\n")
+                    .append("Content-Type: application/json; charset=UTF-8\r\n\r\n")
+                    .append(json).append("\r\n");
+        }
+        response.append("--").append(boundary).append("--\r\n");
+
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "multipart/mixed; boundary=" + boundary);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -154,8 +154,8 @@ class GmailServiceEmailBasedProcessingTest {
         verify(gmailMessagesList).execute();
 
         // Verify email processing occurred
-        verify(emailParser).extractTextFromMessage(testFullMessage);
-        verify(accountMatchingService).findMatchingAccounts(anyString(), eq(testAccounts));
+        verify(emailParser).extractNormalizedText(testFullMessage);
+        verify(accountMatchingService).findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts));
         verify(openAIService).extractDetailsFromEmail(anyString());
         verify(transactionService).createTransaction(any(Transaction.class));
 
@@ -177,7 +177,7 @@ class GmailServiceEmailBasedProcessingTest {
 
         // Verify
         assertTrue(result.isEmpty());
-        verify(emailParser, never()).extractTextFromMessage(any());
+        verify(emailParser, never()).extractNormalizedText(any());
         verify(transactionService, never()).createTransaction(any());
     }
 
@@ -194,7 +194,7 @@ class GmailServiceEmailBasedProcessingTest {
 
         // Verify
         assertEquals(1, result.size());
-        verify(emailParser).extractTextFromMessage(testFullMessage);
+        verify(emailParser).extractNormalizedText(testFullMessage);
         verify(transactionService).createTransaction(any(Transaction.class));
     }
 
@@ -314,7 +314,7 @@ class GmailServiceEmailBasedProcessingTest {
         when(accountService.getAllAccounts()).thenReturn(testAccounts);
         setupGmailServiceMock();
         setupEmailProcessingMocks();
-        when(accountMatchingService.findMatchingAccounts(anyString(), eq(testAccounts)))
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts)))
                 .thenReturn(List.of(hdfcAccount));
         when(openAIService.extractDetailsFromEmail(anyString()))
                 .thenReturn(Optional.of(testExtractedDetails));
@@ -331,7 +331,7 @@ class GmailServiceEmailBasedProcessingTest {
         when(accountService.getAllAccounts()).thenReturn(testAccounts);
         setupGmailServiceMock();
         setupEmailProcessingMocks();
-        when(accountMatchingService.findMatchingAccounts(anyString(), eq(testAccounts)))
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts)))
                 .thenReturn(Collections.emptyList());
     }
 
@@ -339,7 +339,7 @@ class GmailServiceEmailBasedProcessingTest {
         when(accountService.getAllAccounts()).thenReturn(testAccounts);
         setupGmailServiceMock();
         setupEmailProcessingMocks();
-        when(accountMatchingService.findMatchingAccounts(anyString(), eq(testAccounts)))
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts)))
                 .thenReturn(List.of(hdfcAccount));
         when(openAIService.extractDetailsFromEmail(anyString())).thenReturn(Optional.empty());
     }
@@ -348,7 +348,7 @@ class GmailServiceEmailBasedProcessingTest {
         when(accountService.getAllAccounts()).thenReturn(testAccounts);
         setupGmailServiceMock();
         setupEmailProcessingMocks();
-        when(accountMatchingService.findMatchingAccounts(anyString(), eq(testAccounts)))
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts)))
                 .thenReturn(List.of(hdfcAccount));
         
         ExtractedDetailsFromEmail balanceDetails = ExtractedDetailsFromEmail.builder()
@@ -369,7 +369,7 @@ class GmailServiceEmailBasedProcessingTest {
         when(accountService.getAllAccounts()).thenReturn(testAccounts);
         setupGmailServiceMock();
         setupEmailProcessingMocks();
-        when(accountMatchingService.findMatchingAccounts(anyString(), eq(testAccounts)))
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(testAccounts)))
                 .thenReturn(testAccounts); // Both accounts match
         when(openAIService.extractDetailsFromEmail(anyString()))
                 .thenReturn(Optional.of(testExtractedDetails));
@@ -391,8 +391,8 @@ class GmailServiceEmailBasedProcessingTest {
     }
 
     private void setupEmailProcessingMocks() throws Exception {
-        when(emailParser.extractTextFromMessage(testFullMessage))
-                .thenReturn("HDFC Bank transaction alert for card ending 3456. Amount: Rs. 1500");
+        when(emailParser.extractNormalizedText(testFullMessage))
+                .thenReturn(NormalizedEmailText.of("HDFC Bank transaction alert for card ending 3456. Amount: Rs. 1500"));
         when(processedGmailMessagesTrackerService.isEmailProcessed("test-message-123")).thenReturn(false);
         when(processedGmailMessagesTrackerService.findLatestMessageDateTime())
                 .thenReturn(Optional.empty());
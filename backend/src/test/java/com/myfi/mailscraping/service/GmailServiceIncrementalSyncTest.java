@@ -0,0 +1,243 @@
+package com.myfi.mailscraping.service;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.*;
+import com.myfi.credentials.service.CredentialsService;
+import com.myfi.mailscraping.constants.Constants;
+import com.myfi.model.Account;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GmailServiceIncrementalSyncTest {
+
+    private static final String HDFC_SENDER = Constants.CC_EMAIL_SCRAPING_SUPPORTED_EMAILS_IDS.get(Constants.HDFC).get(0);
+
+    @Mock
+    private CredentialsService credentialsService;
+    @Mock
+    private GmailMessageBatchFetcher messageBatchFetcher;
+    @Mock
+    private ProcessedGmailMessagesTrackerService processedGmailMessagesTrackerService;
+    @Mock
+    private AccountMatchingService accountMatchingService;
+
+    @Mock
+    private Gmail gmail;
+    @Mock
+    private Gmail.Users gmailUsers;
+    @Mock
+    private Gmail.Users.History gmailHistory;
+    @Mock
+    private Gmail.Users.History.List historyList;
+    @Mock
+    private Gmail.Users.Messages gmailMessages;
+    @Mock
+    private Gmail.Users.Messages.List messagesList;
+    @Mock
+    private Gmail.Users.GetProfile getProfile;
+
+    @InjectMocks
+    private GmailService service;
+
+    private List<Account> accounts;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Account hdfc = new Account();
+        hdfc.setName(Constants.HDFC);
+        hdfc.setAccountNumber("1234567890123456");
+        accounts = List.of(hdfc);
+
+        when(gmail.users()).thenReturn(gmailUsers);
+        when(gmailUsers.history()).thenReturn(gmailHistory);
+        when(gmailHistory.list("me")).thenReturn(historyList);
+        when(historyList.setStartHistoryId(any())).thenReturn(historyList);
+        when(historyList.setHistoryTypes(anyList())).thenReturn(historyList);
+        when(historyList.setPageToken(any())).thenReturn(historyList);
+        when(gmailUsers.messages()).thenReturn(gmailMessages);
+        when(gmailMessages.list("me")).thenReturn(messagesList);
+        when(messagesList.setQ(anyString())).thenReturn(messagesList);
+        when(messagesList.setPageToken(any())).thenReturn(messagesList);
+        when(gmailUsers.getProfile("me")).thenReturn(getProfile);
+        when(getProfile.execute()).thenReturn(new Profile().setHistoryId(BigInteger.valueOf(900)));
+    }
+
+    @Test
+    void fetchNewEmails_shouldListOnlyAddedMessagesFromSupportedSenders() throws Exception {
+        // Arrange
+        when(credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY)).thenReturn("500");
+        when(historyList.execute()).thenReturn(new ListHistoryResponse()
+                .setHistoryId(BigInteger.valueOf(510))
+                .setHistory(List.of(
+                        added("m1"),
+                        added("m2"),
+                        new History().setId(BigInteger.valueOf(505)))));
+        Map<String, Message> metadata = new LinkedHashMap<>();
+        metadata.put("m1", withFrom("m1", "HDFC Bank <" + HDFC_SENDER + ">"));
+        metadata.put("m2", withFrom("m2", "Newsletter <news@example.com>"));
+        when(messageBatchFetcher.fetchMetadata(eq(gmail), eq(List.of("m1", "m2")), anySet())).thenReturn(metadata);
+
+        // Act
+        GmailService.NewEmails newEmails = service.fetchNewEmails(gmail, accounts);
+
+        // Assert
+        assertEquals(List.of("m1"), newEmails.messages().stream().map(Message::getId).collect(Collectors.toList()));
+        assertEquals(BigInteger.valueOf(510), newEmails.historyId());
+        verify(historyList).setStartHistoryId(BigInteger.valueOf(500));
+        verify(gmailMessages, never()).list(anyString());
+    }
+
+    @Test
+    void fetchNewEmails_shouldKeepMessagesWhoseMetadataFetchFailed() throws Exception {
+        // Arrange: "flaky" exhausted its retries, "deleted" no longer exists
+        when(credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY)).thenReturn("500");
+        when(historyList.execute()).thenReturn(new ListHistoryResponse()
+                .setHistoryId(BigInteger.valueOf(510))
+                .setHistory(List.of(added("m1"), added("flaky"), added("deleted"))));
+        Map<String, Message> metadata = new LinkedHashMap<>();
+        metadata.put("m1", withFrom("m1", HDFC_SENDER));
+        when(messageBatchFetcher.fetchMetadata(eq(gmail), eq(List.of("m1", "flaky", "deleted")), anySet()))
+                .thenAnswer(invocation -> {
+                    invocation.<Set<String>>getArgument(2).add("deleted");
+                    return metadata;
+                });
+        when(processedGmailMessagesTrackerService.findMessagesProcessedForAllAccounts(anyList(), anySet())).thenReturn(Set.of());
+        when(messageBatchFetcher.fetchMetadata(eq(gmail), eq(List.of("flaky")), anySet())).thenReturn(Map.of());
+
+        // Act
+        GmailService.NewEmails newEmails = service.fetchNewEmails(gmail, accounts);
+        List<Message> relevant = service.prefilterByMetadata(gmail, newEmails.messages(), accounts);
+
+        // Assert: the failed id is passed on (and its metadata retried) so the full fetch decides
+        assertEquals(List.of("m1", "flaky"), newEmails.messages().stream().map(Message::getId).collect(Collectors.toList()));
+        assertEquals(List.of("m1", "flaky"), relevant.stream().map(Message::getId).collect(Collectors.toList()));
+        verify(messageBatchFetcher).fetchMetadata(eq(gmail), eq(List.of("flaky")), anySet());
+    }
+
+    @Test
+    void fetchNewEmails_shouldMakeSingleCallWhenNothingIsNew() throws Exception {
+        // Arrange
+        when(credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY)).thenReturn("500");
+        when(historyList.execute()).thenReturn(new ListHistoryResponse().setHistoryId(BigInteger.valueOf(500)));
+
+        // Act
+        GmailService.NewEmails newEmails = service.fetchNewEmails(gmail, accounts);
+
+        // Assert
+        assertTrue(newEmails.messages().isEmpty());
+        verify(historyList, times(1)).execute();
+        verifyNoInteractions(messageBatchFetcher);
+        verify(gmailMessages, never()).list(anyString());
+    }
+
+    @Test
+    void fetchNewEmails_shouldFallBackToQueryWhenHistoryHasExpired() throws Exception {
+        // Arrange
+        when(credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY)).thenReturn("500");
+        when(historyList.execute()).thenThrow(new GoogleJsonResponseException(
+                new HttpResponseException.Builder(404, "Not Found", new HttpHeaders()), new GoogleJsonError()));
+        when(messagesList.execute()).thenReturn(new ListMessagesResponse()
+                .setMessages(List.of(new Message().setId("new"), new Message().setId("old"))));
+
+        // Act
+        GmailService.NewEmails newEmails = service.fetchNewEmails(gmail, accounts);
+
+        // Assert
+        assertEquals(List.of("old", "new"), newEmails.messages().stream().map(Message::getId).collect(Collectors.toList()));
+        assertEquals(BigInteger.valueOf(900), newEmails.historyId());
+    }
+
+    @Test
+    void fetchNewEmails_shouldUseQueryWhenForcedLookbackIsPending() throws Exception {
+        // Arrange
+        when(credentialsService.getCredential(Constants.GMAIL_LAST_HISTORY_ID_KEY)).thenReturn("500");
+        when(credentialsService.getCredential(Constants.FORCE_GMAIL_LOOKBACK_UNTIL_DATE_KEY)).thenReturn("2024-01-01T00:00:00");
+        when(messagesList.execute()).thenReturn(new ListMessagesResponse());
+
+        // Act
+        GmailService.NewEmails newEmails = service.fetchNewEmails(gmail, accounts);
+
+        // Assert
+        assertTrue(newEmails.messages().isEmpty());
+        verify(gmailHistory, never()).list(anyString());
+        verify(messagesList).setQ(contains("after:"));
+    }
+
+    @Test
+    void prefilterByMetadata_shouldDropProcessedAndPromotionalEmailsBeforeFullFetch() {
+        // Arrange
+        List<Message> listed = List.of(new Message().setId("done"), new Message().setId("promo"),
+                new Message().setId("alert"), new Message().setId("card"), new Message().setId("unknown"));
+        when(processedGmailMessagesTrackerService.findMessagesProcessedForAllAccounts(anyList(), eq(Set.of("1234567890123456"))))
+                .thenReturn(Set.of("done"));
+        Map<String, Message> metadata = new LinkedHashMap<>();
+        metadata.put("promo", withSubject("promo", "Exclusive festive offers for you", "Get up to 10% cashback on shopping"));
+        metadata.put("alert", withSubject("alert", "You have done a UPI txn", "Dear Customer, Rs.500.00 has been debited"));
+        metadata.put("card", withSubject("card", "Important update", "Your card ending 3456 ..."));
+        when(messageBatchFetcher.fetchMetadata(eq(gmail), eq(List.of("promo", "alert", "card", "unknown")), anySet())).thenReturn(metadata);
+        when(accountMatchingService.findAccountsByNumbers(anyString(), eq(accounts))).thenReturn(List.of());
+        when(accountMatchingService.findAccountsByNumbers(contains("ending 3456"), eq(accounts))).thenReturn(accounts);
+
+        // Act
+        List<Message> relevant = service.prefilterByMetadata(gmail, listed, accounts);
+
+        // Assert: the promotion is dropped; the account-number match and the email without
+        // metadata are kept
+        assertEquals(List.of("alert", "card", "unknown"), relevant.stream().map(Message::getId).collect(Collectors.toList()));
+        assertSame(metadata.get("alert"), relevant.get(0));
+        verify(messageBatchFetcher, never()).fetchMessages(any(), anyList(), anyString());
+    }
+
+    @Test
+    void prefilterByMetadata_shouldReuseHeadersFromHistoryListing() {
+        // Arrange
+        List<Message> listed = List.of(withFrom("m1", HDFC_SENDER));
+        when(processedGmailMessagesTrackerService.findMessagesProcessedForAllAccounts(anyList(), anySet())).thenReturn(Set.of());
+
+        // Act
+        List<Message> relevant = service.prefilterByMetadata(gmail, listed, accounts);
+
+        // Assert
+        assertEquals(listed, relevant);
+        verifyNoInteractions(messageBatchFetcher);
+    }
+
+    private History added(String messageId) {
+        return new History().setMessagesAdded(List.of(new HistoryMessageAdded().setMessage(new Message().setId(messageId))));
+    }
+
+    private Message withSubject(String messageId, String subject, String snippet) {
+        return new Message().setId(messageId).setSnippet(snippet)
+                .setPayload(new MessagePart().setHeaders(List.of(
+                        new MessagePartHeader().setName("From").setValue(HDFC_SENDER),
+                        new MessagePartHeader().setName("Subject").setValue(subject))));
+    }
+
+    private Message withFrom(String messageId, String from) {
+        return new Message().setId(messageId)
+                .setPayload(new MessagePart().setHeaders(List.of(new MessagePartHeader().setName("From").setValue(from))));
+    }
+}
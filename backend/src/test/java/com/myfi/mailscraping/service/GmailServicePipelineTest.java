@@ -0,0 +1,291 @@
+package com.myfi.mailscraping.service;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import com.myfi.mailscraping.enums.EmailType;
+import com.myfi.mailscraping.service.OpenAIService.ExtractedDetailsFromEmail;
+import com.myfi.mailscraping.service.ProcessedGmailMessagesTrackerService.ProcessedMark;
+import com.myfi.model.Account;
+import com.myfi.model.Transaction;
+import com.myfi.refresh.service.RefreshTrackingService;
+import com.myfi.service.AccountHistoryService;
+import com.myfi.service.CurrencyConversionService;
+import com.myfi.service.TransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GmailServicePipelineTest {
+
+    @Mock
+    private EmailDetailsExtractionService emailDetailsExtractionService;
+    @Mock
+    private EmailParser emailParser;
+    @Mock
+    private TransactionService transactionService;
+    @Mock
+    private ProcessedGmailMessagesTrackerService processedGmailMessagesTrackerService;
+    @Mock
+    private RefreshTrackingService refreshTrackingService;
+    @Mock
+    private AccountHistoryService accountHistoryService;
+    @Mock
+    private AccountMatchingService accountMatchingService;
+    @Mock
+    private CurrencyConversionService currencyConversionService;
+
+    @Mock
+    private GmailMessageBatchFetcher messageBatchFetcher;
+
+    @Mock
+    private Gmail gmail;
+
+    @InjectMocks
+    private GmailService service;
+
+    private ExecutorService fetchExecutor;
+    private ExecutorService parseExecutor;
+    private ExecutorService extractExecutor;
+
+    private Account hdfcAccount;
+    private List<Account> accounts;
+    private final AtomicInteger concurrentFetches = new AtomicInteger();
+    private final AtomicInteger maxConcurrentFetches = new AtomicInteger();
+    private final Map<String, Long> fetchDelays = new ConcurrentHashMap<>();
+    private final List<List<String>> fetchedGroups = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fetchExecutor = Executors.newFixedThreadPool(4);
+        parseExecutor = Executors.newFixedThreadPool(2);
+        extractExecutor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(service, "gmailFetchExecutor", fetchExecutor);
+        ReflectionTestUtils.setField(service, "gmailParseExecutor", parseExecutor);
+        ReflectionTestUtils.setField(service, "gmailExtractExecutor", extractExecutor);
+        ReflectionTestUtils.setField(service, "syncMaxInFlight", 8);
+        ReflectionTestUtils.setField(service, "syncPersistBatchSize", 2);
+
+        hdfcAccount = new Account();
+        hdfcAccount.setId(1L);
+        hdfcAccount.setName("HDFC");
+        hdfcAccount.setAccountNumber("1234567890123456");
+        accounts = List.of(hdfcAccount);
+
+        when(messageBatchFetcher.getBatchSize()).thenReturn(2);
+        when(messageBatchFetcher.fetchMessages(eq(gmail), anyList(), eq("full"))).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(1);
+            fetchedGroups.add(List.copyOf(ids));
+            int current = concurrentFetches.incrementAndGet();
+            maxConcurrentFetches.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(ids.stream().mapToLong(id -> fetchDelays.getOrDefault(id, 0L)).max().orElse(0L));
+            } finally {
+                concurrentFetches.decrementAndGet();
+            }
+            // Ids without a stubbed delay behave as if the batch entry failed for good
+            Map<String, Message> fetched = new LinkedHashMap<>();
+            ids.stream().filter(fetchDelays::containsKey)
+                    .forEach(id -> fetched.put(id, new Message().setId(id).setInternalDate(System.currentTimeMillis())));
+            return fetched;
+        });
+        when(emailParser.extractNormalizedText(any(Message.class)))
+                .thenAnswer(invocation -> NormalizedEmailText.of("body of " + invocation.getArgument(0, Message.class).getId()));
+        when(accountMatchingService.findMatchingAccounts(any(NormalizedEmailText.class), eq(accounts))).thenReturn(accounts);
+        when(accountMatchingService.validateAccountMatch(any(Account.class), any())).thenReturn(true);
+        when(processedGmailMessagesTrackerService.getUnprocessedAccountsForEmail(anyString(), anySet()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(currencyConversionService.isValidCurrencyCode("INR")).thenReturn(true);
+        when(emailDetailsExtractionService.extractDetails(any(), anyString())).thenReturn(Optional.of(transactionDetails()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fetchExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+        extractExecutor.shutdownNow();
+    }
+
+    @Test
+    void processEmails_shouldFetchConcurrentlyAndPersistOldestFirstInBatches() throws Exception {
+        // The oldest email is the slowest to fetch; persistence must still start with it
+        List<Message> emails = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            emails.add(stubMessage("m" + i, i == 1 ? 300 : 50));
+        }
+        List<String> processedIds = new ArrayList<>();
+
+        // Act
+        int created = service.processEmails(gmail, emails, accounts, "op", processedIds);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(3)).createTransactions(batches.capture());
+        assertEquals(List.of(List.of("m1", "m2"), List.of("m3", "m4"), List.of("m5")),
+                batches.getAllValues().stream().map(this::messageIds).collect(Collectors.toList()));
+        assertEquals(5, created);
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), processedIds);
+        assertEquals(List.of(List.of("m1", "m2"), List.of("m3", "m4"), List.of("m5")),
+                fetchedGroups.stream().sorted(Comparator.comparing(group -> group.get(0))).collect(Collectors.toList()));
+        assertTrue(maxConcurrentFetches.get() > 1, "batch fetches should overlap");
+        verify(transactionService, never()).createTransaction(any());
+        List<ProcessedMark> marks = recordedMarks();
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), marks.stream().map(ProcessedMark::messageId).collect(Collectors.toList()));
+        assertTrue(marks.stream().allMatch(mark -> mark.accountNumbers().equals(Set.of(hdfcAccount.getAccountNumber()))
+                && mark.transactionCount() == 1));
+        // One batched update per transaction batch, no per-email writes
+        verify(processedGmailMessagesTrackerService, times(3)).markEmailsProcessed(anyList());
+        verify(processedGmailMessagesTrackerService, never()).markEmailProcessedForAccounts(anyString(), anySet(), any(), anyInt());
+    }
+
+    @Test
+    void processEmails_shouldFlushPendingTransactionsBeforeBalanceUpdate() throws Exception {
+        ReflectionTestUtils.setField(service, "syncPersistBatchSize", 10);
+        List<Message> emails = List.of(stubMessage("m1", 0), stubMessage("m2", 0), stubMessage("m3", 0));
+        ExtractedDetailsFromEmail balanceDetails = ExtractedDetailsFromEmail.builder()
+                .emailType(EmailType.ACCOUNT_BALANCE_INFORMATION)
+                .amount(9000.0)
+                .transactionDate(LocalDate.now(ZoneOffset.UTC))
+                .build();
+        when(emailDetailsExtractionService.extractDetails(any(), eq("body of m2"))).thenReturn(Optional.of(balanceDetails));
+
+        service.processEmails(gmail, emails, accounts, "op", new ArrayList<>());
+
+        InOrder inOrder = inOrder(transactionService, accountHistoryService);
+        inOrder.verify(transactionService).createTransactions(argThat(list -> messageIds(list).equals(List.of("m1"))));
+        inOrder.verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(9000.0));
+        inOrder.verify(transactionService).createTransactions(argThat(list -> messageIds(list).equals(List.of("m3"))));
+    }
+
+    @Test
+    void processEmails_shouldSkipEmailThatFailedToFetchWithoutMarkingIt() throws Exception {
+        List<Message> emails = List.of(stubMessage("m1", 0), stubFailingMessage("m2"), stubMessage("m3", 0));
+        List<String> processedIds = new ArrayList<>();
+
+        service.processEmails(gmail, emails, accounts, "op", processedIds);
+
+        assertEquals(List.of("m1", "m3"), processedIds);
+        assertTrue(recordedMarks().stream().noneMatch(mark -> mark.messageId().equals("m2")));
+    }
+
+    @Test
+    void processEmails_shouldExtractEachFetchGroupTogether_whenBatchExtractionEnabled() throws Exception {
+        when(emailDetailsExtractionService.isBatchExtractionEnabled()).thenReturn(true);
+        List<List<String>> extractedGroups = Collections.synchronizedList(new ArrayList<>());
+        when(emailDetailsExtractionService.extractDetails(anyList())).thenAnswer(invocation -> {
+            List<EmailDetailsExtractionService.EmailText> texts = invocation.getArgument(0);
+            extractedGroups.add(texts.stream().map(EmailDetailsExtractionService.EmailText::text).collect(Collectors.toList()));
+            return texts.stream().map(text -> Optional.of(transactionDetails())).collect(Collectors.toList());
+        });
+        List<Message> emails = List.of(stubMessage("m1", 0), stubMessage("m2", 0), stubFailingMessage("m3"), stubMessage("m4", 0));
+        List<String> processedIds = new ArrayList<>();
+
+        service.processEmails(gmail, emails, accounts, "op", processedIds);
+
+        assertEquals(List.of("m1", "m2", "m4"), processedIds);
+        assertEquals(Set.of(List.of("body of m1", "body of m2"), List.of("body of m4")), new HashSet<>(extractedGroups));
+        verify(emailDetailsExtractionService, never()).extractDetails(any(), anyString());
+    }
+
+    @Test
+    void processEmails_shouldFallBackToSingleInsertsWhenBulkInsertFails() throws Exception {
+        List<Message> emails = List.of(stubMessage("m1", 0), stubMessage("m2", 0));
+        when(transactionService.createTransactions(anyList())).thenThrow(new RuntimeException("database is locked"));
+        when(transactionService.createTransaction(any(Transaction.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new RuntimeException("still locked"));
+        List<String> processedIds = new ArrayList<>();
+
+        int created = service.processEmails(gmail, emails, accounts, "op", processedIds);
+
+        assertEquals(1, created);
+        assertEquals(List.of("m1"), processedIds);
+        verify(transactionService, times(2)).createTransaction(any(Transaction.class));
+    }
+
+    @Test
+    void processEmails_shouldMarkEmailsOneByOneWhenBatchedMarkFails() throws Exception {
+        List<Message> emails = List.of(stubMessage("m1", 0), stubMessage("m2", 0));
+        doThrow(new RuntimeException("database is locked")).when(processedGmailMessagesTrackerService).markEmailsProcessed(anyList());
+
+        service.processEmails(gmail, emails, accounts, "op", new ArrayList<>());
+
+        verify(processedGmailMessagesTrackerService).markEmailProcessedForAccounts(eq("m1"), eq(Set.of(hdfcAccount.getAccountNumber())), any(), eq(1));
+        verify(processedGmailMessagesTrackerService).markEmailProcessedForAccounts(eq("m2"), eq(Set.of(hdfcAccount.getAccountNumber())), any(), eq(1));
+    }
+
+    @Test
+    void processEmails_shouldFlushMarksOfNonTransactionEmailsInBatches() throws Exception {
+        ReflectionTestUtils.setField(service, "syncPersistBatchSize", 2);
+        List<Message> emails = List.of(stubMessage("m1", 0), stubMessage("m2", 0), stubMessage("m3", 0));
+        when(emailDetailsExtractionService.extractDetails(any(), anyString())).thenReturn(Optional.empty());
+
+        service.processEmails(gmail, emails, accounts, "op", new ArrayList<>());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProcessedMark>> batches = ArgumentCaptor.forClass(List.class);
+        verify(processedGmailMessagesTrackerService, times(2)).markEmailsProcessed(batches.capture());
+        assertEquals(List.of(List.of("m1", "m2"), List.of("m3")), batches.getAllValues().stream()
+                .map(batch -> batch.stream().map(ProcessedMark::messageId).collect(Collectors.toList()))
+                .collect(Collectors.toList()));
+        verify(transactionService, never()).createTransactions(anyList());
+    }
+
+    private Message stubMessage(String id, long fetchDelayMillis) {
+        fetchDelays.put(id, fetchDelayMillis);
+        return new Message().setId(id);
+    }
+
+    private Message stubFailingMessage(String id) {
+        return new Message().setId(id);
+    }
+
+    private ExtractedDetailsFromEmail transactionDetails() {
+        return ExtractedDetailsFromEmail.builder()
+                .emailType(EmailType.TRANSACTION_INFORMATION)
+                .isTransactionSuccessful(true)
+                .amount(100.0)
+                .currencyCode("INR")
+                .description("Amazon")
+                .transactionType("DEBIT")
+                .transactionDate(LocalDate.now(ZoneOffset.UTC))
+                .accountNumber(hdfcAccount.getAccountNumber())
+                .build();
+    }
+
+    private List<ProcessedMark> recordedMarks() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProcessedMark>> batches = ArgumentCaptor.forClass(List.class);
+        verify(processedGmailMessagesTrackerService, atLeastOnce()).markEmailsProcessed(batches.capture());
+        return batches.getAllValues().stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private List<String> messageIds(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getEmailMessageId).collect(Collectors.toList());
+    }
+}
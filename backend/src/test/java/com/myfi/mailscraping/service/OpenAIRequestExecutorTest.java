@@ -0,0 +1,212 @@
+package com.myfi.mailscraping.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIRequestExecutorTest {
+
+    private OpenAIRequestExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new OpenAIRequestExecutor();
+        ReflectionTestUtils.setField(executor, "backoffInitialMs", 1L);
+        ReflectionTestUtils.setField(executor, "backoffMaxMs", 4L);
+        ReflectionTestUtils.setField(executor, "requestsPerMinute", 0d);
+    }
+
+    @Test
+    void execute_shouldRetryTransientFailures_thenReturnResult() throws Exception {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new TransientAiException("503 - unavailable");
+            }
+            return "ok";
+        });
+
+        // Assert
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_shouldGiveUp_afterMaxAttempts() {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxAttempts", 3);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(ResourceAccessException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            throw new ResourceAccessException("connection reset");
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_shouldNotRetryNonTransientFailures() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(NonTransientAiException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            throw new NonTransientAiException("400 - bad request");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void isTransient_shouldTreatRateLimitFromDefaultHandlerAsTransient() {
+        assertTrue(OpenAIRequestExecutor.isTransient(new NonTransientAiException("429 - Too Many Requests")));
+        assertTrue(OpenAIRequestExecutor.isTransient(new RuntimeException(new TransientAiException("500 - error"))));
+        assertFalse(OpenAIRequestExecutor.isTransient(new NonTransientAiException("401 - unauthorized")));
+        assertFalse(OpenAIRequestExecutor.isTransient(new IllegalStateException("bug")));
+    }
+
+    @Test
+    void execute_shouldOpenCircuit_afterConsecutiveTransientFailures() {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxAttempts", 1);
+        ReflectionTestUtils.setField(executor, "circuitFailureThreshold", 2);
+        ReflectionTestUtils.setField(executor, "circuitOpenMs", 60_000L);
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < 2; i++) {
+            assertThrows(TransientAiException.class, () -> executor.execute(() -> {
+                calls.incrementAndGet();
+                throw new TransientAiException("502 - bad gateway");
+            }));
+        }
+
+        // Assert
+        assertThrows(OpenAIRequestExecutor.CircuitOpenException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            return "never";
+        }));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldCloseCircuit_whenProbeSucceedsAfterOpenPeriod() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxAttempts", 1);
+        ReflectionTestUtils.setField(executor, "circuitFailureThreshold", 1);
+        ReflectionTestUtils.setField(executor, "circuitOpenMs", 20L);
+        assertThrows(TransientAiException.class, () -> executor.execute(() -> {
+            throw new TransientAiException("503 - unavailable");
+        }));
+
+        // Act
+        Thread.sleep(40);
+        String result = executor.execute(() -> "ok");
+
+        // Assert
+        assertEquals("ok", result);
+        assertEquals("ok again", executor.execute(() -> "ok again"));
+    }
+
+    @Test
+    void execute_shouldLetOnlyOneProbeThroughWhileHalfOpen() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxAttempts", 1);
+        ReflectionTestUtils.setField(executor, "circuitFailureThreshold", 1);
+        ReflectionTestUtils.setField(executor, "circuitOpenMs", 20L);
+        assertThrows(TransientAiException.class, () -> executor.execute(() -> {
+            throw new TransientAiException("503 - unavailable");
+        }));
+        Thread.sleep(40);
+        CountDownLatch probeStarted = new CountDownLatch(1);
+        CountDownLatch releaseProbe = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+
+        // Act
+        Future<String> probe = pool.submit(() -> executor.execute(() -> {
+            probeStarted.countDown();
+            releaseProbe.await();
+            return "probe";
+        }));
+        assertTrue(probeStarted.await(5, TimeUnit.SECONDS));
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(OpenAIRequestExecutor.CircuitOpenException.class, () -> executor.execute(() -> {
+            calls.incrementAndGet();
+            return "never";
+        }));
+        releaseProbe.countDown();
+
+        // Assert: the probe succeeded and closed the breaker for everyone
+        assertEquals("probe", probe.get(5, TimeUnit.SECONDS));
+        assertEquals(0, calls.get());
+        assertEquals("ok", executor.execute(() -> "ok"));
+        pool.shutdown();
+    }
+
+    @Test
+    void execute_shouldLimitConcurrentRequests() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxConcurrentRequests", 2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 6; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return executor.execute(() -> {
+                    int now = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(now, Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return now;
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Assert
+        assertTrue(maxInFlight.get() <= 2, "at most 2 requests in flight, saw " + maxInFlight.get());
+    }
+
+    @Test
+    void execute_shouldPaceRequests_whenBucketIsEmpty() throws Exception {
+        // Arrange: 600 per minute = 10 per second, bucket holds 10
+        ReflectionTestUtils.setField(executor, "requestsPerMinute", 600d);
+        long start = System.nanoTime();
+
+        // Act
+        for (int i = 0; i < 12; i++) {
+            executor.execute(() -> "ok");
+        }
+
+        // Assert: the two requests beyond the burst wait ~100 ms each
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 150, "expected pacing, took " + elapsedMs + " ms");
+    }
+}
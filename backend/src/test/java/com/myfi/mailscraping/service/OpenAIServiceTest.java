@@ -18,10 +18,13 @@ import org.springframework.ai.chat.model.Generation;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,6 +37,12 @@ class OpenAIServiceTest {
     @Mock
     private CredentialsService credentialsService;
 
+    @Mock
+    private ExtractionCacheService extractionCacheService;
+
+    @Mock
+    private OpenAIRequestExecutor requestExecutor;
+
     @Mock
     private OpenAiChatModel chatModel;
 
@@ -63,6 +72,9 @@ class OpenAIServiceTest {
 
         // Make credentials service stubbing lenient to avoid unnecessary stubbing errors
         lenient().when(credentialsService.getCredential(eq(Constants.OPENAI_API_KEY_KEY))).thenReturn("test-api-key");
+
+        // The executor just runs the request once
+        lenient().when(requestExecutor.execute(any())).thenAnswer(invocation -> ((Callable<?>) invocation.getArgument(0)).call());
     }
 
     @Test
@@ -511,4 +523,158 @@ class OpenAIServiceTest {
             openAIService.extractDetailsFromEmail(emailBody);
         });
     }
-} 
\ No newline at end of file
+
+    @Test
+    void extractTransactionDetailsFromEmail_shouldUseCachedResponseWithoutCallingModel() throws Exception {
+        // Arrange
+        String emailBody = "Rs. 250 spent on card 1234 at Swiggy";
+        String cachedJson = """
+            {"amount": 250.0, "currency_code": "INR", "transaction_date": "2024-02-01",
+             "transaction_type": "DEBIT", "description": "Swiggy", "account_number": "1234",
+             "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true,
+             "is_pixel_card_transaction": false}
+            """;
+        String cacheKey = ExtractionCacheService.cacheKey(OpenAIService.EXTRACTION_SCHEMA_VERSION, "gpt-4.1-mini", emailBody);
+        when(extractionCacheService.get(cacheKey)).thenReturn(Optional.of(cachedJson));
+
+        // Act
+        Optional<ExtractedDetailsFromEmail> result = openAIService.extractDetailsFromEmail(emailBody);
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertEquals(250.0, result.get().getAmount());
+        verifyNoInteractions(chatModel, credentialsService);
+        verify(extractionCacheService, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void extractTransactionDetailsFromEmail_shouldStoreModelResponseInCache() throws Exception {
+        // Arrange
+        String emailBody = "Your a/c 5678 was credited with INR 1000";
+        String jsonResponse = """
+            {"amount": 1000.0, "currency_code": "INR", "transaction_date": "2024-02-01",
+             "transaction_type": "CREDIT", "description": "Salary", "account_number": "5678",
+             "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true,
+             "is_pixel_card_transaction": false}
+            """;
+        java.lang.reflect.Field chatModelField = OpenAIService.class.getDeclaredField("chatModel");
+        chatModelField.setAccessible(true);
+        chatModelField.set(openAIService, chatModel);
+        when(chatModel.call(any(Prompt.class))).thenReturn(chatResponse);
+        when(chatResponse.getResult()).thenReturn(generation);
+        when(generation.getOutput()).thenReturn(assistantMessage);
+        when(assistantMessage.getText()).thenReturn(jsonResponse);
+
+        // Act
+        Optional<ExtractedDetailsFromEmail> result = openAIService.extractDetailsFromEmail(emailBody);
+
+        // Assert
+        assertTrue(result.isPresent());
+        String cacheKey = ExtractionCacheService.cacheKey(OpenAIService.EXTRACTION_SCHEMA_VERSION, "gpt-4.1-mini", emailBody);
+        verify(extractionCacheService).put(cacheKey, "gpt-4.1-mini", jsonResponse);
+    }
+
+    @Test
+    void extractTransactionDetailsFromEmail_shouldNotCacheIncompleteResponse() throws Exception {
+        // Arrange: parses, but the account number is too short to use
+        String emailBody = "Transaction on card 12";
+        String jsonResponse = """
+            {"amount": 100.0, "currency_code": "INR", "transaction_date": "2024-01-15",
+             "transaction_type": "DEBIT", "description": "Test transaction", "account_number": "12",
+             "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true,
+             "is_pixel_card_transaction": false}
+            """;
+        java.lang.reflect.Field chatModelField = OpenAIService.class.getDeclaredField("chatModel");
+        chatModelField.setAccessible(true);
+        chatModelField.set(openAIService, chatModel);
+        when(chatModel.call(any(Prompt.class))).thenReturn(chatResponse);
+        when(chatResponse.getResult()).thenReturn(generation);
+        when(generation.getOutput()).thenReturn(assistantMessage);
+        when(assistantMessage.getText()).thenReturn(jsonResponse);
+
+        // Act
+        Optional<ExtractedDetailsFromEmail> result = openAIService.extractDetailsFromEmail(emailBody);
+
+        // Assert
+        assertFalse(result.isPresent());
+        verify(extractionCacheService, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void extractTransactionDetailsFromEmail_shouldPropagateTransientFailure_soEmailCanBeRetried() throws Exception {
+        // Arrange
+        String emailBody = "Some email content";
+        java.lang.reflect.Field chatModelField = OpenAIService.class.getDeclaredField("chatModel");
+        chatModelField.setAccessible(true);
+        chatModelField.set(openAIService, chatModel);
+        when(chatModel.call(any(Prompt.class))).thenThrow(new TransientAiException("429 - rate limited"));
+
+        // Act & Assert
+        assertThrows(TransientAiException.class, () -> openAIService.extractDetailsFromEmail(emailBody));
+        verify(extractionCacheService, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void extractDetailsFromEmails_shouldMapBatchResultsByIndexAndFallBackForInvalidItems() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(openAIService, "batchExtractionEnabled", true);
+        java.lang.reflect.Field chatModelField = OpenAIService.class.getDeclaredField("chatModel");
+        chatModelField.setAccessible(true);
+        chatModelField.set(openAIService, chatModel);
+        // Results come back out of order; the third one has an unusable account number
+        String batchResponse = """
+            {"results": [
+              {"email_index": 1, "amount": 20.0, "currency_code": "INR", "transaction_date": "2024-02-02",
+               "transaction_type": "DEBIT", "description": "Second", "account_number": "2222",
+               "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true, "is_pixel_card_transaction": false},
+              {"email_index": 0, "amount": 10.0, "currency_code": "INR", "transaction_date": "2024-02-01",
+               "transaction_type": "DEBIT", "description": "First", "account_number": "1111",
+               "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true, "is_pixel_card_transaction": false},
+              {"email_index": 2, "amount": 30.0, "currency_code": "INR", "transaction_date": "2024-02-03",
+               "transaction_type": "DEBIT", "description": "Third", "account_number": "33",
+               "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true, "is_pixel_card_transaction": false}
+            ]}
+            """;
+        String singleResponse = """
+            {"amount": 30.0, "currency_code": "INR", "transaction_date": "2024-02-03",
+             "transaction_type": "DEBIT", "description": "Third", "account_number": "3333",
+             "email_type": "TRANSACTION_INFORMATION", "is_transaction_successful": true,
+             "is_pixel_card_transaction": false}
+            """;
+        when(chatModel.call(any(Prompt.class))).thenReturn(chatResponse);
+        when(chatResponse.getResult()).thenReturn(generation);
+        when(generation.getOutput()).thenReturn(assistantMessage);
+        when(assistantMessage.getText()).thenReturn(batchResponse, singleResponse);
+
+        // Act
+        List<Optional<ExtractedDetailsFromEmail>> results = openAIService.extractDetailsFromEmails(
+                List.of("email one", "email two", "email three"));
+
+        // Assert
+        assertEquals("First", results.get(0).get().getDescription());
+        assertEquals("Second", results.get(1).get().getDescription());
+        assertEquals("3333", results.get(2).get().getAccountNumber());
+        verify(chatModel, times(2)).call(any(Prompt.class));
+        String secondKey = ExtractionCacheService.cacheKey(OpenAIService.EXTRACTION_SCHEMA_VERSION, "gpt-4.1-mini", "email two");
+        verify(extractionCacheService).put(eq(secondKey), eq("gpt-4.1-mini"), argThat(json -> json.contains("Second") && !json.contains("email_index")));
+    }
+
+    @Test
+    void extractDetailsFromEmails_shouldCallModelPerEmail_whenBatchModeDisabled() throws Exception {
+        // Arrange
+        java.lang.reflect.Field chatModelField = OpenAIService.class.getDeclaredField("chatModel");
+        chatModelField.setAccessible(true);
+        chatModelField.set(openAIService, chatModel);
+        when(chatModel.call(any(Prompt.class))).thenReturn(chatResponse);
+        when(chatResponse.getResult()).thenReturn(generation);
+        when(generation.getOutput()).thenReturn(assistantMessage);
+        when(assistantMessage.getText()).thenReturn("{}");
+
+        // Act
+        List<Optional<ExtractedDetailsFromEmail>> results = openAIService.extractDetailsFromEmails(List.of("a", "b"));
+
+        // Assert
+        assertEquals(2, results.size());
+        verify(chatModel, times(2)).call(any(Prompt.class));
+    }
+}
@@ -8,11 +8,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -122,6 +127,28 @@ class ProcessedGmailMessagesTrackerServiceNewMethodsTest {
         assertTrue(result.isEmpty());
     }
 
+    // Tests for findMessagesProcessedForAllAccounts()
+    @Test
+    void findMessagesProcessedForAllAccounts_shouldReturnOnlyMessagesCoveringEveryAccount() {
+        when(repository.findProcessedAccountNumbersByMessageIdIn(anyCollection())).thenReturn(List.of(
+                new Object[]{"done", "1234"},
+                new Object[]{"done", "5678"},
+                new Object[]{"partial", "1234"}));
+
+        Set<String> result = service.findMessagesProcessedForAllAccounts(List.of("done", "partial", "new"), Set.of("1234", "5678"));
+
+        assertEquals(Set.of("done"), result);
+        verify(repository, times(1)).findProcessedAccountNumbersByMessageIdIn(anyCollection());
+    }
+
+    @Test
+    void findMessagesProcessedForAllAccounts_shouldSkipQueryForNoMessages() {
+        Set<String> result = service.findMessagesProcessedForAllAccounts(List.of(), Set.of("1234"));
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(repository);
+    }
+
     // Tests for findLatestMessageDateTime()
     @Test
     void findLatestMessageDateTime_shouldReturnLatestDateTime() {
@@ -266,6 +293,140 @@ class ProcessedGmailMessagesTrackerServiceNewMethodsTest {
         ));
     }
 
+    // Tests for the in-memory processed index
+    @Test
+    void loadProcessedIndex_shouldAnswerLookupsWithoutQueries() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.of(
+                new Object[]{"18c2f1a3b4d5e6f7", "1234"},
+                new Object[]{"18c2f1a3b4d5e6f7", "5678"},
+                new Object[]{"test-message-123", "1234"}));
+
+        service.loadProcessedIndex();
+
+        assertTrue(service.isEmailProcessed("18c2f1a3b4d5e6f7"));
+        assertFalse(service.isEmailProcessed("18c2f1a3b4d5e6f8"));
+        assertTrue(service.isMessageProcessedForAccount("test-message-123", "1234"));
+        assertFalse(service.isMessageProcessedForAccount("test-message-123", "5678"));
+        assertEquals(Set.of("9999"), service.getUnprocessedAccountsForEmail("18c2f1a3b4d5e6f7", testAccountNumbers));
+        assertEquals(Set.of("18c2f1a3b4d5e6f7"), service.findMessagesProcessedForAllAccounts(
+                List.of("18c2f1a3b4d5e6f7", "test-message-123", "other"), Set.of("1234", "5678")));
+        verify(repository).streamAllProcessedAccountNumbers();
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void releaseProcessedIndex_shouldGoBackToDatabaseLookups() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.<Object[]>of(new Object[]{"abc", "1234"}));
+        when(repository.existsByMessageId("abc")).thenReturn(false);
+        service.loadProcessedIndex();
+
+        service.releaseProcessedIndex();
+
+        assertFalse(service.isEmailProcessed("abc"));
+        verify(repository).existsByMessageId("abc");
+    }
+
+    @Test
+    void markEmailProcessedForAccounts_shouldKeepLoadedIndexCurrent() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.empty());
+        when(repository.findByMessageId("test-message-123")).thenReturn(Optional.empty());
+        service.loadProcessedIndex();
+
+        service.markEmailProcessedForAccounts("test-message-123", Set.of("1234"), testDateTime, 1);
+
+        assertTrue(service.isMessageProcessedForAccount("test-message-123", "1234"));
+        verify(repository, never()).isMessageProcessedForAccount(anyString(), anyString());
+    }
+
+    // Tests for markEmailsProcessed()
+    @Test
+    void markEmailsProcessed_shouldUpdateExistingAndInsertNewRecordsInOneBatch() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.empty());
+        when(repository.findWithAccountsByMessageIdIn(List.of("test-message-123", "new-message")))
+                .thenReturn(List.of(testMessage));
+        service.loadProcessedIndex();
+
+        service.markEmailsProcessed(List.of(
+                new ProcessedGmailMessagesTrackerService.ProcessedMark("test-message-123", Set.of("9999"), testDateTime, 1),
+                new ProcessedGmailMessagesTrackerService.ProcessedMark("new-message", Set.of("1234"), testDateTime, 1),
+                new ProcessedGmailMessagesTrackerService.ProcessedMark("new-message", Set.of("5678"), testDateTime, 1),
+                new ProcessedGmailMessagesTrackerService.ProcessedMark("new-message", Set.of("1234"), testDateTime, 1),
+                new ProcessedGmailMessagesTrackerService.ProcessedMark("no-date", Set.of("1234"), null, 0)));
+
+        // The loaded record is updated in place, as the per-email method would
+        assertEquals(Set.of("1234", "5678", "9999"), testMessage.getProcessedAccountNumbers());
+        assertEquals(3, testMessage.getTransactionCount());
+        verify(repository).saveAll(argThat(records -> {
+            List<ProcessedGmailMessage> list = new ArrayList<>();
+            records.forEach(list::add);
+            return list.size() == 1
+                    && list.get(0).getMessageId().equals("new-message")
+                    && list.get(0).getProcessedAccountNumbers().equals(Set.of("1234", "5678"))
+                    && list.get(0).getTransactionCount() == 2;
+        }));
+        verify(repository, never()).findByMessageId(anyString());
+        verify(repository, never()).save(any());
+        assertEquals(Set.of(), service.getUnprocessedAccountsForEmail("new-message", Set.of("1234", "5678")));
+        assertFalse(service.isEmailProcessed("no-date"));
+    }
+
+    @Test
+    void markEmailsProcessed_shouldUpdateIndexOnlyAfterCommit() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.empty());
+        when(repository.findWithAccountsByMessageIdIn(anyList())).thenReturn(List.of());
+        service.loadProcessedIndex();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.markEmailsProcessed(List.of(
+                    new ProcessedGmailMessagesTrackerService.ProcessedMark("rolled-back", Set.of("1234"), testDateTime, 1)));
+            assertFalse(service.isEmailProcessed("rolled-back"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            assertFalse(service.isEmailProcessed("rolled-back"));
+
+            TransactionSynchronizationManager.initSynchronization();
+            service.markEmailsProcessed(List.of(
+                    new ProcessedGmailMessagesTrackerService.ProcessedMark("committed", Set.of("1234"), testDateTime, 1)));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertTrue(service.isMessageProcessedForAccount("committed", "1234"));
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
+    @Test
+    void unmarkEmailProcessed_shouldUpdateIndexOnlyAfterCommit() {
+        when(repository.streamAllProcessedAccountNumbers()).thenReturn(Stream.<Object[]>of(
+                new Object[]{"test-message-123", "1234"}, new Object[]{"test-message-123", "5678"}));
+        when(repository.findByMessageId("test-message-123")).thenAnswer(invocation -> Optional.of(ProcessedGmailMessage.builder()
+                .messageId("test-message-123")
+                .processedAccountNumbers(new HashSet<>(Set.of("1234", "5678")))
+                .build()));
+        service.loadProcessedIndex();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.unmarkEmailProcessed("test-message-123", "1234");
+            assertTrue(service.isMessageProcessedForAccount("test-message-123", "1234"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            TransactionSynchronizationManager.clearSynchronization();
+            assertTrue(service.isMessageProcessedForAccount("test-message-123", "1234"));
+
+            TransactionSynchronizationManager.initSynchronization();
+            service.unmarkEmailProcessed("test-message-123", "1234");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertFalse(service.isMessageProcessedForAccount("test-message-123", "1234"));
+            assertTrue(service.isMessageProcessedForAccount("test-message-123", "5678"));
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
     // Tests for deprecated methods to ensure backward compatibility
     @Test
     void isMessageProcessed_deprecatedMethod_shouldCallNewMethod() {
@@ -0,0 +1,101 @@
+package com.myfi.mailscraping.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessedMessageIndexTest {
+
+    @Test
+    void add_shouldTrackAccountsPerMessageForHexAndOtherIds() {
+        // Arrange
+        ProcessedMessageIndex index = new ProcessedMessageIndex();
+
+        // Act
+        index.add("18c2f1a3b4d5e6f7", List.of("1234", "5678"));
+        index.add("ffffffffffffffff", "1234");
+        index.add("test-message-123", "5678");
+        index.add("0abc", "1234"); // leading zero, kept as a string
+
+        // Assert
+        assertTrue(index.contains("18c2f1a3b4d5e6f7", "5678"));
+        assertTrue(index.contains("ffffffffffffffff"));
+        assertTrue(index.contains("0abc"));
+        assertFalse(index.contains("abc"));
+        assertFalse(index.contains("test-message-123", "1234"));
+        assertTrue(index.containsAll("18c2f1a3b4d5e6f7", Set.of("1234", "5678")));
+        assertFalse(index.containsAll("18c2f1a3b4d5e6f7", Set.of("1234", "9999")));
+        assertEquals(Set.of("9999"), index.unprocessed("18c2f1a3b4d5e6f7", Set.of("1234", "9999")));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void remove_shouldDropMessageOnceNoAccountsAreLeft() {
+        // Arrange
+        ProcessedMessageIndex index = new ProcessedMessageIndex();
+        index.add("18c2f1a3b4d5e6f7", List.of("1234", "5678"));
+
+        // Act
+        index.remove("18c2f1a3b4d5e6f7", "1234");
+        boolean stillProcessed = index.contains("18c2f1a3b4d5e6f7");
+        index.remove("18c2f1a3b4d5e6f7", "5678");
+
+        // Assert
+        assertTrue(stillProcessed);
+        assertFalse(index.contains("18c2f1a3b4d5e6f7"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void add_shouldRefuseMoreThanMaxAccounts() {
+        // Arrange
+        ProcessedMessageIndex index = new ProcessedMessageIndex();
+        for (int i = 0; i < ProcessedMessageIndex.MAX_ACCOUNTS; i++) {
+            assertTrue(index.add("abc", "account-" + i));
+        }
+
+        // Act & Assert
+        assertFalse(index.add("def", "one-too-many"));
+        assertFalse(index.contains("def"));
+        assertTrue(index.add("def", "account-0"));
+    }
+
+    @Test
+    void index_shouldMatchReferenceSetThroughGrowthAndRemovals() {
+        // Arrange
+        Random random = new Random(7);
+        ProcessedMessageIndex index = new ProcessedMessageIndex();
+        Set<String> expected = new HashSet<>();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(Long.toHexString(0x18c0000000000000L + random.nextInt(1 << 20)));
+        }
+
+        // Act
+        for (int i = 0; i < 60_000; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            String account = "acct-" + random.nextInt(3);
+            if (random.nextInt(3) == 0) {
+                index.remove(id, account);
+                expected.remove(id + "/" + account);
+            } else {
+                index.add(id, account);
+                expected.add(id + "/" + account);
+            }
+        }
+
+        // Assert
+        for (String id : ids) {
+            for (int account = 0; account < 3; account++) {
+                assertEquals(expected.contains(id + "/acct-" + account), index.contains(id, "acct-" + account), id);
+            }
+        }
+        assertEquals(expected.stream().map(pair -> pair.substring(0, pair.indexOf('/'))).distinct().count(), index.size());
+    }
+}
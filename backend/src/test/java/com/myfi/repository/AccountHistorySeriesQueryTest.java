@@ -0,0 +1,202 @@
+package com.myfi.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the native time-series, as-of balance and compaction queries of {@link AccountHistoryRepository}
+ * against a migrated SQLite database, so bucketing, the window functions and the net-worth
+ * running sum are checked on the real engine.
+ */
+class AccountHistorySeriesQueryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private long nextHistoryId = 1;
+
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("series.db"));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+
+        insertAccount(1, null);
+        insertAccount(2, null);
+        insertAccount(3, 1L); // child account: its own history is not part of the net worth
+    }
+
+    @Test
+    void findBalanceCandles_shouldAggregateEachBucketInOrder() throws Exception {
+        // Arrange: Monday 2024-01-01 .. Monday 2024-01-08
+        insertHistory(1, "2024-01-01T09:00", "100");
+        insertHistory(1, "2024-01-01T12:00", "150");
+        insertHistory(1, "2024-01-01T18:00", "80");
+        insertHistory(1, "2024-01-01T23:00", "120");
+        insertHistory(1, "2024-01-07T10:00", "60");
+        insertHistory(1, "2024-01-08T10:00", "90.5");
+
+        // Act
+        List<Object[]> days = candles("findBalanceCandles", "+0 days", "+0 days");
+        List<Object[]> weeks = candles("findBalanceCandles", "weekday 0", "-6 days");
+
+        // Assert
+        assertEquals(3, days.size());
+        assertCandle(days.get(0), "2024-01-01", "100", "150", "80", "120");
+        assertCandle(days.get(1), "2024-01-07", "60", "60", "60", "60");
+        assertCandle(days.get(2), "2024-01-08", "90.5", "90.5", "90.5", "90.5");
+        assertEquals(2, weeks.size());
+        assertCandle(weeks.get(0), "2024-01-01", "100", "150", "60", "60");
+        assertCandle(weeks.get(1), "2024-01-08", "90.5", "90.5", "90.5", "90.5");
+    }
+
+    @Test
+    void findNetWorthPoints_shouldCarryForwardEachRootAccountBalance() throws Exception {
+        // Arrange
+        insertHistory(1, "2024-01-01T09:00", "100");
+        insertHistory(2, "2024-01-02T09:00", "-40.10");
+        insertHistory(3, "2024-01-02T10:00", "999");
+        insertHistory(1, "2024-01-03T09:00", "130.20");
+        insertHistory(2, "2024-02-01T09:00", "-10");
+
+        // Act
+        List<Object[]> points = jdbcTemplate.query(sql("findNetWorthPoints"), new MapSqlParameterSource()
+                        .addValue("fromMillis", millis("2024-01-02T00:00"))
+                        .addValue("toMillis", millis("2024-12-31T00:00")),
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getBigDecimal(2)});
+        List<Object[]> months = candles("findNetWorthCandles", "start of month", "+0 days");
+
+        // Assert: records before "from" still count towards the running total
+        assertEquals(3, points.size());
+        assertEquals(millis("2024-01-02T09:00"), points.get(0)[0]);
+        assertAmount("59.9", points.get(0)[1]);
+        assertAmount("90.1", points.get(1)[1]);
+        assertAmount("120.2", points.get(2)[1]);
+        assertEquals(2, months.size());
+        assertCandle(months.get(0), "2024-01-01", "100", "100", "59.9", "90.1");
+        assertCandle(months.get(1), "2024-02-01", "120.2", "120.2", "120.2", "120.2");
+    }
+
+    @Test
+    void findSupersededIntraDayIds_shouldKeepLastRecordOfEachDayBeforeCutoff() throws Exception {
+        // Arrange
+        insertHistory(1, "2024-01-01T09:00", "100");     // 1: superseded
+        insertHistory(1, "2024-01-01T18:00", "120");     // 2: superseded by 3 (same time, higher id)
+        insertHistory(1, "2024-01-01T18:00", "125");     // 3: end of day
+        insertHistory(1, "2024-01-02T10:00", "130");     // 4: only record of the day
+        insertHistory(1, "2024-01-03T08:00", "140");     // 5: after the cutoff
+        insertHistory(1, "2024-01-03T09:00", "150");     // 6: after the cutoff
+        insertHistory(2, "2024-01-01T10:00", "10");      // 7: another account
+
+        // Act
+        List<Long> ids = jdbcTemplate.queryForList(sql("findSupersededIntraDayIds"), new MapSqlParameterSource()
+                .addValue("accountId", 1L)
+                .addValue("cutoffMillis", millis("2024-01-03T00:00"))
+                .addValue("offsetSeconds", 0L), Long.class);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), ids);
+    }
+
+    @Test
+    void findBalancesAsOf_shouldResolveEachPairWithAFloorLookup() throws Exception {
+        // Arrange
+        insertHistory(1, "2024-01-01T09:00", "100");
+        insertHistory(1, "2024-01-31T18:00", "120");
+        insertHistory(1, "2024-01-31T18:00", "125");
+        insertHistory(1, "2024-02-15T10:00", "130");
+        insertHistory(2, "2024-02-01T10:00", "-10");
+        String requests = "[[1," + millis("2024-01-31T23:59:59") + "],[2," + millis("2024-01-31T23:59:59") + "],"
+                + "[1," + millis("2024-02-15T10:00") + "],[1," + millis("2023-12-31T00:00") + "],[3," + millis("2024-03-01T00:00") + "]]";
+
+        // Act
+        List<Object[]> pairs = jdbcTemplate.query(sql("findBalancesAsOf"), new MapSqlParameterSource("requests", requests),
+                (rs, rowNum) -> new Object[] {rs.getInt(1), rs.getBigDecimal(2)});
+        List<Object[]> all = jdbcTemplate.query(sql("findAllBalancesAsOf"),
+                new MapSqlParameterSource("asOfMillis", millis("2024-01-31T23:59:59")),
+                (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getBigDecimal(2)});
+
+        // Assert: in request order, the last record at or before the time (highest id on ties)
+        assertEquals(5, pairs.size());
+        for (int i = 0; i < pairs.size(); i++) {
+            assertEquals(i, pairs.get(i)[0]);
+        }
+        assertAmount("125", pairs.get(0)[1]);
+        assertNull(pairs.get(1)[1]);
+        assertAmount("130", pairs.get(2)[1]);
+        assertNull(pairs.get(3)[1]);
+        assertNull(pairs.get(4)[1]);
+        assertEquals(3, all.size());
+        assertAmount("125", all.get(0)[1]);
+        assertNull(all.get(1)[1]);
+        assertNull(all.get(2)[1]);
+    }
+
+    private List<Object[]> candles(String method, String startModifier, String alignModifier) throws Exception {
+        return jdbcTemplate.query(sql(method), new MapSqlParameterSource()
+                        .addValue("accountId", 1L)
+                        .addValue("fromMillis", Long.MIN_VALUE)
+                        .addValue("toMillis", Long.MAX_VALUE)
+                        .addValue("offsetSeconds", 0L)
+                        .addValue("startModifier", startModifier)
+                        .addValue("alignModifier", alignModifier),
+                (rs, rowNum) -> new Object[] {rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3),
+                        rs.getBigDecimal(4), rs.getBigDecimal(5)});
+    }
+
+    private static String sql(String method) {
+        return Stream.of(AccountHistoryRepository.class.getMethods())
+                .filter(m -> m.getName().equals(method))
+                .findFirst().orElseThrow()
+                .getAnnotation(Query.class).value();
+    }
+
+    private void insertAccount(long id, Long parentAccountId) {
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, created_at, currency, is_active, name, parent_account_id, type)"
+                + " VALUES (:id, :id, 0, 'INR', 1, 'Account', :parent, 'SAVINGS')",
+                new MapSqlParameterSource().addValue("id", id).addValue("parent", parentAccountId));
+    }
+
+    private void insertHistory(long accountId, String recordedAt, String balance) {
+        jdbcTemplate.update("INSERT INTO account_history (id, balance, recorded_at, account_id)"
+                + " VALUES (:id, :balance, :recordedAt, :accountId)", new MapSqlParameterSource()
+                .addValue("id", nextHistoryId++)
+                .addValue("balance", new BigDecimal(balance))
+                .addValue("recordedAt", millis(recordedAt))
+                .addValue("accountId", accountId));
+    }
+
+    // Stored as UTC here, matching the zero offset passed to the queries
+    private static long millis(String dateTime) {
+        return LocalDateTime.parse(dateTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static void assertCandle(Object[] row, String bucket, String open, String high, String low, String close) {
+        assertEquals(bucket, row[0]);
+        assertAmount(open, row[1]);
+        assertAmount(high, row[2]);
+        assertAmount(low, row[3]);
+        assertAmount(close, row[4]);
+    }
+
+    private static void assertAmount(String expected, Object actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo((BigDecimal) actual), () -> expected + " != " + actual);
+    }
+}
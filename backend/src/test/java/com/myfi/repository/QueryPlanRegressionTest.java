@@ -0,0 +1,165 @@
+package com.myfi.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the Flyway migrations against a fresh SQLite file and checks the query plans of
+ * the hot repository queries. The SQL mirrors what Hibernate generates for the derived
+ * queries; a plan that falls back to a full table scan or a temp b-tree sort fails here.
+ */
+class QueryPlanRegressionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SQLiteDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("plans.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void hotQueries_shouldUseIndexesAfterMigration() {
+        migrate();
+
+        // TransactionRepository.findByTransactionDateBetween
+        assertUsesIndex("SELECT * FROM transactions WHERE transaction_date BETWEEN ? AND ?",
+                "idx_transactions_transaction_date");
+        // TransactionRepository.findAllByOrderByTransactionDateDesc
+        assertUsesIndex("SELECT * FROM transactions ORDER BY transaction_date DESC LIMIT ? OFFSET ?",
+                "idx_transactions_transaction_date");
+        // TransactionRepository.findFeedFirstPage / findFeedAfter (keyset pagination)
+        assertUsesIndex("SELECT * FROM transactions ORDER BY transaction_date DESC, id DESC LIMIT ?",
+                "idx_transactions_transaction_date");
+        assertUsesIndex("SELECT * FROM transactions WHERE transaction_date <= ? AND (transaction_date < ? OR id < ?)"
+                + " ORDER BY transaction_date DESC, id DESC LIMIT ?", "idx_transactions_transaction_date (transaction_date<?)");
+        // TransactionRepository.findByAccountId (paged, sorted by date)
+        assertUsesIndex("SELECT * FROM transactions WHERE account = ? ORDER BY transaction_date DESC LIMIT ?",
+                "idx_transactions_account_date");
+        // TransactionRepository.findByTagId
+        assertUsesIndex("SELECT * FROM transactions WHERE tag_id = ?", "idx_transactions_tag_id");
+        // TransactionRepository.findByUniqueKey
+        assertUsesIndex("SELECT * FROM transactions WHERE uniqueKey = ?", "idx_transactions_unique_key");
+        // Transaction.subTransactions
+        assertUsesIndex("SELECT * FROM transactions WHERE parent_id = ?", "idx_transactions_parent_id");
+        // AccountHistoryRepository.findTopByAccountOrderByRecordedAtDesc
+        assertUsesIndex("SELECT * FROM account_history WHERE account_id = ? ORDER BY recorded_at DESC LIMIT 1",
+                "idx_account_history_account_recorded_at");
+        // AccountHistoryRepository.findBalancePoints / findBalanceCandles (balance series)
+        assertUsesIndex("SELECT recorded_at, balance FROM account_history WHERE account_id = ?"
+                + " AND recorded_at >= ? AND recorded_at < ? ORDER BY recorded_at", "idx_account_history_account_recorded_at");
+        // AccountHistoryRepository.findBalanceAsOf / findBalancesAsOf (floor lookup)
+        assertUsesIndex("SELECT balance FROM account_history WHERE account_id = ? AND recorded_at <= ?"
+                + " ORDER BY recorded_at DESC, id DESC LIMIT 1", "idx_account_history_account_recorded_at (account_id=? AND recorded_at<?)");
+        // ProcessedGmailMessage.processedAccountNumbers
+        assertUsesIndex("SELECT account_number FROM processed_gmail_message_accounts WHERE processed_message_id = ?",
+                "idx_processed_gmail_message_accounts_message");
+    }
+
+    @Test
+    void migrate_shouldBaselineSchemaCreatedByHibernate() throws Exception {
+        // A database created before Flyway already contains the V1 tables but no history table
+        createInitialSchema();
+        jdbcTemplate.update("INSERT INTO accounts (account_number, created_at, currency, is_active, name, type)"
+                + " VALUES ('1234', 0, 'INR', 1, 'Savings', 'SAVINGS')");
+        jdbcTemplate.update("INSERT INTO account_history (id, balance, recorded_at, account_id) VALUES"
+                + " (1, 100.00, 1000, 1), (2, 250.50, 2000, 1), (3, 75.00, 1500, 1)");
+
+        migrate();
+
+        List<String> appliedVersions = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success = 1 ORDER BY installed_rank", String.class);
+        // V1 is recorded as the baseline, every later migration is applied on top
+        assertEquals("1", appliedVersions.get(0));
+        assertTrue(appliedVersions.containsAll(List.of("2", "3", "4")), appliedVersions::toString);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM accounts", Integer.class));
+        // V4 backfills the current balance from the latest history record
+        assertEquals(0, new BigDecimal("250.50").compareTo(
+                jdbcTemplate.queryForObject("SELECT current_balance FROM accounts", BigDecimal.class)));
+        assertUsesIndex("SELECT * FROM transactions WHERE tag_id = ?", "idx_transactions_tag_id");
+    }
+
+    @Test
+    void migrate_shouldFailOnDuplicateTransactionKeysWithoutTouchingData() throws Exception {
+        // A database created without the unique constraint may hold duplicate keys
+        createInitialSchema();
+        jdbcTemplate.update("INSERT INTO transactions (id, amount, created_at, description, transaction_date, type, uniqueKey, parent_id)"
+                + " VALUES (1, 10, 0, 'Coffee', 0, 'DEBIT', 'k1', NULL), (2, 10, 0, 'Coffee', 0, 'DEBIT', 'k1', NULL),"
+                + " (3, 4, 0, 'Split', 0, 'DEBIT', 'k2', 2), (4, 5, 0, 'Other', 0, 'CREDIT', 'k3', NULL)");
+
+        FlywayException failure = assertThrows(FlywayException.class, this::migrate);
+
+        // Flyway wraps the error of the failed migration
+        Throwable cause = failure;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        assertTrue(cause.getMessage().contains("k1 (2 rows)"), cause::getMessage);
+        assertEquals(List.of(1L, 2L, 3L, 4L), jdbcTemplate.queryForList("SELECT id FROM transactions ORDER BY id", Long.class));
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT parent_id FROM transactions WHERE id = 3", Long.class));
+
+        // Once the duplicate is resolved by hand the migration completes and the key is enforced
+        jdbcTemplate.update("UPDATE transactions SET parent_id = 1 WHERE id = 3");
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = 2");
+        migrate();
+        DataAccessException duplicate = assertThrows(DataAccessException.class, () -> jdbcTemplate.update(
+                "INSERT INTO transactions (amount, created_at, description, transaction_date, type, uniqueKey)"
+                        + " VALUES (10, 0, 'Coffee', 0, 'DEBIT', 'k1')"));
+        assertTrue(duplicate.getMessage().contains("UNIQUE constraint failed"), duplicate::getMessage);
+    }
+
+    private void createInitialSchema() throws Exception {
+        String initialSchema = new ClassPathResource("db/migration/V1__initial_schema.sql")
+                .getContentAsString(StandardCharsets.UTF_8);
+        for (String statement : initialSchema.replaceAll("(?m)^--.*$", "").split(";")) {
+            if (!statement.isBlank()) {
+                jdbcTemplate.execute(statement);
+            }
+        }
+    }
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private void assertUsesIndex(String sql, String expectedIndex) {
+        List<String> plan = jdbcTemplate.query("EXPLAIN QUERY PLAN " + sql,
+                (rs, rowNum) -> rs.getString("detail"), params(sql));
+        String planText = String.join("\n", plan);
+
+        assertTrue(planText.contains(expectedIndex), () -> "Expected " + expectedIndex + " for: " + sql + "\n" + planText);
+        assertFalse(planText.contains("USE TEMP B-TREE"), () -> "Sort not served by an index for: " + sql + "\n" + planText);
+        for (String step : plan) {
+            assertFalse(step.startsWith("SCAN") && !step.contains("USING"),
+                    () -> "Full table scan for: " + sql + "\n" + planText);
+        }
+    }
+
+    private static Object[] params(String sql) {
+        return new Object[(int) sql.chars().filter(c -> c == '?').count()];
+    }
+}
@@ -0,0 +1,125 @@
+package com.myfi.service;
+
+import com.myfi.model.Account;
+import com.myfi.model.Transaction;
+import com.myfi.model.Transaction.TransactionType;
+import com.myfi.repository.AccountHistoryRepository;
+import com.myfi.repository.AccountRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test of concurrent balance updates against a real SQLite database: many threads
+ * apply small changes to one account (directly and through a child account) at the same
+ * time, and no change may be lost.
+ */
+@SpringBootTest
+class AccountBalanceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    private static Path databaseDirectory;
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountHistoryRepository accountHistoryRepository;
+    @Autowired
+    private BalanceReconciliationService balanceReconciliationService;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        databaseDirectory = Files.createTempDirectory("myfi-balance");
+        registry.add("spring.datasource.url", () -> databaseDirectory.resolve("balance.db").toString());
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.myfi", () -> "WARN");
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (var files = Files.walk(databaseDirectory)) {
+            files.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void concurrentUpdates_shouldNotLoseAnyBalanceChange() throws Exception {
+        // Arrange
+        Account root = accountService.createAccount(account("Savings", "1111", null, "100.00"));
+        Account child = accountService.createAccount(account("Savings card", "2222", root.getId(), "0.00"));
+
+        // Act: every thread credits 0.10 to the root account and debits 0.03 through the child
+        // (single updates), and also applies a batched credit of 0.01 to both accounts
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    accountService.addToBalance(root, transaction(root, "0.10", TransactionType.CREDIT));
+                    accountService.addToBalance(child, transaction(child, "0.03", TransactionType.DEBIT));
+                    accountService.addToBalances(List.of(
+                            transaction(root, "0.01", TransactionType.CREDIT),
+                            transaction(child, "0.01", TransactionType.CREDIT)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Assert: 100.00 + 200 * (0.10 - 0.03 + 0.02)
+        int updates = THREADS * UPDATES_PER_THREAD;
+        BigDecimal expected = new BigDecimal("118.00");
+        BigDecimal stored = accountRepository.findCurrentBalanceById(root.getId()).orElseThrow();
+        assertEquals(0, expected.compareTo(stored), () -> "Expected " + expected + " but was " + stored);
+        Account reloaded = accountRepository.findById(root.getId()).orElseThrow();
+        assertEquals(1 + 3L * updates, accountHistoryRepository.findByAccountOrderByRecordedAtDesc(reloaded).size());
+        assertTrue(balanceReconciliationService.reconcile().drifts().isEmpty());
+    }
+
+    private static Account account(String name, String accountNumber, Long parentAccountId, String balance) {
+        Account account = new Account();
+        account.setName(name);
+        account.setType(Account.AccountType.SAVINGS);
+        account.setAccountNumber(accountNumber);
+        account.setParentAccountId(parentAccountId);
+        account.setBalance(new BigDecimal(balance));
+        account.setCurrency("INR");
+        return account;
+    }
+
+    private static Transaction transaction(Account account, String amount, TransactionType type) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setType(type);
+        return transaction;
+    }
+}
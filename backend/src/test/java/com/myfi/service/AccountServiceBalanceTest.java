@@ -1,6 +1,7 @@
 package com.myfi.service;
 
 import com.myfi.model.Account;
+import com.myfi.model.AccountHistory;
 import com.myfi.model.Transaction;
 import com.myfi.model.Transaction.TransactionType;
 import com.myfi.repository.AccountRepository;
@@ -13,6 +14,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -72,56 +75,69 @@ class AccountServiceBalanceTest {
         debitTransaction.setTransactionDate(LocalDateTime.now());
     }
 
+    // The history service applies the change to the stored balance and records the result
+    private void givenCurrentBalance(Long accountId, BigDecimal currentBalance) {
+        when(accountHistoryService.applyBalanceChange(eq(accountId), any())).thenAnswer(invocation -> {
+            AccountHistory history = new AccountHistory();
+            history.setBalance(currentBalance.add(invocation.getArgument(1)));
+            return history;
+        });
+    }
+
     @Test
     void addToBalance_shouldHandleCreditTransactionCorrectly() {
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.valueOf(1000)));
+        givenCurrentBalance(1L, BigDecimal.valueOf(1000));
 
         accountService.addToBalance(rootAccount, creditTransaction);
 
         // Credit should add positive amount to balance
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(1500));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(500));
+        assertEquals(BigDecimal.valueOf(1500), rootAccount.getBalance());
     }
 
     @Test
     void addToBalance_shouldHandleDebitTransactionCorrectly() {
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.valueOf(1000)));
+        givenCurrentBalance(1L, BigDecimal.valueOf(1000));
 
         accountService.addToBalance(rootAccount, debitTransaction);
 
         // Debit should subtract amount from balance
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(800));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(-200));
+        assertEquals(BigDecimal.valueOf(800), rootAccount.getBalance());
     }
 
     @Test
     void subtractFromBalance_shouldReverseCreditTransactionCorrectly() {
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.valueOf(1500)));
+        givenCurrentBalance(1L, BigDecimal.valueOf(1500));
 
         accountService.subtractFromBalance(rootAccount, creditTransaction);
 
         // Subtracting credit should remove the positive effect
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(1000));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(-500));
+        assertEquals(BigDecimal.valueOf(1000), rootAccount.getBalance());
     }
 
     @Test
     void subtractFromBalance_shouldReverseDebitTransactionCorrectly() {
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.valueOf(800)));
+        givenCurrentBalance(1L, BigDecimal.valueOf(800));
 
         accountService.subtractFromBalance(rootAccount, debitTransaction);
 
         // Subtracting debit should add back the amount
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(1000));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(200));
+        assertEquals(BigDecimal.valueOf(1000), rootAccount.getBalance());
     }
 
     @Test
     void updateBalance_shouldUpdateParentAccountWhenChildHasParent() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.of(rootAccount));
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.valueOf(1000)));
+        when(accountRepository.findAll()).thenReturn(List.of(rootAccount, childAccount));
+        givenCurrentBalance(1L, BigDecimal.valueOf(1000));
 
         accountService.updateBalance(childAccount, BigDecimal.valueOf(100));
 
         // Should update parent account balance, not child
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(1100));
-        verify(accountHistoryService, never()).createAccountHistoryRecord(eq(2L), any());
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(100));
+        verify(accountHistoryService, never()).applyBalanceChange(eq(2L), any());
     }
 
     @Test
@@ -135,8 +151,7 @@ class AccountServiceBalanceTest {
         accountB.setId(11L);
         accountB.setParentAccountId(10L); // Circular reference
 
-        when(accountRepository.findById(11L)).thenReturn(Optional.of(accountB));
-        when(accountRepository.findById(10L)).thenReturn(Optional.of(accountA));
+        when(accountRepository.findAll()).thenReturn(List.of(accountA, accountB));
 
         // This should not cause infinite recursion
         assertDoesNotThrow(() -> {
@@ -144,19 +159,62 @@ class AccountServiceBalanceTest {
         });
 
         // Should not create any account history due to circular reference detection
-        verify(accountHistoryService, never()).createAccountHistoryRecord(any(), any());
+        verify(accountHistoryService, never()).applyBalanceChange(any(), any());
     }
 
     @Test
     void updateBalance_shouldHandleMissingParentAccount() {
-        when(accountRepository.findById(1L)).thenReturn(Optional.empty());
+        when(accountRepository.findAll()).thenReturn(List.of(childAccount));
 
         // Should not throw exception when parent account is missing
         assertDoesNotThrow(() -> {
             accountService.updateBalance(childAccount, BigDecimal.valueOf(100));
         });
 
-        verify(accountHistoryService, never()).createAccountHistoryRecord(any(), any());
+        verify(accountHistoryService, never()).applyBalanceChange(any(), any());
+    }
+
+    @Test
+    void updateBalance_shouldResolveRootThroughSeveralLevelsWithOneQuery() {
+        when(accountRepository.findAll()).thenReturn(List.of(rootAccount, childAccount, grandChildAccount));
+        givenCurrentBalance(1L, BigDecimal.valueOf(1000));
+
+        accountService.updateBalance(grandChildAccount, BigDecimal.valueOf(50));
+        accountService.updateBalance(childAccount, BigDecimal.valueOf(25));
+
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(50));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(25));
+        // The hierarchy is loaded once and walked in memory
+        verify(accountRepository, times(1)).findAll();
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void getAccountLookups_shouldBeServedFromCacheUntilAccountsChange() {
+        rootAccount.setAccountNumber("111122223333");
+        rootAccount.setType(Account.AccountType.SAVINGS);
+        childAccount.setAccountNumber("444455556666");
+        childAccount.setType(Account.AccountType.CREDIT_CARD);
+        when(accountRepository.findAll()).thenReturn(List.of(rootAccount, childAccount));
+        when(accountRepository.findById(2L)).thenReturn(Optional.of(childAccount));
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertSame(childAccount, accountService.getAccountByCardLast4DigitsNumber("6666"));
+        assertSame(rootAccount, accountService.getAccountByCardLast4DigitsNumber("23333"));
+        assertSame(rootAccount, accountService.getAccountByTypeAndName(Account.AccountType.SAVINGS, "Root Account"));
+        assertNull(accountService.getAccountByTypeAndName(Account.AccountType.SAVINGS, "Child Account"));
+        verify(accountRepository, times(1)).findAll();
+
+        Account renamed = new Account();
+        renamed.setName("Renamed card");
+        renamed.setType(Account.AccountType.CREDIT_CARD);
+        renamed.setAccountNumber("444455557777");
+        renamed.setParentAccountId(1L);
+        accountService.updateAccount(2L, renamed);
+
+        assertSame(childAccount, accountService.getAccountByCardLast4DigitsNumber("7777"));
+        assertNull(accountService.getAccountByCardLast4DigitsNumber("6666"));
+        verify(accountRepository, times(2)).findAll();
     }
 
     @Test
@@ -206,21 +264,50 @@ class AccountServiceBalanceTest {
     @Test
     void updateBalance_shouldHandleZeroBalance() {
         rootAccount.setBalance(BigDecimal.ZERO);
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.of(BigDecimal.ZERO));
+        givenCurrentBalance(1L, BigDecimal.ZERO);
 
         accountService.updateBalance(rootAccount, BigDecimal.valueOf(100));
 
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(100));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(100));
+        assertEquals(BigDecimal.valueOf(100), rootAccount.getBalance());
     }
 
     @Test
     void updateBalance_shouldHandleNullCurrentBalance() {
         rootAccount.setBalance(null);
-        when(accountHistoryService.getLatestBalanceForAccount(1L)).thenReturn(Optional.empty());
+        givenCurrentBalance(1L, BigDecimal.ZERO);
 
         accountService.updateBalance(rootAccount, BigDecimal.valueOf(100));
 
         // Should default to zero and add the change
-        verify(accountHistoryService).createAccountHistoryRecord(1L, BigDecimal.valueOf(100));
+        verify(accountHistoryService).applyBalanceChange(1L, BigDecimal.valueOf(100));
+        assertEquals(BigDecimal.valueOf(100), rootAccount.getBalance());
+    }
+
+    @Test
+    void addToBalances_shouldRecordOneHistoryEntryPerRootAccount() {
+        creditTransaction.setAccount(childAccount);
+        debitTransaction.setAccount(rootAccount);
+        Transaction withoutAccount = new Transaction();
+        withoutAccount.setAmount(BigDecimal.valueOf(999));
+        withoutAccount.setType(TransactionType.CREDIT);
+
+        when(accountRepository.findAll()).thenReturn(List.of(rootAccount, childAccount));
+
+        accountService.addToBalances(List.of(creditTransaction, debitTransaction, withoutAccount));
+
+        // 500 (credit via child) - 200 (debit on root), applied as one change
+        verify(accountHistoryService).applyBalanceChanges(Map.of(1L, BigDecimal.valueOf(300)));
+        verify(accountHistoryService, never()).applyBalanceChange(any(), any());
+    }
+
+    @Test
+    void addToBalances_shouldSkipAccountsWithMissingParent() {
+        creditTransaction.setAccount(childAccount);
+        when(accountRepository.findAll()).thenReturn(List.of(childAccount));
+
+        accountService.addToBalances(List.of(creditTransaction));
+
+        verify(accountHistoryService, never()).applyBalanceChanges(any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package com.myfi.service;
+
+import com.myfi.repository.AccountRepository;
+import com.myfi.service.BalanceReconciliationService.BalanceDrift;
+import com.myfi.service.BalanceReconciliationService.ReconciliationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private BalanceReconciliationService reconciliationService;
+
+    private static Object[] row(long id, String stored, long version, String fromHistory) {
+        return new Object[] {
+                id,
+                stored == null ? null : new BigDecimal(stored),
+                version,
+                fromHistory == null ? null : new BigDecimal(fromHistory)};
+    }
+
+    @Test
+    void reconcile_shouldIgnoreMatchingBalancesRegardlessOfScale() {
+        // Arrange
+        when(accountRepository.findCurrentAndLatestHistoryBalances()).thenReturn(List.of(
+                row(1L, "100.00", 3L, "100.0"),
+                row(2L, null, 0L, null)));
+
+        // Act
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Assert
+        assertEquals(2, result.accountsChecked());
+        assertTrue(result.drifts().isEmpty());
+        verify(accountRepository, never()).updateCurrentBalanceIfVersion(any(), any(), anyLong());
+    }
+
+    @Test
+    void reconcile_shouldRepairDriftUsingLatestHistoryRowPerAccount() {
+        // Arrange: account 1 has two history records at the latest timestamp, highest id first
+        when(accountRepository.findCurrentAndLatestHistoryBalances()).thenReturn(List.of(
+                row(1L, "50.00", 7L, "75.00"),
+                row(1L, "50.00", 7L, "50.00"),
+                row(2L, null, 0L, "20.00")));
+        when(accountRepository.updateCurrentBalanceIfVersion(anyLong(), any(), anyLong())).thenReturn(1);
+
+        // Act
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Assert
+        assertEquals(2, result.accountsChecked());
+        assertEquals(List.of(
+                new BalanceDrift(1L, new BigDecimal("50.00"), new BigDecimal("75.00")),
+                new BalanceDrift(2L, null, new BigDecimal("20.00"))), result.drifts());
+        assertEquals(2, result.repaired());
+        verify(accountRepository).updateCurrentBalanceIfVersion(1L, new BigDecimal("75.00"), 7L);
+        verify(accountRepository).updateCurrentBalanceIfVersion(2L, new BigDecimal("20.00"), 0L);
+    }
+
+    @Test
+    void reconcile_shouldOnlyReportWhenRepairIsDisabled() {
+        // Arrange
+        ReflectionTestUtils.setField(reconciliationService, "repair", false);
+        when(accountRepository.findCurrentAndLatestHistoryBalances()).thenReturn(List.<Object[]>of(
+                row(1L, "10.00", 1L, "12.00")));
+
+        // Act
+        ReconciliationResult result = reconciliationService.reconcile();
+
+        // Assert
+        assertEquals(1, result.drifts().size());
+        assertEquals(0, result.repaired());
+        verify(accountRepository, never()).updateCurrentBalanceIfVersion(any(), any(), anyLong());
+    }
+}
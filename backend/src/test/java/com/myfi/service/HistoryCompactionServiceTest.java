@@ -0,0 +1,79 @@
+package com.myfi.service;
+
+import com.myfi.model.Account;
+import com.myfi.repository.AccountHistoryRepository;
+import com.myfi.repository.AccountRepository;
+import com.myfi.service.HistoryCompactionService.CompactionReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistoryCompactionServiceTest {
+
+    @Mock
+    private AccountHistoryRepository accountHistoryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @InjectMocks
+    private HistoryCompactionService compactionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(compactionService, "retainDays", 30);
+        ReflectionTestUtils.setField(compactionService, "chunkSize", 2);
+        when(accountRepository.findAll()).thenReturn(List.of(account(1L), account(2L)));
+        when(accountHistoryRepository.count()).thenReturn(20L);
+        when(accountHistoryRepository.findSupersededIntraDayIds(eq(1L), anyLong(), anyLong())).thenReturn(List.of(3, 4, 7, 9, 10));
+        when(accountHistoryRepository.findSupersededIntraDayIds(eq(2L), anyLong(), anyLong())).thenReturn(List.of());
+    }
+
+    private static Account account(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+
+    @Test
+    void compact_shouldDeleteSupersededRecordsInChunks() {
+        // Act
+        CompactionReport report = compactionService.compact(false);
+
+        // Assert
+        assertFalse(report.dryRun());
+        assertEquals(LocalDate.now().minusDays(30).atStartOfDay(), report.cutoff());
+        assertEquals(20, report.totalRows());
+        assertEquals(5, report.rowsReclaimed());
+        assertEquals(Map.of(1L, 5L), report.rowsReclaimedByAccountId());
+        verify(accountHistoryRepository).deleteAllByIdInBatch(List.of(3L, 4L));
+        verify(accountHistoryRepository).deleteAllByIdInBatch(List.of(7L, 9L));
+        verify(accountHistoryRepository).deleteAllByIdInBatch(List.of(10L));
+        verify(accountHistoryRepository, times(3)).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void compact_dryRun_shouldReportWithoutDeleting() {
+        // Act
+        CompactionReport report = compactionService.compact(true);
+
+        // Assert
+        assertTrue(report.dryRun());
+        assertEquals(5, report.rowsReclaimed());
+        assertEquals(Map.of(1L, 5L), report.rowsReclaimedByAccountId());
+        verify(accountHistoryRepository, never()).deleteAllByIdInBatch(any());
+    }
+}
@@ -0,0 +1,64 @@
+package com.myfi.service;
+
+import com.myfi.dto.BalancePoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbDownsamplerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static List<BalancePoint> series(int size, int spikeAt) {
+        List<BalancePoint> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            BigDecimal balance = BigDecimal.valueOf(i == spikeAt ? 10_000 : 1_000 + (i % 7));
+            points.add(new BalancePoint(START.plusHours(i), balance));
+        }
+        return points;
+    }
+
+    @Test
+    void downsample_shouldKeepEndpointsAndReturnRequestedPointCount() {
+        // Arrange
+        List<BalancePoint> points = series(5_000, -1);
+
+        // Act
+        List<BalancePoint> sampled = LttbDownsampler.downsample(points, 200);
+
+        // Assert
+        assertEquals(200, sampled.size());
+        assertSame(points.get(0), sampled.get(0));
+        assertSame(points.get(4_999), sampled.get(199));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i).timestamp().isAfter(sampled.get(i - 1).timestamp()));
+        }
+    }
+
+    @Test
+    void downsample_shouldKeepOutliers() {
+        // Arrange
+        List<BalancePoint> points = series(1_000, 437);
+
+        // Act
+        List<BalancePoint> sampled = LttbDownsampler.downsample(points, 20);
+
+        // Assert
+        assertTrue(sampled.contains(points.get(437)));
+    }
+
+    @Test
+    void downsample_shouldReturnSmallSeriesUnchanged() {
+        // Arrange
+        List<BalancePoint> points = series(10, -1);
+
+        // Act & Assert
+        assertSame(points, LttbDownsampler.downsample(points, 10));
+        assertSame(points, LttbDownsampler.downsample(points, 50));
+    }
+}
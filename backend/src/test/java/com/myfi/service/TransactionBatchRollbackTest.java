@@ -0,0 +1,98 @@
+package com.myfi.service;
+
+import com.myfi.model.Account;
+import com.myfi.model.Transaction;
+import com.myfi.model.Transaction.TransactionType;
+import com.myfi.repository.AccountRepository;
+import com.myfi.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.UnexpectedRollbackException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Checks against a real SQLite database what {@link TransactionService#createTransactions}
+ * leaves behind when the balance update of the batch fails.
+ */
+@SpringBootTest
+class TransactionBatchRollbackTest {
+
+    private static Path databaseDirectory;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @SpyBean
+    private AccountHistoryService accountHistoryService;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        databaseDirectory = Files.createTempDirectory("myfi-transactions");
+        registry.add("spring.datasource.url", () -> databaseDirectory.resolve("transactions.db").toString());
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("logging.level.com.myfi", () -> "WARN");
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (var files = Files.walk(databaseDirectory)) {
+            files.sorted(Collections.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void createTransactions_shouldRollBackBatchWhenBalanceUpdateFails() {
+        // Arrange
+        Account account = new Account();
+        account.setName("Savings");
+        account.setType(Account.AccountType.SAVINGS);
+        account.setAccountNumber("3333");
+        account.setBalance(new BigDecimal("100.00"));
+        account.setCurrency("INR");
+        Account saved = accountService.createAccount(account);
+        long transactionsBefore = transactionRepository.count();
+        doThrow(new IllegalStateException("balance update failed")).when(accountHistoryService).applyBalanceChanges(anyMap());
+
+        // Act
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> transactionService.createTransactions(List.of(
+                transaction(saved, "Coffee", "4.50"),
+                transaction(saved, "Groceries", "30.00"))));
+
+        // Assert: the original failure surfaces and nothing of the batch is persisted
+        assertFalse(thrown instanceof UnexpectedRollbackException, thrown::toString);
+        assertEquals("balance update failed", thrown.getMessage());
+        assertEquals(transactionsBefore, transactionRepository.count());
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountRepository.findCurrentBalanceById(saved.getId()).orElseThrow()));
+    }
+
+    private static Transaction transaction(Account account, String description, String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setDescription(description);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setType(TransactionType.DEBIT);
+        transaction.setTransactionDate(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return transaction;
+    }
+}
@@ -0,0 +1,119 @@
+package com.myfi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.myfi.model.Account;
+import com.myfi.model.Transaction;
+import com.myfi.model.Transaction.TransactionType;
+import com.myfi.repository.TransactionRepository;
+import com.myfi.service.TransactionExportService.ExportFormat;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private TransactionExportService transactionExportService;
+
+    private final LocalDate from = LocalDate.of(2024, 1, 1);
+    private final LocalDate to = LocalDate.of(2024, 1, 31);
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        transactionExportService = new TransactionExportService(transactionRepository, entityManager, objectMapper);
+    }
+
+    @Test
+    void export_shouldWriteCsvWithHeaderAndEscapedFields() throws Exception {
+        Account account = new Account();
+        account.setId(7L);
+        Transaction transaction = transaction(1L);
+        transaction.setAccount(account);
+        transaction.setDescription("Coffee, \"large\"");
+        when(transactionRepository.streamByTransactionDateBetween(from.atStartOfDay(), to.atTime(LocalTime.MAX)))
+                .thenReturn(Stream.of(transaction));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = transactionExportService.export(from, to, ExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(1, rows);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("id,transactionDate,amount,type,description"));
+        assertEquals("1,2024-01-05T10:15:00,12.50,DEBIT,\"Coffee, \"\"large\"\"\",,7,,,,,,false", lines[1]);
+    }
+
+    @Test
+    void export_shouldWriteOneJsonObjectPerLine() throws Exception {
+        when(transactionRepository.streamByTransactionDateBetween(any(), any()))
+                .thenReturn(Stream.of(transaction(1L), transaction(2L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transactionExportService.export(from, to, ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"transactionDate\":\"2024-01-05T10:15:00\""), lines[0]);
+        assertTrue(lines[1].startsWith("{\"id\":2,"), lines[1]);
+    }
+
+    @Test
+    void export_shouldClearPersistenceContextPeriodicallyAndCloseStream() throws Exception {
+        int total = TransactionExportService.CLEAR_EVERY_ROWS * 2 + 1;
+        AtomicBoolean closed = new AtomicBoolean();
+        when(transactionRepository.streamByTransactionDateBetween(any(), any()))
+                .thenReturn(IntStream.rangeClosed(1, total).mapToObj(i -> transaction((long) i))
+                        .onClose(() -> closed.set(true)));
+
+        long rows = transactionExportService.export(from, to, ExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        assertEquals(total, rows);
+        verify(entityManager, times(2)).clear();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void export_shouldRejectInvertedRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionExportService.export(to, from, ExportFormat.CSV, new ByteArrayOutputStream()));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private Transaction transaction(Long id) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(new BigDecimal("12.50"));
+        transaction.setType(TransactionType.DEBIT);
+        transaction.setDescription("Txn " + id);
+        transaction.setTransactionDate(LocalDateTime.of(2024, 1, 5, 10, 15));
+        transaction.setExcludeFromAccounting(false);
+        return transaction;
+    }
+}
@@ -1,5 +1,8 @@
 package com.myfi.service;
 
+import com.myfi.dto.CursorPage;
+import com.myfi.dto.TransactionCursor;
+import com.myfi.dto.TransactionSummary;
 import com.myfi.model.Account;
 import com.myfi.model.Transaction;
 import com.myfi.model.Transaction.TransactionType;
@@ -16,17 +19,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.http.HttpStatus;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -112,6 +120,82 @@ class TransactionServiceTest {
         verify(transactionRepository, times(1)).findAllByOrderByTransactionDateDesc(pageable);
     }
 
+    @Test
+    void getTransactionFeed_shouldReturnNextCursorFromLastRow() {
+        Pageable pageable = PageRequest.ofSize(2);
+        when(transactionRepository.findFeedFirstPage(pageable))
+                .thenReturn(new SliceImpl<>(List.of(transaction2, transaction1), pageable, true));
+
+        // Act
+        CursorPage<Transaction> page = transactionService.getTransactionFeed(null, 2);
+
+        // Assert
+        assertEquals(List.of(transaction2, transaction1), page.getContent());
+        assertTrue(page.isHasNext());
+        TransactionCursor next = TransactionCursor.decode(page.getNextCursor());
+        assertEquals(transaction1.getTransactionDate(), next.transactionDate());
+        assertEquals(transaction1.getId(), next.id());
+        verify(transactionRepository, never()).count();
+    }
+
+    @Test
+    void getTransactionFeed_shouldSeekPastCursorAndEndWithoutNextCursor() {
+        String cursor = new TransactionCursor(transaction2.getTransactionDate(), 2L).encode();
+        Pageable pageable = PageRequest.ofSize(20);
+        when(transactionRepository.findFeedAfter(transaction2.getTransactionDate(), 2L, pageable))
+                .thenReturn(new SliceImpl<>(List.of(transaction1), pageable, false));
+
+        // Act
+        CursorPage<Transaction> page = transactionService.getTransactionFeed(cursor, 20);
+
+        // Assert
+        assertEquals(List.of(transaction1), page.getContent());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getTransactionFeed_shouldRejectMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionFeed("not-a-cursor", 20));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getTransactionSummariesForRange_shouldQueryWholeRangeOnce() {
+        TransactionSummary summary = new TransactionSummary(1L, BigDecimal.TEN, TransactionType.DEBIT,
+                LocalDateTime.of(2023, 6, 1, 10, 0), "Coffee", null, null, 1L, null, false);
+        LocalDateTime rangeStart = LocalDate.of(2023, 1, 1).atStartOfDay();
+        LocalDateTime rangeEnd = LocalDate.of(2023, 12, 31).atTime(LocalTime.MAX);
+        when(transactionRepository.findSummariesByTransactionDateBetween(rangeStart, rangeEnd)).thenReturn(List.of(summary));
+
+        // Act
+        List<TransactionSummary> result = transactionService.getTransactionSummariesForRange(2023, 1, 2023, 12);
+
+        // Assert
+        assertEquals(List.of(summary), result);
+        verify(transactionRepository, times(1)).findSummariesByTransactionDateBetween(rangeStart, rangeEnd);
+        verifyNoMoreInteractions(transactionRepository);
+    }
+
+    @Test
+    void getTransactionSummariesForRange_shouldRejectInvertedRange() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionSummariesForRange(2024, 5, 2024, 1));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void getTransactionsForMonth_shouldFetchAccountsInSameQuery() {
+        LocalDateTime monthStart = LocalDate.of(2023, 1, 1).atStartOfDay();
+        LocalDateTime monthEnd = LocalDate.of(2023, 1, 31).atTime(LocalTime.MAX);
+        when(transactionRepository.findWithAccountByTransactionDateBetween(monthStart, monthEnd))
+                .thenReturn(List.of(transaction1, transaction2));
+
+        List<Transaction> result = transactionService.getTransactionsForMonth(2023, 1);
+
+        assertEquals(List.of(transaction1, transaction2), result);
+        verify(transactionRepository, never()).findByTransactionDateBetween(any(), any());
+    }
+
     @Test
     void getTransactionById_shouldReturnTransactionWhenFound() {
         when(transactionRepository.findById(1L)).thenReturn(Optional.of(transaction1));
@@ -184,6 +268,56 @@ class TransactionServiceTest {
         verify(accountService, never()).addToBalance(any(Account.class), any(Transaction.class)); // Balance should not be updated for duplicates
     }
 
+    @Test
+    void createTransactions_shouldSkipDuplicatesAndUpdateBalancesOnce() {
+        Transaction newTransaction = new Transaction();
+        newTransaction.setAmount(BigDecimal.valueOf(50));
+        newTransaction.setDescription("New unique transaction");
+        newTransaction.setType(TransactionType.DEBIT);
+        newTransaction.setTransactionDate(LocalDateTime.now());
+        newTransaction.setAccount(account);
+
+        Transaction sameAsNew = new Transaction();
+        sameAsNew.setAmount(newTransaction.getAmount());
+        sameAsNew.setDescription(newTransaction.getDescription());
+        sameAsNew.setType(newTransaction.getType());
+        sameAsNew.setTransactionDate(newTransaction.getTransactionDate());
+        sameAsNew.setAccount(account);
+
+        Transaction sameAsExisting = new Transaction();
+        sameAsExisting.setAmount(transaction1.getAmount());
+        sameAsExisting.setDescription(transaction1.getDescription());
+        sameAsExisting.setType(transaction1.getType());
+        sameAsExisting.setTransactionDate(transaction1.getTransactionDate());
+        sameAsExisting.setAccount(account);
+
+        when(transactionRepository.findByUniqueKeyIn(anyCollection())).thenReturn(List.of(transaction1));
+        when(transactionRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Transaction> result = transactionService.createTransactions(List.of(newTransaction, sameAsExisting, sameAsNew));
+
+        // Assert
+        assertEquals(3, result.size());
+        assertSame(newTransaction, result.get(0));
+        assertSame(transaction1, result.get(1));
+        assertSame(newTransaction, result.get(2));
+        verify(transactionRepository, times(1)).findByUniqueKeyIn(anyCollection());
+        verify(transactionRepository, never()).findByUniqueKey(anyString());
+        verify(transactionRepository).saveAll(List.of(newTransaction));
+        verify(accountService).addToBalances(List.of(newTransaction));
+        verify(accountService, never()).addToBalance(any(Account.class), any(Transaction.class));
+    }
+
+    @Test
+    void createTransactions_shouldRejectBatchWithInvalidTransaction() {
+        Transaction invalidTransaction = new Transaction();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.createTransactions(List.of(transaction2, invalidTransaction)));
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
     @Test
     void createTransaction_shouldThrowExceptionWhenMandatoryFieldMissing() {
         Transaction invalidTransaction = new Transaction();